@@ -0,0 +1,90 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara un bucle 'while' con el mismo cálculo desenrollado a mano:
+ *
+ *   bucle:        int i = 0; int s = 0; while (i < N) { s = s + i; i = i + 1; } print(s);
+ *   desenrollado: int i = 0; int s = 0; s = s + i; i = i + 1; ... (N veces) print(s);
+ *
+ * Se mide el front end (parseo y análisis semántico, donde el bucle es mucho
+ * más corto) y la ejecución en los tres motores (donde el desenrollado se
+ * ahorra la condición y el salto de cada vuelta).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkBucles {
+
+    @Param({"100", "1000"})
+    int iteraciones;
+
+    @Param({"bucle", "desenrollado"})
+    String forma;
+
+    private ProgramaGenerado programa;
+    private ProgramaJit jit;
+    private Salida salida;
+
+    @Setup
+    public void preparar() {
+        programa = new ProgramaGenerado(forma.equals("bucle") ? bucle(iteraciones) : desenrollado(iteraciones));
+        jit = new CompiladorJit().compilar(programa.bytecode);
+        salida = ProgramaGenerado.salidaNula();
+    }
+
+    @Benchmark
+    public Resolucion frontEnd() {
+        LanguageParser.InicioContext arbol = new AnalizadorSintactico(AnalizadorSintactico.Modo.SLL)
+                .parsear(programa.fuente(), new BaseErrorListener());
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor();
+        analizador.visit(arbol);
+        return analizador.getResolucion();
+    }
+
+    @Benchmark
+    public void visitor() {
+        new EjecutorVisitor(programa.resolucion, salida).visit(programa.arbol);
+    }
+
+    @Benchmark
+    public void maquinaVirtual() {
+        new MaquinaVirtual(salida).ejecutar(programa.bytecode);
+    }
+
+    @Benchmark
+    public void jit() {
+        jit.ejecutar(salida);
+        salida.vaciar();
+    }
+
+    static String bucle(int iteraciones) {
+        return "int i = 0;\nint s = 0;\nwhile (i < " + iteraciones + ") {\n  s = s + i;\n  i = i + 1;\n}\nprint(s);\n";
+    }
+
+    static String desenrollado(int iteraciones) {
+        StringBuilder texto = new StringBuilder("int i = 0;\nint s = 0;\n");
+        for (int i = 0; i < iteraciones; i++) {
+            texto.append("s = s + i;\ni = i + 1;\n");
+        }
+        return texto.append("print(s);\n").toString();
+    }
+}
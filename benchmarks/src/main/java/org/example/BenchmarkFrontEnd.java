@@ -0,0 +1,115 @@
+package org.example;
+
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las fases del front end sobre programas generados: lexer,
+ * parser (solo la regla inicio, con los tokens ya leídos), análisis semántico
+ * y búsquedas en la TablaSimbolos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkFrontEnd {
+
+    @Param({"1000", "10000"})
+    int sentencias;
+
+    @Param({"0", "4"})
+    int profundidad;
+
+    @Param({"4"})
+    int variables;
+
+    @Param({"1", "8"})
+    int cadena;
+
+    private ProgramaGenerado programa;
+    private LanguageLexer lexer;
+    private LanguageParser parser;
+    private TablaSimbolos tabla;
+    private String[] nombres;
+
+    @Setup
+    public void preparar() {
+        programa = new ProgramaGenerado(sentencias, profundidad, variables, cadena);
+        lexer = new LanguageLexer(null);
+        parser = new LanguageParser(null);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        prepararTabla();
+    }
+
+    /**
+     * Una tabla con un ámbito por nivel de anidamiento y 'variables' símbolos
+     * en cada uno; se buscan todos los nombres y otros tantos que no existen,
+     * que son el peor caso porque recorren todos los ámbitos.
+     */
+    private void prepararTabla() {
+        tabla = new TablaSimbolos();
+        nombres = new String[2 * (profundidad + 1) * variables];
+        int n = 0;
+        for (int nivel = 0; nivel <= profundidad; nivel++) {
+            if (nivel > 0) {
+                tabla.abrirAmbito();
+            }
+            for (int i = 0; i < variables; i++) {
+                String nombre = "v" + nivel + "x" + i;
+                Token token = new CommonToken(LanguageLexer.ID, nombre);
+                tabla.insertar(nombre, "int", token);
+                nombres[n++] = nombre;
+                nombres[n++] = "f" + nivel + "x" + i;
+            }
+        }
+    }
+
+    @Benchmark
+    public int lexer() {
+        lexer.setInputStream(programa.fuente());
+        int cantidad = 0;
+        while (lexer.nextToken().getType() != Token.EOF) {
+            cantidad++;
+        }
+        return cantidad;
+    }
+
+    @Benchmark
+    public LanguageParser.InicioContext parser() {
+        programa.tokens.seek(0);
+        parser.setTokenStream(programa.tokens);
+        return parser.inicio();
+    }
+
+    @Benchmark
+    public AnalizadorSemanticoVisitor analizador() {
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor();
+        analizador.visit(programa.arbol);
+        return analizador;
+    }
+
+    @Benchmark
+    public void tablaSimbolos(Blackhole agujero) {
+        for (String nombre : nombres) {
+            agujero.consume(tabla.buscar(nombre));
+        }
+    }
+}
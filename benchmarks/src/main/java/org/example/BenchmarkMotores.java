@@ -0,0 +1,72 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara los tres motores de ejecución sobre el mismo programa generado: el
+ * EjecutorVisitor que recorre el árbol, la MaquinaVirtual y el código que
+ * genera el CompiladorJit. Solo se mide la ejecución; la traducción se hace
+ * en el setup.
+ *
+ * Los tamaños por defecto son menores que los del front end porque el JIT
+ * rechaza programas que no caben en un método de la JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkMotores {
+
+    @Param({"100", "1000"})
+    int sentencias;
+
+    @Param({"0", "4"})
+    int profundidad;
+
+    @Param({"4"})
+    int variables;
+
+    @Param({"1", "8"})
+    int cadena;
+
+    private ProgramaGenerado programa;
+    private ProgramaJit jit;
+    private Salida salida;
+
+    @Setup
+    public void preparar() {
+        programa = new ProgramaGenerado(sentencias, profundidad, variables, cadena);
+        jit = new CompiladorJit().compilar(programa.bytecode);
+        salida = ProgramaGenerado.salidaNula();
+    }
+
+    @Benchmark
+    public void visitor() {
+        new EjecutorVisitor(programa.resolucion, salida).visit(programa.arbol);
+    }
+
+    @Benchmark
+    public void maquinaVirtual() {
+        new MaquinaVirtual(salida).ejecutar(programa.bytecode);
+    }
+
+    @Benchmark
+    public void jit() {
+        jit.ejecutar(salida);
+        salida.vaciar();
+    }
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada del jar de benchmarks. Acepta las mismas opciones que la
+ * línea de comandos de JMH (por ejemplo -p sentencias=50000 o un filtro por
+ * nombre) pero, salvo que se indique otra cosa con -rf/-rff, guarda los
+ * resultados en JSON en benchmarks.json para poder compararlos entre versiones.
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions lineaComandos = new CommandLineOptions(args);
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(lineaComandos);
+        if (!lineaComandos.getResultFormat().hasValue()) {
+            opciones.resultFormat(ResultFormatType.JSON);
+        }
+        if (!lineaComandos.getResult().hasValue()) {
+            opciones.result("benchmarks.json");
+        }
+        new Runner(opciones.build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Un programa (del GeneradorProgramas o escrito por un benchmark) con todo lo que necesitan los benchmarks
+ * ya preparado: el texto, los tokens, el árbol, la Resolucion y el Bytecode.
+ * Cada benchmark mide una sola fase partiendo del resultado de las anteriores.
+ */
+final class ProgramaGenerado {
+
+    final byte[] texto;
+    final CommonTokenStream tokens;
+    final LanguageParser.InicioContext arbol;
+    final Resolucion resolucion;
+    final Bytecode bytecode;
+
+    ProgramaGenerado(int sentencias, int profundidad, int variables, int cadena) {
+        this(new GeneradorProgramas(sentencias, profundidad, variables, cadena, 42).generar());
+    }
+
+    ProgramaGenerado(String programa) {
+        texto = programa.getBytes(StandardCharsets.US_ASCII);
+
+        tokens = new CommonTokenStream(new LanguageLexer(fuente()));
+        tokens.fill();
+        arbol = new AnalizadorSintactico(AnalizadorSintactico.Modo.SLL).parsear(fuente(), new ErroresFatales());
+
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor();
+        analizador.visit(arbol);
+        if (analizador.hayErrores()) {
+            throw new IllegalStateException("El programa generado tiene errores: " + analizador.getErrores().get(0));
+        }
+        resolucion = analizador.getResolucion();
+        bytecode = new CompiladorBytecode(resolucion).compilar(arbol);
+    }
+
+    FuenteMapeada fuente() {
+        return new FuenteMapeada(ByteBuffer.wrap(texto), "generado");
+    }
+
+    /**
+     * Una Salida que descarta todo, para no medir la escritura en la consola.
+     */
+    static Salida salidaNula() {
+        return new SalidaBuffer(OutputStream.nullOutputStream());
+    }
+
+    private static final class ErroresFatales extends BaseErrorListener {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                int line, int charPositionInLine, String msg,
+                                RecognitionException e) {
+            throw new IllegalStateException("line " + line + ":" + charPositionInLine + " " + msg);
+        }
+    }
+}
@@ -2,9 +2,10 @@ grammar Language;
 
 inicio: programa EOF;
 
+// Lista plana de sentencias: un solo nodo 'programa' con una hija por sentencia,
+// en lugar de un nivel de anidamiento por sentencia.
 programa
-    : sentencia programa
-    | // lambda
+    : sentencia*
     ;
 
 sentencia
@@ -12,6 +13,7 @@ sentencia
     | asignacion PUNTO_COMA
     | print PUNTO_COMA
     | if
+    | while
     ;
 
 declaracion
@@ -30,14 +32,21 @@ if
     : IF PAREN_ABIERTO expresion PAREN_CERRADO bloque
     ;
 
+while
+    : WHILE PAREN_ABIERTO expresion PAREN_CERRADO bloque
+    ;
+
 bloque
     : LLAVE_ABIERTA programa LLAVE_CERRADA
     ;
 
 // Las etiquetas (#) se usan para que antlr cree metodos con esos nombres y sea mas facil redefinirlos.
+// Las comparaciones van despues de la suma y la resta, asi que tienen menor
+// precedencia: 'a + 1 < b' es '(a + 1) < b'.
 expresion
     : expresion SUMA expresion      # ExpSuma
     | expresion RESTA expresion     # ExpResta
+    | expresion (MENOR | MAYOR | IGUAL_IGUAL) expresion    # ExpComparacion
     | NUM                           # ExpNum
     | ID                            # ExpId
     | TRUE                          # ExpBoolean
@@ -48,10 +57,12 @@ expresion
 INT: 'int';
 PRINT: 'print';
 IF: 'if';
+WHILE: 'while';
 TRUE: 'true';
 FALSE: 'false';
 
 PUNTO_COMA: ';';
+IGUAL_IGUAL: '==';
 IGUAL: '=';
 PAREN_ABIERTO: '(';
 PAREN_CERRADO: ')';
@@ -59,6 +70,8 @@ LLAVE_ABIERTA: '{';
 LLAVE_CERRADA: '}';
 SUMA: '+';
 RESTA: '-';
+MENOR: '<';
+MAYOR: '>';
 
 ID: [a-z]+;
 NUM: [0-9]+;
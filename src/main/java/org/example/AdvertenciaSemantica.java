@@ -0,0 +1,43 @@
+package org.example;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Representa una advertencia del análisis: algo que no impide ejecutar el
+ * programa pero que probablemente es un descuido (por ejemplo, una variable
+ * que nunca se lee). Se informa con el mismo formato que ErrorSemantico.
+ */
+public class AdvertenciaSemantica {
+    private final String mensaje;
+    private final int linea;
+    private final int columna;
+
+    public AdvertenciaSemantica(String mensaje, Token token) {
+        this.mensaje = mensaje;
+        this.linea = token.getLine();
+        this.columna = token.getCharPositionInLine();
+    }
+
+    // Para reconstruir advertencias ya reportadas (por ejemplo, desde la CacheProgramas).
+    public AdvertenciaSemantica(String mensaje, int linea, int columna) {
+        this.mensaje = mensaje;
+        this.linea = linea;
+        this.columna = columna;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public int getLinea() {
+        return linea;
+    }
+
+    public int getColumna() {
+        return columna;
+    }
+
+    @Override
+    public String toString() {
+        return "Advertencia Semántica en línea " + linea + ":" + columna + " -> " + mensaje;
+    }
+}
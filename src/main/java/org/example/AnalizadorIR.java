@@ -0,0 +1,270 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Análisis semántico de un ProgramaIR: las mismas reglas, los mismos mensajes
+ * y el mismo orden de errores que el AnalizadorSemanticoVisitor, sin objetos
+ * por nodo ni por símbolo.
+ *
+ * La tabla de símbolos son arreglos indexados por el número del nombre: para
+ * cada nombre, el símbolo visible en este punto; cada símbolo recuerda el que
+ * ocultaba, y al cerrar un bloque se restauran en orden inverso. Como los
+ * nombres ya están internados, buscar una variable es leer un arreglo.
+ *
+ * También asigna los slots del frame plano como una pila: el slot de una
+ * variable es su posición entre los símbolos de los bloques abiertos, y al
+ * cerrar un bloque sus slots quedan libres para el código que sigue. El
+ * resultado (el slot de cada nodo NOMBRE e ID, y el tamaño del frame) es lo
+ * que usa el CompiladorIR.
+ */
+public class AnalizadorIR {
+
+    // --- Tipos del lenguaje ---
+    private static final int TIPO_INT = 0;
+    private static final int TIPO_BOOLEAN = 1;
+    private static final int TIPO_ERROR = 2; // Para propagar errores sin mensajes en cascada.
+    private static final String[] NOMBRES_TIPO = {"int", "boolean", "error"};
+
+    private final ProgramaIR ir;
+    private final List<ErrorSemantico> errores = new ArrayList<>();
+    private final int[] slots;
+    private int tamanoFrame = 0;
+
+    // Símbolo visible para cada nombre, o -1.
+    private final int[] visible;
+    // Los símbolos declarados en los bloques abiertos, en orden de declaración.
+    private int[] simboloNombre = new int[16];
+    private int[] simboloProfundidad = new int[16];
+    private int[] simboloLinea = new int[16];
+    private int[] simboloOculto = new int[16];
+    private int cantidadSimbolos = 0;
+    private int profundidad = 0;
+
+    // Para recorrer las expresiones en postorden sin recursión.
+    private int[] pendientes = new int[16];
+    private int[] tipos = new int[16];
+
+    public AnalizadorIR(ProgramaIR ir) {
+        this.ir = ir;
+        this.slots = new int[ir.getCantidadNodos()];
+        this.visible = new int[ir.getCantidadNombres()];
+        Arrays.fill(visible, -1);
+    }
+
+    public void analizar() {
+        analizarSentencias(ir.getRaiz());
+    }
+
+    public List<ErrorSemantico> getErrores() {
+        return errores;
+    }
+
+    public boolean hayErrores() {
+        return !errores.isEmpty();
+    }
+
+    /**
+     * @return El slot del frame plano de la variable de un nodo NOMBRE o ID.
+     */
+    public int getSlot(int nodo) {
+        return slots[nodo];
+    }
+
+    public int getTamanoFrame() {
+        return tamanoFrame;
+    }
+
+    // --- Sentencias ---
+
+    private void analizarSentencias(int bloque) {
+        for (int i = 0; i < ir.b(bloque); i++) {
+            analizarSentencia(ir.sentencia(bloque, i));
+        }
+    }
+
+    private void analizarSentencia(int nodo) {
+        switch (ir.clase(nodo)) {
+            case ProgramaIR.DECLARACION:
+                analizarDeclaracion(nodo);
+                break;
+            case ProgramaIR.ASIGNACION:
+                analizarAsignacion(nodo);
+                break;
+            case ProgramaIR.PRINT:
+                tipo(ir.a(nodo));
+                break;
+            case ProgramaIR.IF:
+                comprobarCondicion(nodo, "if");
+                analizarBloque(ir.b(nodo));
+                break;
+            default:
+                comprobarCondicion(nodo, "while");
+                analizarBloque(ir.b(nodo));
+                break;
+        }
+    }
+
+    /**
+     * Como en el AnalizadorSemanticoVisitor, la expresión se resuelve antes de
+     * declarar la variable, y el error de redeclaración va antes que los de la expresión.
+     */
+    private void analizarDeclaracion(int nodo) {
+        int variable = ir.a(nodo);
+        int nombre = ir.a(variable);
+        int posicionError = errores.size();
+        int tipoExpresion = tipo(ir.b(nodo));
+
+        int existente = visible[nombre];
+        if (existente >= 0 && simboloProfundidad[existente] == profundidad) {
+            errores.add(posicionError, error("La variable '" + ir.nombre(nombre)
+                    + "' ya fue declarada en este ámbito en la línea " + simboloLinea[existente], variable));
+        } else {
+            slots[variable] = declarar(nombre, variable);
+        }
+
+        if (tipoExpresion != TIPO_ERROR && tipoExpresion != TIPO_INT) {
+            errores.add(error("No se puede asignar un valor de tipo '" + NOMBRES_TIPO[tipoExpresion]
+                    + "' a una variable de tipo 'int'.", nodo));
+        }
+    }
+
+    private void analizarAsignacion(int nodo) {
+        int variable = ir.a(nodo);
+        int simbolo = visible[ir.a(variable)];
+        if (simbolo < 0) {
+            errores.add(error("La variable '" + ir.nombre(ir.a(variable)) + "' no ha sido declarada.", variable));
+        } else {
+            slots[variable] = simbolo;
+        }
+
+        int tipoExpresion = tipo(ir.b(nodo));
+        if (simbolo >= 0 && tipoExpresion != TIPO_ERROR && tipoExpresion != TIPO_INT) {
+            errores.add(error("No se puede asignar un valor de tipo '" + NOMBRES_TIPO[tipoExpresion]
+                    + "' a una variable de tipo 'int'.", nodo));
+        }
+    }
+
+    private void comprobarCondicion(int nodo, String sentencia) {
+        int tipoCondicion = tipo(ir.a(nodo));
+        if (tipoCondicion != TIPO_ERROR && tipoCondicion != TIPO_BOOLEAN) {
+            errores.add(error("La condición de la sentencia '" + sentencia
+                    + "' debe ser de tipo 'boolean', pero se encontró de tipo '"
+                    + NOMBRES_TIPO[tipoCondicion] + "'.", nodo));
+        }
+    }
+
+    private void analizarBloque(int bloque) {
+        int simbolosAlEntrar = cantidadSimbolos;
+        profundidad++;
+        analizarSentencias(bloque);
+        profundidad--;
+        while (cantidadSimbolos > simbolosAlEntrar) {
+            cantidadSimbolos--;
+            visible[simboloNombre[cantidadSimbolos]] = simboloOculto[cantidadSimbolos];
+        }
+    }
+
+    // --- Tabla de símbolos ---
+
+    /**
+     * @return El slot de la nueva variable, que es su posición entre los símbolos.
+     */
+    private int declarar(int nombre, int variable) {
+        if (cantidadSimbolos == simboloNombre.length) {
+            int nuevo = cantidadSimbolos * 2;
+            simboloNombre = Arrays.copyOf(simboloNombre, nuevo);
+            simboloProfundidad = Arrays.copyOf(simboloProfundidad, nuevo);
+            simboloLinea = Arrays.copyOf(simboloLinea, nuevo);
+            simboloOculto = Arrays.copyOf(simboloOculto, nuevo);
+        }
+        // Los símbolos de los bloques abiertos ocupan los slots 0..cantidad-1.
+        int simbolo = cantidadSimbolos++;
+        simboloNombre[simbolo] = nombre;
+        simboloProfundidad[simbolo] = profundidad;
+        simboloLinea[simbolo] = ir.linea(variable);
+        simboloOculto[simbolo] = visible[nombre];
+        visible[nombre] = simbolo;
+        tamanoFrame = Math.max(tamanoFrame, simbolo + 1);
+        return simbolo;
+    }
+
+    // --- Expresiones ---
+
+    /**
+     * Calcula el tipo de una expresión en postorden con una pila explícita,
+     * reportando los errores en el mismo orden que el recorrido recursivo.
+     */
+    private int tipo(int raiz) {
+        int tope = 0;
+        int cantidadTipos = 0;
+        pendientes[tope++] = raiz << 1;
+        while (tope > 0) {
+            int entrada = pendientes[--tope];
+            int nodo = entrada >>> 1;
+            byte clase = ir.clase(nodo);
+            if ((entrada & 1) == 0 && ProgramaIR.esBinaria(clase)) {
+                if (tope + 3 > pendientes.length) {
+                    pendientes = Arrays.copyOf(pendientes, pendientes.length * 2);
+                }
+                pendientes[tope++] = nodo << 1 | 1;
+                pendientes[tope++] = ir.b(nodo) << 1;
+                pendientes[tope++] = ir.a(nodo) << 1;
+                continue;
+            }
+            int tipo;
+            if (ProgramaIR.esBinaria(clase)) {
+                int derecho = tipos[--cantidadTipos];
+                int izquierdo = tipos[--cantidadTipos];
+                tipo = tipoOperacion(nodo, clase, izquierdo, derecho);
+            } else if (clase == ProgramaIR.ID) {
+                tipo = tipoVariable(nodo);
+            } else {
+                tipo = clase == ProgramaIR.NUM ? TIPO_INT : TIPO_BOOLEAN;
+            }
+            if (cantidadTipos == tipos.length) {
+                tipos = Arrays.copyOf(tipos, tipos.length * 2);
+            }
+            tipos[cantidadTipos++] = tipo;
+        }
+        return tipos[0];
+    }
+
+    private int tipoVariable(int nodo) {
+        int simbolo = visible[ir.a(nodo)];
+        if (simbolo < 0) {
+            errores.add(error("La variable '" + ir.nombre(ir.a(nodo)) + "' no ha sido declarada.", nodo));
+            return TIPO_ERROR;
+        }
+        slots[nodo] = simbolo;
+        return TIPO_INT;
+    }
+
+    private int tipoOperacion(int nodo, byte clase, int izquierdo, int derecho) {
+        if (izquierdo == TIPO_ERROR || derecho == TIPO_ERROR) {
+            return TIPO_ERROR;
+        }
+        boolean comparacion = clase != ProgramaIR.SUMA && clase != ProgramaIR.RESTA;
+        if (clase == ProgramaIR.IGUAL) {
+            if (izquierdo == derecho) {
+                return TIPO_BOOLEAN;
+            }
+            errores.add(error("El operador '==' solo se puede aplicar a operandos del mismo tipo, pero se encontraron '"
+                    + NOMBRES_TIPO[izquierdo] + "' y '" + NOMBRES_TIPO[derecho] + "'.", nodo));
+            return TIPO_ERROR;
+        }
+        if (izquierdo == TIPO_INT && derecho == TIPO_INT) {
+            return comparacion ? TIPO_BOOLEAN : TIPO_INT;
+        }
+        errores.add(error("El operador '" + ProgramaIR.operador(clase)
+                + "' solo se puede aplicar a operandos de tipo 'int', pero se encontraron '"
+                + NOMBRES_TIPO[izquierdo] + "' y '" + NOMBRES_TIPO[derecho] + "'.", nodo));
+        return TIPO_ERROR;
+    }
+
+    private ErrorSemantico error(String mensaje, int nodo) {
+        return new ErrorSemantico(mensaje, ir.linea(nodo), ir.columna(nodo));
+    }
+}
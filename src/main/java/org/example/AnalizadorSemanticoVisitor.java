@@ -5,6 +5,9 @@ import org.example.LanguageBaseVisitor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Visitor para la Pasada 1: Análisis Semántico con Comprobación de Tipos.
@@ -12,6 +15,16 @@ import java.util.List;
  * El tipo de retorno genérico es <String> porque los métodos que visitan
  * expresiones ahora deben devolver el tipo de dato de la expresión que analizan
  * (ej: "int", "boolean"). Los métodos que visitan sentencias devuelven null.
+ *
+ * Además resuelve cada identificador a su Simbolo (profundidad de ámbito, slot)
+ * y lo deja anotado en una Resolucion, que usa el EjecutorVisitor.
+ *
+ * Con un ForkJoinPool, los bloques 'if' y 'while' grandes del nivel superior se analizan
+ * en paralelo: cada uno en su propio analizador, con una instantánea inmutable
+ * del ámbito global tal como estaba en ese punto del programa (un bloque nunca
+ * modifica el ámbito global, solo lo consulta). Al final del programa se
+ * juntan sus errores en el lugar que les corresponde en el orden del código
+ * y sus Resoluciones, así que el resultado es idéntico al del análisis secuencial.
  */
 public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
 
@@ -20,13 +33,58 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
     private static final String TIPO_BOOLEAN = "boolean";
     private static final String TIPO_ERROR = "error"; // Un tipo especial para propagar errores.
 
-    private final TablaSimbolos tablaSimbolos = new TablaSimbolos();
+    // Un bloque con menos tokens se analiza en el mismo hilo: no compensa crear una tarea.
+    private static final int UMBRAL_TOKENS_PARALELO = 2000;
+
+    private final TablaSimbolos tablaSimbolos;
     private final List<ErrorSemantico> errores = new ArrayList<>();
+    private final Resolucion resolucion = new Resolucion();
+    private final Metricas metricas;
+
+    // --- Análisis en paralelo (pool es null si es secuencial) ---
+    private final ForkJoinPool pool;
+    private final List<BloqueParalelo> bloquesParalelos = new ArrayList<>();
+    // La instantánea del ámbito global se reutiliza mientras no se declare nada nuevo en él.
+    private Map<String, Simbolo> instantanea;
+    private int tamanoInstantanea = -1;
+
+    public AnalizadorSemanticoVisitor() {
+        this(null);
+    }
+
+    /**
+     * @param metricas Donde la TablaSimbolos cuenta búsquedas y profundidad, o null para no medir.
+     */
+    public AnalizadorSemanticoVisitor(Metricas metricas) {
+        this(metricas, null);
+    }
+
+    /**
+     * @param metricas Donde la TablaSimbolos cuenta búsquedas y profundidad, o null para no medir.
+     * @param pool Donde se analizan en paralelo los bloques del nivel superior, o null.
+     */
+    public AnalizadorSemanticoVisitor(Metricas metricas, ForkJoinPool pool) {
+        this.tablaSimbolos = new TablaSimbolos(metricas);
+        this.metricas = metricas;
+        this.pool = pool;
+    }
+
+    /**
+     * Analizador de un solo bloque del nivel superior, para una tarea del pool.
+     */
+    private AnalizadorSemanticoVisitor(Map<String, Simbolo> global, Metricas metricas) {
+        this.tablaSimbolos = new TablaSimbolos(global, metricas);
+        this.metricas = metricas;
+        this.pool = null;
+    }
 
     // --- Métodos públicos para obtener el resultado del análisis ---
     public List<ErrorSemantico> getErrores() {
         return errores;
     }
+    public Resolucion getResolucion() {
+        return resolucion;
+    }
     public boolean hayErrores() {
         return !errores.isEmpty();
     }
@@ -40,6 +98,9 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
      * Reglas Semánticas Verificadas:
      * 1. No redeclaración de variables en el mismo ámbito.
      * 2. El tipo de la expresión asignada debe coincidir con el tipo de la variable declarada.
+     *
+     * La expresión se resuelve antes de insertar la variable, igual que en la
+     * ejecución: en 'int x = x + 1;' el 'x' de la derecha es el del ámbito exterior.
      */
     @Override
     public String visitDeclaracion(LanguageParser.DeclaracionContext ctx) {
@@ -47,14 +108,17 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
         String tipoVar = ctx.INT().getText(); // En nuestro lenguaje, siempre es "int".
         Token token = ctx.ID().getSymbol();
 
+        // El error de redeclaración se reporta antes que los de la expresión.
+        int posicionError = errores.size();
+        String tipoExpresion = visit(ctx.expresion());
+
         try {
-            tablaSimbolos.insertar(nombreVar, tipoVar, token);
+            resolucion.asociar(ctx, tablaSimbolos.insertar(nombreVar, tipoVar, token));
         } catch (ErrorSemanticoException e) {
-            errores.add(new ErrorSemantico(e.getMessage(), e.getToken()));
+            errores.add(posicionError, new ErrorSemantico(e.getMessage(), e.getToken()));
         }
 
         // Ahora, comprobamos los tipos.
-        String tipoExpresion = visit(ctx.expresion());
 
         // Si la expresión ya tuvo un error, no reportamos un segundo error de tipos.
         if (!tipoExpresion.equals(TIPO_ERROR) && !tipoExpresion.equals(tipoVar)) {
@@ -82,6 +146,8 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
 
         if (simbolo == null) {
             errores.add(new ErrorSemantico("La variable '" + nombreVar + "' no ha sido declarada.", token));
+        } else {
+            resolucion.asociar(ctx, simbolo);
         }
 
         String tipoExpresion = visit(ctx.expresion());
@@ -106,16 +172,87 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
      */
     @Override
     public String visitIf(LanguageParser.IfContext ctx) {
-        String tipoCondicion = visit(ctx.expresion());
+        comprobarCondicion(ctx.expresion(), "if", ctx.PAREN_ABIERTO().getSymbol());
+        visitarBloque(ctx.bloque()); // Continuamos validando el bloque.
+        return null; // Las sentencias no tienen un tipo.
+    }
 
+    /**
+     * Visita la regla 'while'.
+     * ANTLR Rule: while: WHILE PAREN_ABIERTO expresion PAREN_CERRADO bloque;
+     *
+     * Regla Semántica Verificada: igual que en el 'if', la condición debe ser de tipo 'boolean'.
+     * El bloque se analiza una sola vez, aunque se ejecute muchas.
+     */
+    @Override
+    public String visitWhile(LanguageParser.WhileContext ctx) {
+        comprobarCondicion(ctx.expresion(), "while", ctx.PAREN_ABIERTO().getSymbol());
+        visitarBloque(ctx.bloque());
+        return null; // Las sentencias no tienen un tipo.
+    }
+
+    private void comprobarCondicion(LanguageParser.ExpresionContext condicion, String sentencia, Token token) {
+        String tipoCondicion = visit(condicion);
         if (!tipoCondicion.equals(TIPO_ERROR) && !tipoCondicion.equals(TIPO_BOOLEAN)) {
             errores.add(new ErrorSemantico(
-                    "La condición de la sentencia 'if' debe ser de tipo 'boolean', pero se encontró de tipo '" + tipoCondicion + "'.",
-                    ctx.PAREN_ABIERTO().getSymbol()
+                    "La condición de la sentencia '" + sentencia + "' debe ser de tipo 'boolean', pero se encontró de tipo '" + tipoCondicion + "'.",
+                    token
             ));
         }
-        visit(ctx.bloque()); // Continuamos validando el bloque.
-        return null; // Las sentencias no tienen un tipo.
+    }
+
+    /**
+     * Analiza el bloque de un 'if' o un 'while', en otro hilo si es grande y está en el nivel superior.
+     */
+    private void visitarBloque(LanguageParser.BloqueContext bloque) {
+        if (pool != null && tablaSimbolos.getProfundidad() == 0 && esGrande(bloque)) {
+            analizarEnParalelo(bloque);
+        } else {
+            visit(bloque);
+        }
+    }
+
+    private static boolean esGrande(LanguageParser.BloqueContext bloque) {
+        return bloque.getStop() != null
+                && bloque.getStop().getTokenIndex() - bloque.getStart().getTokenIndex() >= UMBRAL_TOKENS_PARALELO;
+    }
+
+    private void analizarEnParalelo(LanguageParser.BloqueContext bloque) {
+        if (tamanoInstantanea != tablaSimbolos.getTamanoAmbitoActual()) {
+            instantanea = tablaSimbolos.instantanea();
+            tamanoInstantanea = tablaSimbolos.getTamanoAmbitoActual();
+        }
+        Metricas metricasTarea = metricas != null ? new Metricas(metricas.getPrograma()) : null;
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor(instantanea, metricasTarea);
+        ForkJoinTask<String> tarea = pool.submit(() -> analizador.visit(bloque));
+        // Sus errores van justo después de los que ya se encontraron hasta aquí.
+        bloquesParalelos.add(new BloqueParalelo(errores.size(), analizador, tarea));
+    }
+
+    /**
+     * Espera a las tareas y junta sus errores, Resoluciones y métricas. Los
+     * errores de este analizador que se agregaron después de lanzar una tarea
+     * (incluso los que se insertan en posicionError) quedan detrás de los de ella.
+     */
+    private void juntarBloquesParalelos() {
+        if (bloquesParalelos.isEmpty()) {
+            return;
+        }
+        List<ErrorSemantico> propios = new ArrayList<>(errores);
+        errores.clear();
+        int desde = 0;
+        for (BloqueParalelo bloque : bloquesParalelos) {
+            bloque.tarea.join();
+            errores.addAll(propios.subList(desde, bloque.posicion));
+            desde = bloque.posicion;
+            errores.addAll(bloque.analizador.errores);
+            resolucion.incorporar(bloque.analizador.resolucion);
+            if (metricas != null) {
+                metricas.incorporarAnalisis(bloque.analizador.metricas);
+            }
+        }
+        errores.addAll(propios.subList(desde, propios.size()));
+        bloquesParalelos.clear();
     }
 
     // --- Métodos de visita que devuelven el TIPO de las Expresiones ---
@@ -128,44 +265,81 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
      */
     @Override
     public String visitExpSuma(LanguageParser.ExpSumaContext ctx) {
-        String tipoIzq = visit(ctx.expresion(0));
-        String tipoDer = visit(ctx.expresion(1));
+        return visitCadena(ctx);
+    }
+
+    /**
+     * Visita una expresión de resta. (Lógica idéntica a la suma)
+     * ANTLR Rule: expresion: expresion RESTA expresion # ExpResta
+     */
+    @Override
+    public String visitExpResta(LanguageParser.ExpRestaContext ctx) {
+        return visitCadena(ctx);
+    }
 
+    /**
+     * Recorre una cadena de sumas y restas sin recursión (ver Expresiones),
+     * comprobando los tipos de cada operador de abajo hacia arriba.
+     */
+    private String visitCadena(LanguageParser.ExpresionContext raiz) {
+        LanguageParser.ExpresionContext nodo = Expresiones.hojaIzquierda(raiz);
+        String tipo = visit(nodo);
+        while (nodo != raiz) {
+            nodo = (LanguageParser.ExpresionContext) nodo.getParent();
+            tipo = tipoOperacion(nodo, tipo, visit(Expresiones.derecha(nodo)));
+        }
+        return tipo;
+    }
+
+    private String tipoOperacion(LanguageParser.ExpresionContext ctx, String tipoIzq, String tipoDer) {
         if (tipoIzq.equals(TIPO_ERROR) || tipoDer.equals(TIPO_ERROR)) {
             return TIPO_ERROR; // Propagamos el error para evitar mensajes en cascada.
         }
 
         if (tipoIzq.equals(TIPO_INT) && tipoDer.equals(TIPO_INT)) {
-            return TIPO_INT; // El resultado de int + int es int.
+            return TIPO_INT; // El resultado de int + int (o int - int) es int.
         }
 
+        Token operador = Expresiones.operador(ctx);
         errores.add(new ErrorSemantico(
-                "El operador '+' solo se puede aplicar a operandos de tipo 'int', pero se encontraron '" + tipoIzq + "' y '" + tipoDer + "'.",
-                ctx.SUMA().getSymbol()
+                "El operador '" + operador.getText() + "' solo se puede aplicar a operandos de tipo 'int', pero se encontraron '" + tipoIzq + "' y '" + tipoDer + "'.",
+                operador
         ));
         return TIPO_ERROR;
     }
 
     /**
-     * Visita una expresión de resta. (Lógica idéntica a la suma)
-     * ANTLR Rule: expresion: expresion RESTA expresion # ExpResta
+     * Visita una comparación.
+     * ANTLR Rule: expresion: expresion (MENOR | MAYOR | IGUAL_IGUAL) expresion # ExpComparacion
+     *
+     * Reglas Semánticas Verificadas: '<' y '>' solo comparan operandos 'int';
+     * '==' compara dos operandos del mismo tipo. El resultado es 'boolean'.
      */
     @Override
-    public String visitExpResta(LanguageParser.ExpRestaContext ctx) {
-        String tipoIzq = visit(ctx.expresion(0));
-        String tipoDer = visit(ctx.expresion(1));
-
+    public String visitExpComparacion(LanguageParser.ExpComparacionContext ctx) {
+        String tipoIzq = visit(Expresiones.izquierda(ctx));
+        String tipoDer = visit(Expresiones.derecha(ctx));
         if (tipoIzq.equals(TIPO_ERROR) || tipoDer.equals(TIPO_ERROR)) {
             return TIPO_ERROR;
         }
 
+        Token operador = Expresiones.operador(ctx);
+        if (operador.getType() == LanguageLexer.IGUAL_IGUAL) {
+            if (tipoIzq.equals(tipoDer)) {
+                return TIPO_BOOLEAN;
+            }
+            errores.add(new ErrorSemantico(
+                    "El operador '==' solo se puede aplicar a operandos del mismo tipo, pero se encontraron '" + tipoIzq + "' y '" + tipoDer + "'.",
+                    operador
+            ));
+            return TIPO_ERROR;
+        }
         if (tipoIzq.equals(TIPO_INT) && tipoDer.equals(TIPO_INT)) {
-            return TIPO_INT;
+            return TIPO_BOOLEAN;
         }
-
         errores.add(new ErrorSemantico(
-                "El operador '-' solo se puede aplicar a operandos de tipo 'int', pero se encontraron '" + tipoIzq + "' y '" + tipoDer + "'.",
-                ctx.RESTA().getSymbol()
+                "El operador '" + operador.getText() + "' solo se puede aplicar a operandos de tipo 'int', pero se encontraron '" + tipoIzq + "' y '" + tipoDer + "'.",
+                operador
         ));
         return TIPO_ERROR;
     }
@@ -182,6 +356,7 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
             errores.add(new ErrorSemantico("La variable '" + nombreVar + "' no ha sido declarada.", ctx.ID().getSymbol()));
             return TIPO_ERROR;
         }
+        resolucion.asociar(ctx, simbolo);
         return simbolo.getTipo(); // Devuelve el tipo guardado en la tabla de símbolos.
     }
 
@@ -205,10 +380,34 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
 
     // --- Métodos de visita que no requieren lógica semántica compleja ---
 
+    @Override
+    public String visitInicio(LanguageParser.InicioContext ctx) {
+        visitChildren(ctx);
+        juntarBloquesParalelos();
+        resolucion.setTamanoGlobal(tablaSimbolos.getTamanoAmbitoActual());
+        return null;
+    }
+
+    /**
+     * Analiza una sentencia del nivel superior contra el ámbito global que dejaron
+     * las anteriores, y actualiza el tamaño global de la Resolucion. Lo usa el
+     * ModoFlujo, que no tiene el programa completo.
+     *
+     * @return Cuántos errores nuevos encontró; son los últimos de getErrores().
+     */
+    public int analizarSentencia(LanguageParser.SentenciaContext ctx) {
+        int antes = errores.size();
+        visit(ctx);
+        juntarBloquesParalelos();
+        resolucion.setTamanoGlobal(tablaSimbolos.getTamanoAmbitoActual());
+        return errores.size() - antes;
+    }
+
     @Override
     public String visitBloque(LanguageParser.BloqueContext ctx) {
         tablaSimbolos.abrirAmbito();
         visitChildren(ctx);
+        resolucion.setTamanoBloque(ctx, tablaSimbolos.getTamanoAmbitoActual());
         tablaSimbolos.cerrarAmbito();
         return null; // Un bloque no tiene tipo.
     }
@@ -218,4 +417,19 @@ public class AnalizadorSemanticoVisitor extends LanguageBaseVisitor<String> {
         visitChildren(ctx);
         return null; // Una sentencia no tiene tipo.
     }
-}
\ No newline at end of file
+
+    /**
+     * Un bloque del nivel superior que se está analizando en el pool.
+     */
+    private static final class BloqueParalelo {
+        final int posicion; // Cuántos errores había en este analizador al lanzar la tarea.
+        final AnalizadorSemanticoVisitor analizador;
+        final ForkJoinTask<String> tarea;
+
+        BloqueParalelo(int posicion, AnalizadorSemanticoVisitor analizador, ForkJoinTask<String> tarea) {
+            this.posicion = posicion;
+            this.analizador = analizador;
+            this.tarea = tarea;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.example;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+import java.util.function.Function;
+
+/**
+ * Front end reutilizable: un LanguageLexer y un LanguageParser que se usan
+ * para todos los archivos en lugar de crear un par nuevo por archivo.
+ *
+ * En modo SLL el parseo se hace en dos etapas: primero con predicción SLL y
+ * BailErrorStrategy, que es mucho más rápido y alcanza para cualquier programa
+ * correcto, y solo si esa etapa falla se vuelve a parsear desde el principio
+ * con LL completo y el manejo de errores normal, que reporta los mismos
+ * errores que antes. En modo LL se usa directamente la segunda etapa.
+ *
+ * La caché DFA del parser es estática (compartida por todas las instancias),
+ * así que se mantiene caliente entre un archivo y el siguiente.
+ *
+ * El lexer es el LanguageLexer generado por ANTLR o, con Lexer.RAPIDO, el
+ * LexerRapido escrito a mano, que produce los mismos tokens y errores.
+ *
+ * Con parsearIR() no se usa el LanguageParser: el ParserRapido construye el
+ * ProgramaIR directamente desde los tokens, sin árbol.
+ *
+ * Si se le pasan Metricas, el lexer lee todos los tokens antes de empezar el
+ * parseo, para medir las dos fases por separado, y se cuentan los nodos del árbol
+ * (o del ProgramaIR).
+ *
+ * Cada instancia debe usarse desde un solo hilo.
+ */
+public class AnalizadorSintactico {
+
+    public enum Modo { SLL, LL }
+
+    public enum Lexer { ANTLR, RAPIDO }
+
+    public enum Parser { ANTLR, RAPIDO }
+
+    private final Modo modo;
+    private final Lexer tipoLexer;
+    private final LanguageLexer lexer = new LanguageLexer(null);
+    private final LanguageParser parser = new LanguageParser(null);
+
+    private long parseosSll = 0;
+    private long parseosLl = 0;
+
+    public AnalizadorSintactico(Modo modo) {
+        this(modo, Lexer.ANTLR);
+    }
+
+    public AnalizadorSintactico(Modo modo, Lexer tipoLexer) {
+        this.modo = modo;
+        this.tipoLexer = tipoLexer;
+    }
+
+    /**
+     * Parsea un programa completo.
+     *
+     * @param entrada El código fuente.
+     * @param errores Recibe los errores léxicos y sintácticos (solo los de la etapa LL).
+     * @return El árbol sintáctico.
+     */
+    public LanguageParser.InicioContext parsear(CharStream entrada, ANTLRErrorListener errores) {
+        return parsear(entrada, errores, null);
+    }
+
+    /**
+     * @param metricas Donde se registran los tiempos y contadores, o null para no medir.
+     * @see #parsear(CharStream, ANTLRErrorListener)
+     */
+    public LanguageParser.InicioContext parsear(CharStream entrada, ANTLRErrorListener errores, Metricas metricas) {
+        CommonTokenStream tokens = new CommonTokenStream(crearLexer(entrada, errores));
+        if (metricas == null) {
+            return parsear(tokens, errores, LanguageParser::inicio);
+        }
+
+        metricas.iniciar(Metricas.Fase.LEXICO);
+        tokens.fill();
+        metricas.terminar(Metricas.Fase.LEXICO);
+        metricas.setTokens(tokens.size() - 1); // Sin contar el EOF.
+
+        metricas.iniciar(Metricas.Fase.SINTACTICO);
+        LanguageParser.InicioContext tree = parsear(tokens, errores, LanguageParser::inicio);
+        metricas.terminar(Metricas.Fase.SINTACTICO);
+        metricas.setNodos(contarNodos(tree));
+        return tree;
+    }
+
+    /**
+     * Parsea una sola sentencia, que tiene que ocupar toda la entrada. Lo usa
+     * el ModoFlujo, que recibe el fuente de a una sentencia del nivel superior.
+     *
+     * @param linea   La línea donde empieza la sentencia en el fuente completo, para los mensajes.
+     * @param columna Su columna.
+     * @return La sentencia, con las posiciones de sus tokens relativas al fuente completo.
+     */
+    public LanguageParser.SentenciaContext parsearSentencia(CharStream entrada, ANTLRErrorListener errores,
+                                                            int linea, int columna) {
+        TokenSource fuente;
+        if (tipoLexer == Lexer.RAPIDO) {
+            fuente = new LexerRapido(entrada, errores, linea, columna);
+        } else {
+            fuente = crearLexer(entrada, errores);
+            lexer.setLine(linea);
+            lexer.setCharPositionInLine(columna);
+        }
+        CommonTokenStream tokens = new CommonTokenStream(fuente);
+        LanguageParser.SentenciaContext sentencia = parsear(tokens, errores, LanguageParser::sentencia);
+        Token sobrante = tokens.LT(1);
+        if (sobrante.getType() != Token.EOF) {
+            errores.syntaxError(parser, sobrante, sobrante.getLine(), sobrante.getCharPositionInLine(),
+                    "extraneous input '" + sobrante.getText() + "' expecting <EOF>", null);
+        }
+        return sentencia;
+    }
+
+    /**
+     * Parsea un programa con el ParserRapido y lo devuelve ya como ProgramaIR.
+     * Al terminar no queda ninguna referencia al fuente ni a los tokens.
+     *
+     * @param errores  Recibe los errores léxicos y el primer error de sintaxis.
+     * @param metricas Donde se registran los tiempos y contadores, o null para no medir.
+     * @return El programa, o null si tiene un error de sintaxis.
+     */
+    public ProgramaIR parsearIR(CharStream entrada, ANTLRErrorListener errores, Metricas metricas) {
+        TokenSource fuente = crearLexer(entrada, errores);
+        try {
+            if (metricas == null) {
+                return ParserRapido.parsear(fuente, errores);
+            }
+
+            metricas.iniciar(Metricas.Fase.LEXICO);
+            CommonTokenStream tokens = new CommonTokenStream(fuente);
+            tokens.fill();
+            metricas.terminar(Metricas.Fase.LEXICO);
+            metricas.setTokens(tokens.size() - 1); // Sin contar el EOF.
+
+            metricas.iniciar(Metricas.Fase.SINTACTICO);
+            ProgramaIR ir = ParserRapido.parsear(new ListTokenSource(tokens.getTokens()), errores);
+            metricas.terminar(Metricas.Fase.SINTACTICO);
+            if (ir != null) {
+                metricas.setNodos(ir.getCantidadNodos());
+            }
+            return ir;
+        } finally {
+            lexer.setInputStream(null);
+        }
+    }
+
+    private TokenSource crearLexer(CharStream entrada, ANTLRErrorListener errores) {
+        if (tipoLexer == Lexer.RAPIDO) {
+            return new LexerRapido(entrada, errores);
+        }
+        lexer.setInputStream(entrada);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errores);
+        return lexer;
+    }
+
+    /**
+     * @param regla La regla inicial (inicio, o sentencia en el ModoFlujo).
+     */
+    private <T extends ParserRuleContext> T parsear(CommonTokenStream tokens, ANTLRErrorListener errores,
+                                                    Function<LanguageParser, T> regla) {
+        if (modo == Modo.SLL) {
+            parser.setTokenStream(tokens);
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.removeErrorListeners();
+            try {
+                T tree = regla.apply(parser);
+                parseosSll++;
+                return tree;
+            } catch (ParseCancellationException e) {
+                tokens.seek(0); // Reintentamos con LL completo sobre los mismos tokens.
+            }
+        }
+
+        parser.setTokenStream(tokens);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.removeErrorListeners();
+        parser.addErrorListener(errores);
+        T tree = regla.apply(parser);
+        parseosLl++;
+        return tree;
+    }
+
+    /**
+     * Cuenta los nodos (reglas y tokens) con una pila explícita, porque el árbol
+     * puede ser muy profundo en las cadenas largas de sumas y restas.
+     */
+    private static long contarNodos(ParseTree raiz) {
+        long cantidad = 0;
+        ArrayDeque<ParseTree> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            ParseTree nodo = pendientes.pop();
+            cantidad++;
+            for (int i = 0; i < nodo.getChildCount(); i++) {
+                pendientes.push(nodo.getChild(i));
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Suelta el último fuente, sus tokens y su árbol, que el lexer y el parser
+     * (y el simulador de predicción del parser) siguen referenciando hasta el
+     * próximo parseo. Lo usa quien ya bajó el árbol a un ProgramaIR, para que
+     * no sigan ocupando memoria mientras el programa se analiza y se ejecuta.
+     *
+     * El simulador nuevo usa la misma caché DFA compartida, así que no se pierde nada.
+     */
+    public void liberar() {
+        lexer.setInputStream(null);
+        parser.setTokenStream(null);
+        parser.setInterpreter(new ParserATNSimulator(parser, LanguageParser._ATN, LanguageParser._decisionToDFA,
+                LanguageParser._sharedContextCache));
+    }
+
+    public LanguageParser getParser() {
+        return parser;
+    }
+
+    /**
+     * @return Cuántos programas se resolvieron en la etapa SLL.
+     */
+    public long getParseosSll() {
+        return parseosSll;
+    }
+
+    /**
+     * @return Cuántos programas necesitaron la etapa LL completa.
+     */
+    public long getParseosLl() {
+        return parseosLl;
+    }
+}
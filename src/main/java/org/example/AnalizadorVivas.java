@@ -0,0 +1,259 @@
+package org.example;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Análisis de variables vivas que se ejecuta después del Optimizador.
+ *
+ * Recorre las sentencias de atrás hacia adelante con el conjunto de símbolos
+ * cuyo valor todavía se puede leer. Una declaración o asignación a una
+ * variable que no está viva en ese punto es un almacenamiento muerto: si su
+ * expresión no tiene efectos, se marca como eliminada en la Resolucion y los
+ * motores la saltean. Como cada declaración tiene su propio Simbolo, el
+ * sombreado entre bloques ya viene resuelto por la TablaSimbolos.
+ *
+ * - El bloque de un 'if' puede no ejecutarse: antes del 'if' está vivo lo que
+ *   lo está después más lo que lee el bloque y la condición.
+ * - El de un 'while' se repite: se itera hasta un punto fijo y solo en la
+ *   última pasada, con el conjunto ya estable, se marcan las eliminaciones.
+ * - Las expresiones que el Optimizador ya calculó no leen nada, y los bloques
+ *   que descartó (condición falsa) no se recorren.
+ *
+ * La única expresión con efecto es un literal que no cabe en un int, que
+ * falla al ejecutar; las sentencias con uno así no se eliminan.
+ *
+ * Después compacta los slots: cada ámbito conserva solo las variables que
+ * todavía se escriben o se leen, renumeradas en orden, así que los frames
+ * son más chicos. Las variables que nunca se leen en el código fuente se
+ * informan como AdvertenciaSemantica.
+ */
+public class AnalizadorVivas {
+
+    private final Resolucion resolucion;
+    private final List<String> informe = new ArrayList<>();
+    private final List<AdvertenciaSemantica> advertencias = new ArrayList<>();
+
+    // Variables que se leen en alguna expresión que llega a evaluarse.
+    private final Set<Simbolo> leidas = new HashSet<>();
+
+    public AnalizadorVivas(Resolucion resolucion) {
+        this.resolucion = resolucion;
+    }
+
+    /**
+     * @param tree Árbol sin errores semánticos, resuelto y ya pasado por el Optimizador.
+     */
+    public void analizar(LanguageParser.InicioContext tree) {
+        sentencias(tree.programa(), new HashSet<>(), true);
+        compactar(tree);
+    }
+
+    /**
+     * @return Una línea por cada sentencia eliminada y, si cambió, el total de slots.
+     */
+    public List<String> getInforme() {
+        return informe;
+    }
+
+    public List<AdvertenciaSemantica> getAdvertencias() {
+        return advertencias;
+    }
+
+    // --- Vida ---
+
+    /**
+     * @param vivas  Al entrar, las vivas después de las sentencias; al salir, las vivas antes.
+     * @param marcar false mientras se busca el punto fijo de un 'while'.
+     */
+    private void sentencias(LanguageParser.ProgramaContext programa, Set<Simbolo> vivas, boolean marcar) {
+        List<LanguageParser.SentenciaContext> lista = programa.sentencia();
+        for (int i = lista.size() - 1; i >= 0; i--) {
+            sentencia(lista.get(i), vivas, marcar);
+        }
+    }
+
+    private void sentencia(LanguageParser.SentenciaContext ctx, Set<Simbolo> vivas, boolean marcar) {
+        if (ctx.declaracion() != null) {
+            almacenar(ctx.declaracion(), ctx.declaracion().expresion(), vivas, marcar);
+        } else if (ctx.asignacion() != null) {
+            almacenar(ctx.asignacion(), ctx.asignacion().expresion(), vivas, marcar);
+        } else if (ctx.print() != null) {
+            leer(ctx.print().expresion(), vivas);
+        } else if (ctx.if_() != null) {
+            LanguageParser.IfContext si = ctx.if_();
+            Integer condicion = resolucion.getConstante(si.expresion());
+            if (condicion != null && condicion == 0) {
+                return;
+            }
+            Set<Simbolo> bloque = new HashSet<>(vivas);
+            sentencias(si.bloque().programa(), bloque, marcar);
+            if (condicion != null) {
+                vivas.clear(); // El bloque se ejecuta siempre.
+            }
+            vivas.addAll(bloque);
+            leer(si.expresion(), vivas);
+        } else {
+            LanguageParser.WhileContext mientras = ctx.while_();
+            Integer condicion = resolucion.getConstante(mientras.expresion());
+            if (condicion != null && condicion == 0) {
+                return;
+            }
+            // Vivas al evaluar la condición: las de después del bucle, las que lee la
+            // condición y las que necesita el cuerpo para la vuelta siguiente.
+            leer(mientras.expresion(), vivas);
+            LanguageParser.ProgramaContext cuerpo = mientras.bloque().programa();
+            Set<Simbolo> vuelta;
+            do {
+                vuelta = new HashSet<>(vivas);
+                sentencias(cuerpo, vuelta, false);
+            } while (vivas.addAll(vuelta));
+            if (marcar) {
+                sentencias(cuerpo, new HashSet<>(vivas), true);
+            }
+        }
+    }
+
+    private void almacenar(ParserRuleContext ctx, LanguageParser.ExpresionContext valor,
+                           Set<Simbolo> vivas, boolean marcar) {
+        Simbolo simbolo = resolucion.getSimbolo(ctx);
+        if (!vivas.contains(simbolo) && sinEfectos(valor)) {
+            if (marcar) {
+                resolucion.eliminar(ctx);
+            }
+            return;
+        }
+        vivas.remove(simbolo);
+        leer(valor, vivas);
+    }
+
+    /**
+     * Agrega a 'vivas' las variables que lee una expresión, sin recursión.
+     */
+    private void leer(LanguageParser.ExpresionContext expresion, Set<Simbolo> vivas) {
+        ArrayDeque<LanguageParser.ExpresionContext> pendientes = new ArrayDeque<>();
+        pendientes.push(expresion);
+        while (!pendientes.isEmpty()) {
+            LanguageParser.ExpresionContext nodo = pendientes.pop();
+            if (resolucion.getConstante(nodo) != null) {
+                continue;
+            }
+            if (nodo instanceof LanguageParser.ExpIdContext) {
+                Simbolo simbolo = resolucion.getSimbolo(nodo);
+                vivas.add(simbolo);
+                leidas.add(simbolo);
+            } else if (Expresiones.esBinaria(nodo) || Expresiones.esComparacion(nodo)) {
+                pendientes.push(Expresiones.izquierda(nodo));
+                pendientes.push(Expresiones.derecha(nodo));
+            }
+        }
+    }
+
+    /**
+     * @return false si la expresión tiene un literal que no cabe en un int y que se llega a evaluar.
+     */
+    private boolean sinEfectos(LanguageParser.ExpresionContext expresion) {
+        ArrayDeque<LanguageParser.ExpresionContext> pendientes = new ArrayDeque<>();
+        pendientes.push(expresion);
+        while (!pendientes.isEmpty()) {
+            LanguageParser.ExpresionContext nodo = pendientes.pop();
+            if (resolucion.getConstante(nodo) != null) {
+                continue;
+            }
+            if (nodo instanceof LanguageParser.ExpNumContext) {
+                try {
+                    Integer.parseInt(((LanguageParser.ExpNumContext) nodo).NUM().getText());
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            } else if (Expresiones.esBinaria(nodo) || Expresiones.esComparacion(nodo)) {
+                pendientes.push(Expresiones.izquierda(nodo));
+                pendientes.push(Expresiones.derecha(nodo));
+            }
+        }
+        return true;
+    }
+
+    // --- Slots y advertencias ---
+
+    /**
+     * Recorre el árbol completo en orden, informa las sentencias eliminadas,
+     * renumera los slots de cada ámbito con las variables que siguen haciendo
+     * falta y anota las que nunca se leen.
+     */
+    private void compactar(LanguageParser.InicioContext tree) {
+        // Declaraciones de cada ámbito (el 'inicio' o un 'bloque'), en orden de slot.
+        Map<ParserRuleContext, List<Simbolo>> ambitos = new LinkedHashMap<>();
+        ambitos.put(tree, new ArrayList<>());
+        Set<Simbolo> escritas = new HashSet<>();
+        Set<Simbolo> leidasEnFuente = new HashSet<>();
+
+        ArrayDeque<ParseTree> pendientes = new ArrayDeque<>();
+        pendientes.push(tree);
+        while (!pendientes.isEmpty()) {
+            ParseTree nodo = pendientes.pop();
+            if (nodo instanceof LanguageParser.BloqueContext) {
+                ambitos.put((ParserRuleContext) nodo, new ArrayList<>());
+            } else if (nodo instanceof LanguageParser.DeclaracionContext) {
+                ParserRuleContext ambito = ((ParserRuleContext) nodo).getParent().getParent().getParent();
+                ambitos.get(ambito).add(resolucion.getSimbolo(nodo));
+            } else if (nodo instanceof LanguageParser.ExpIdContext) {
+                leidasEnFuente.add(resolucion.getSimbolo(nodo));
+            }
+            if (nodo instanceof LanguageParser.DeclaracionContext || nodo instanceof LanguageParser.AsignacionContext) {
+                Simbolo simbolo = resolucion.getSimbolo(nodo);
+                if (!resolucion.isEliminada(nodo)) {
+                    escritas.add(simbolo);
+                } else {
+                    String tipo = nodo instanceof LanguageParser.DeclaracionContext ? "declaración" : "asignación";
+                    informe.add("línea " + ((ParserRuleContext) nodo).getStart().getLine() + ": eliminada " + tipo
+                            + " de '" + simbolo.getNombre() + "', su valor nunca se lee");
+                }
+            }
+            for (int i = nodo.getChildCount() - 1; i >= 0; i--) {
+                pendientes.push(nodo.getChild(i));
+            }
+        }
+
+        Map<Simbolo, Simbolo> nuevos = new HashMap<>();
+        int antes = 0;
+        int despues = 0;
+        for (Map.Entry<ParserRuleContext, List<Simbolo>> ambito : ambitos.entrySet()) {
+            int indice = 0;
+            for (Simbolo simbolo : ambito.getValue()) {
+                if (!leidasEnFuente.contains(simbolo)) {
+                    advertencias.add(new AdvertenciaSemantica(
+                            "La variable '" + simbolo.getNombre() + "' se declara pero nunca se lee.",
+                            simbolo.getTokenDefinicion()));
+                }
+                if (escritas.contains(simbolo) || leidas.contains(simbolo)) {
+                    nuevos.put(simbolo, new Simbolo(simbolo.getNombre(), simbolo.getTipo(),
+                            simbolo.getTokenDefinicion(), simbolo.getProfundidad(), indice++));
+                }
+            }
+            antes += ambito.getValue().size();
+            despues += indice;
+            if (ambito.getKey() instanceof LanguageParser.BloqueContext) {
+                resolucion.setTamanoBloque(ambito.getKey(), indice);
+            } else {
+                resolucion.setTamanoGlobal(indice);
+            }
+        }
+        resolucion.reasignar(nuevos);
+        if (despues < antes) {
+            informe.add("slots de variables reducidos de " + antes + " a " + despues);
+        }
+        // Las advertencias quedan en el orden del código, como los errores.
+        advertencias.sort((a, b) -> a.getLinea() != b.getLinea() ? Integer.compare(a.getLinea(), b.getLinea())
+                : Integer.compare(a.getColumna(), b.getColumna()));
+    }
+}
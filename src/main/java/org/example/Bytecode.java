@@ -0,0 +1,118 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Programa ya comprobado y traducido a bytecode compacto.
+ *
+ * Cada instrucción ocupa un int con el código de operación, seguido de sus
+ * operandos (si los tiene) en los ints siguientes. Todas las variables del programa
+ * viven en un único frame plano: el CompiladorBytecode asigna a cada ámbito un
+ * rango de slots a continuación del de su ámbito padre, de modo que los bloques
+ * hermanos reutilizan los mismos slots.
+ *
+ * Las instancias son inmutables y se pueden ejecutar tantas veces como se quiera.
+ * Dos Bytecode con el mismo código son iguales, lo que permite reconocer que
+ * se está ejecutando otra vez el mismo programa.
+ */
+public final class Bytecode {
+
+    // --- Códigos de operación ---
+    public static final int PUSH = 0;           // PUSH c   : apila la constante c
+    public static final int LOAD = 1;           // LOAD s   : apila frame[s]
+    public static final int STORE = 2;          // STORE s  : frame[s] = desapila
+    public static final int ADD = 3;            // ADD      : apila (a + b)
+    public static final int SUB = 4;            // SUB      : apila (a - b)
+    public static final int JUMP_IF_FALSE = 5;  // JIF pc   : si desapila == 0, salta a pc
+    public static final int PRINT = 6;          // PRINT    : imprime desapila
+    public static final int HALT = 7;           // HALT     : fin del programa
+    public static final int JUMP = 8;           // JUMP pc p: salta a pc (vuelta de un 'while' de peso p, ver Presupuesto)
+    public static final int LT = 9;             // LT       : apila 1 si a < b, si no 0
+    public static final int GT = 10;            // GT       : apila 1 si a > b, si no 0
+    public static final int EQ = 11;            // EQ       : apila 1 si a == b, si no 0
+
+    private static final String[] NOMBRES = {
+            "PUSH", "LOAD", "STORE", "ADD", "SUB", "JIF", "PRINT", "HALT", "JUMP", "LT", "GT", "EQ"
+    };
+
+    private final int[] codigo;
+    private final int tamanoFrame;
+    private final int tamanoPila;
+    private int hash; // Calculado la primera vez que se pide.
+
+    public Bytecode(int[] codigo, int tamanoFrame, int tamanoPila) {
+        this.codigo = codigo;
+        this.tamanoFrame = tamanoFrame;
+        this.tamanoPila = tamanoPila;
+    }
+
+    /**
+     * @return El código del programa. No debe modificarse.
+     */
+    public int[] getCodigo() {
+        return codigo;
+    }
+
+    public int getTamanoFrame() {
+        return tamanoFrame;
+    }
+
+    public int getTamanoPila() {
+        return tamanoPila;
+    }
+
+    /**
+     * @return Cuántos ints ocupa la instrucción con el código de operación dado.
+     */
+    public static int longitud(int opcode) {
+        switch (opcode) {
+            case PUSH:
+            case LOAD:
+            case STORE:
+            case JUMP_IF_FALSE:
+                return 2;
+            case JUMP:
+                return 3;
+            default:
+                return 1;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Bytecode)) {
+            return false;
+        }
+        Bytecode otro = (Bytecode) o;
+        return tamanoFrame == otro.tamanoFrame && Arrays.equals(codigo, otro.codigo);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * Arrays.hashCode(codigo) + tamanoFrame;
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Devuelve un listado legible del bytecode, una instrucción por línea.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < codigo.length; pc += longitud(codigo[pc])) {
+            sb.append(pc).append(": ").append(NOMBRES[codigo[pc]]);
+            for (int i = 1; i < longitud(codigo[pc]); i++) {
+                sb.append(' ').append(codigo[pc + i]);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
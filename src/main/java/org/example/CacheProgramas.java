@@ -0,0 +1,530 @@
+package org.example;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Caché en disco de programas ya comprobados y traducidos a Bytecode.
+ *
+ * Cada entrada se guarda en un archivo cuyo nombre es el SHA-256 del código
+ * fuente, de la versión del compilador y de las opciones que cambian el
+ * resultado (ver clave()). Un programa correcto se guarda como Bytecode junto
+ * con el informe y las advertencias de --optimizar; uno con errores
+ * semánticos, como su lista de ErrorSemantico. Cuando hay un
+ * acierto no hace falta lexer, parser ni análisis semántico: el archivo se
+ * mapea en memoria y se ejecuta directamente.
+ *
+ * La versión del compilador es el hash de todas las clases del paquete tal
+ * como están en el classpath (incluidas las anidadas y las anónimas), así que
+ * cualquier cambio en el front end invalida la caché sola.
+ *
+ * El tamaño total está limitado: al superar el máximo se borran las entradas
+ * usadas hace más tiempo (LRU, según la fecha de modificación de cada archivo,
+ * que se actualiza en cada acierto). Las escrituras son atómicas, así que
+ * varios procesos pueden compartir el mismo directorio. Como el índice en
+ * memoria no ve lo que escriben los demás, antes de borrar nada se bloquea el
+ * directorio (un FileLock sobre ARCHIVO_BLOQUEO) y se vuelve a leer entero; eso
+ * se hace cuando el índice propio supera el máximo y, además, cada
+ * GUARDADOS_POR_REVISION escrituras, para que los demás procesos no puedan
+ * llenarlo sin que nadie lo note.
+ */
+public class CacheProgramas {
+
+    public static final long TAMANO_MAXIMO_POR_DEFECTO = 256L << 20;
+
+    private static final int MAGICO = 0x4C4E4743; // "LNGC"
+    private static final byte TIPO_PROGRAMA = 0;
+    private static final byte TIPO_ERRORES = 1;
+    private static final String EXTENSION = ".bin";
+    private static final String ARCHIVO_BLOQUEO = ".bloqueo";
+    private static final int GUARDADOS_POR_REVISION = 64;
+
+    // Un FileLock es de todo el proceso: dentro de la JVM las revisiones se turnan con este objeto.
+    private static final Object REVISION = new Object();
+    private static volatile String versionCompilador;
+
+    private final Path directorio;
+    private final long tamanoMaximo;
+    // Tamaño de cada entrada, de la usada hace más tiempo a la más reciente.
+    private final LinkedHashMap<String, Long> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long tamanoTotal = 0;
+    private int guardadosDesdeRevision = 0;
+
+    /**
+     * Una entrada leída de la caché: o un programa o sus errores semánticos.
+     */
+    public static final class Entrada {
+        private final Bytecode programa;
+        private final List<String> optimizaciones;
+        private final List<AdvertenciaSemantica> advertencias;
+        private final List<ErrorSemantico> errores;
+
+        Entrada(Bytecode programa, List<String> optimizaciones, List<AdvertenciaSemantica> advertencias,
+                List<ErrorSemantico> errores) {
+            this.programa = programa;
+            this.optimizaciones = optimizaciones;
+            this.advertencias = advertencias;
+            this.errores = errores;
+        }
+
+        /**
+         * @return El programa, o null si la entrada guarda errores semánticos.
+         */
+        public Bytecode getPrograma() {
+            return programa;
+        }
+
+        /**
+         * @return El informe del Optimizador y del AnalizadorVivas con que se compiló el programa
+         *         (vacío si la entrada guarda errores semánticos).
+         */
+        public List<String> getOptimizaciones() {
+            return optimizaciones;
+        }
+
+        /**
+         * @return Las advertencias del AnalizadorVivas (vacío si la entrada guarda errores semánticos).
+         */
+        public List<AdvertenciaSemantica> getAdvertencias() {
+            return advertencias;
+        }
+
+        /**
+         * @return Los errores semánticos, o null si la entrada guarda un programa.
+         */
+        public List<ErrorSemantico> getErrores() {
+            return errores;
+        }
+    }
+
+    public CacheProgramas(Path directorio, long tamanoMaximo) throws IOException {
+        this.directorio = directorio;
+        this.tamanoMaximo = tamanoMaximo;
+        Files.createDirectories(directorio);
+        synchronized (this) {
+            releer();
+        }
+    }
+
+    /**
+     * Calcula la clave de un programa.
+     *
+     * @param fuente El código fuente completo.
+     * @param optimizado Si el programa se compila con el Optimizador.
+     */
+    public static String clave(CharStream fuente, boolean optimizado) {
+        MessageDigest sha = sha256();
+        sha.update(versionCompilador().getBytes(StandardCharsets.UTF_8));
+        sha.update((byte) (optimizado ? 1 : 0));
+        if (fuente instanceof FuenteMapeada) {
+            sha.update(((FuenteMapeada) fuente).getDatos());
+        } else {
+            sha.update(fuente.getText(Interval.of(0, fuente.size() - 1)).getBytes(StandardCharsets.UTF_8));
+        }
+        return hexadecimal(sha.digest());
+    }
+
+    /**
+     * Busca una entrada y, si existe, la marca como usada recientemente.
+     *
+     * @return La entrada, o null si no está en la caché.
+     */
+    public Entrada buscar(String clave) {
+        Path archivo = archivo(clave);
+        ByteBuffer datos;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            Files.setLastModifiedTime(archivo, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            return null; // Una entrada ilegible cuenta como un fallo de caché.
+        }
+        synchronized (this) {
+            entradas.get(clave);
+        }
+        try {
+            return leer(datos);
+        } catch (RuntimeException e) {
+            return null; // Entrada corrupta o de otro formato.
+        }
+    }
+
+    public void guardarPrograma(String clave, Bytecode programa) {
+        guardarPrograma(clave, programa, Collections.<String>emptyList(),
+                Collections.<AdvertenciaSemantica>emptyList());
+    }
+
+    /**
+     * @param optimizaciones El informe de --optimizar, que se devuelve con el programa en cada acierto.
+     * @param advertencias   Las advertencias de --optimizar, que también se devuelven.
+     */
+    public void guardarPrograma(String clave, Bytecode programa, List<String> optimizaciones,
+                                List<AdvertenciaSemantica> advertencias) {
+        guardar(clave, escribir(programa, optimizaciones, advertencias, null));
+    }
+
+    public void guardarErrores(String clave, List<ErrorSemantico> errores) {
+        guardar(clave, escribir(null, null, null, errores));
+    }
+
+    /**
+     * @return Nombre (clave), tamaño en bytes y fecha de último uso de cada entrada, de la más antigua a la más reciente.
+     */
+    public synchronized List<String> listar() {
+        List<String> lineas = new ArrayList<>();
+        for (Map.Entry<String, Long> entrada : entradas.entrySet()) {
+            lineas.add(entrada.getKey() + "  " + entrada.getValue() + " bytes  " + fechaUso(archivo(entrada.getKey())));
+        }
+        return lineas;
+    }
+
+    public synchronized int getCantidad() {
+        return entradas.size();
+    }
+
+    public synchronized long getTamanoTotal() {
+        return tamanoTotal;
+    }
+
+    /**
+     * Borra todas las entradas.
+     *
+     * @return Cuántas entradas se borraron.
+     */
+    public synchronized int purgar() throws IOException {
+        synchronized (REVISION) {
+            FileLock bloqueo = bloquear();
+            try {
+                releer();
+                int borradas = 0;
+                for (Iterator<String> it = entradas.keySet().iterator(); it.hasNext(); ) {
+                    Files.deleteIfExists(archivo(it.next()));
+                    it.remove();
+                    borradas++;
+                }
+                tamanoTotal = 0;
+                return borradas;
+            } finally {
+                bloqueo.channel().close(); // Cerrar el canal libera el bloqueo.
+            }
+        }
+    }
+
+    // --- Formato de las entradas ---
+
+    private static byte[] escribir(Bytecode programa, List<String> optimizaciones,
+                                   List<AdvertenciaSemantica> advertencias, List<ErrorSemantico> errores) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream salida = new DataOutputStream(bytes);
+            salida.writeInt(MAGICO);
+            if (programa != null) {
+                salida.writeByte(TIPO_PROGRAMA);
+                salida.writeInt(programa.getTamanoFrame());
+                salida.writeInt(programa.getTamanoPila());
+                int[] codigo = programa.getCodigo();
+                salida.writeInt(codigo.length);
+                for (int instruccion : codigo) {
+                    salida.writeInt(instruccion);
+                }
+                salida.writeInt(optimizaciones.size());
+                for (String cambio : optimizaciones) {
+                    salida.writeUTF(cambio);
+                }
+                salida.writeInt(advertencias.size());
+                for (AdvertenciaSemantica advertencia : advertencias) {
+                    salida.writeInt(advertencia.getLinea());
+                    salida.writeInt(advertencia.getColumna());
+                    salida.writeUTF(advertencia.getMensaje());
+                }
+            } else {
+                salida.writeByte(TIPO_ERRORES);
+                salida.writeInt(errores.size());
+                for (ErrorSemantico error : errores) {
+                    salida.writeInt(error.getLinea());
+                    salida.writeInt(error.getColumna());
+                    salida.writeUTF(error.getMensaje());
+                }
+            }
+            salida.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // No ocurre con un ByteArrayOutputStream.
+        }
+    }
+
+    private static Entrada leer(ByteBuffer datos) {
+        if (datos.getInt() != MAGICO) {
+            throw new IllegalStateException("Entrada de caché inválida.");
+        }
+        if (datos.get() == TIPO_PROGRAMA) {
+            int tamanoFrame = datos.getInt();
+            int tamanoPila = datos.getInt();
+            int[] codigo = new int[datos.getInt()];
+            datos.asIntBuffer().get(codigo);
+            datos.position(datos.position() + codigo.length * Integer.BYTES);
+            int cambios = datos.getInt();
+            List<String> optimizaciones = new ArrayList<>(cambios);
+            for (int i = 0; i < cambios; i++) {
+                optimizaciones.add(leerTexto(datos));
+            }
+            int cantidad = datos.getInt();
+            List<AdvertenciaSemantica> advertencias = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                int linea = datos.getInt();
+                int columna = datos.getInt();
+                advertencias.add(new AdvertenciaSemantica(leerTexto(datos), linea, columna));
+            }
+            return new Entrada(new Bytecode(codigo, tamanoFrame, tamanoPila), optimizaciones, advertencias, null);
+        }
+        int cantidad = datos.getInt();
+        List<ErrorSemantico> errores = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            int linea = datos.getInt();
+            int columna = datos.getInt();
+            errores.add(new ErrorSemantico(leerTexto(datos), linea, columna));
+        }
+        return new Entrada(null, Collections.<String>emptyList(), Collections.<AdvertenciaSemantica>emptyList(),
+                errores);
+    }
+
+    /**
+     * Lee un texto escrito con writeUTF.
+     */
+    private static String leerTexto(ByteBuffer datos) {
+        byte[] texto = new byte[datos.getShort() & 0xFFFF];
+        datos.get(texto);
+        // writeUTF usa UTF-8 modificado, que coincide con UTF-8 salvo para '\0' y caracteres fuera del BMP.
+        return new String(texto, StandardCharsets.UTF_8);
+    }
+
+    // --- Almacenamiento ---
+
+    private void guardar(String clave, byte[] contenido) {
+        Path archivo = archivo(clave);
+        try {
+            Path temporal = Files.createTempFile(directorio, clave, ".tmp");
+            Files.write(temporal, contenido);
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            return; // La caché es una optimización: si no se puede escribir, seguimos sin ella.
+        }
+        synchronized (this) {
+            Long anterior = entradas.put(clave, (long) contenido.length);
+            tamanoTotal += contenido.length - (anterior != null ? anterior : 0);
+            if (tamanoTotal > tamanoMaximo || ++guardadosDesdeRevision >= GUARDADOS_POR_REVISION) {
+                revisar();
+            }
+        }
+    }
+
+    /**
+     * Con el directorio bloqueado, vuelve a leer el índice y borra las entradas
+     * usadas hace más tiempo hasta volver a estar bajo el tamaño máximo.
+     */
+    private void revisar() {
+        guardadosDesdeRevision = 0;
+        synchronized (REVISION) {
+            try {
+                FileLock bloqueo = bloquear();
+                try {
+                    releer();
+                    desalojar();
+                } finally {
+                    bloqueo.channel().close();
+                }
+            } catch (IOException e) {
+                // Sin bloqueo no se borra nada: es mejor pasarse del máximo que borrar a ciegas.
+            }
+        }
+    }
+
+    /**
+     * Espera hasta tener el bloqueo exclusivo del directorio frente a los demás procesos.
+     */
+    private FileLock bloquear() throws IOException {
+        FileChannel canal = FileChannel.open(directorio.resolve(ARCHIVO_BLOQUEO),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            return canal.lock();
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Rehace el índice con lo que hay en el directorio, ordenado por fecha de último uso.
+     */
+    private void releer() throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        try (DirectoryStream<Path> listado = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            for (Path archivo : listado) {
+                archivos.add(archivo);
+            }
+        }
+        archivos.sort(Comparator.comparing(CacheProgramas::fechaUso));
+        entradas.clear();
+        tamanoTotal = 0;
+        for (Path archivo : archivos) {
+            long tamano;
+            try {
+                tamano = Files.size(archivo);
+            } catch (NoSuchFileException e) {
+                continue; // Otro proceso la borró mientras tanto.
+            }
+            String nombre = archivo.getFileName().toString();
+            entradas.put(nombre.substring(0, nombre.length() - EXTENSION.length()), tamano);
+            tamanoTotal += tamano;
+        }
+    }
+
+    /**
+     * Borra las entradas usadas hace más tiempo hasta volver a estar bajo el tamaño máximo.
+     */
+    private void desalojar() {
+        Iterator<Map.Entry<String, Long>> it = entradas.entrySet().iterator();
+        while (tamanoTotal > tamanoMaximo && it.hasNext()) {
+            Map.Entry<String, Long> masAntigua = it.next();
+            try {
+                Files.deleteIfExists(archivo(masAntigua.getKey()));
+            } catch (IOException e) {
+                // Si no se puede borrar, igual deja de contar para el límite.
+            }
+            tamanoTotal -= masAntigua.getValue();
+            it.remove();
+        }
+    }
+
+    private Path archivo(String clave) {
+        return directorio.resolve(clave + EXTENSION);
+    }
+
+    private static FileTime fechaUso(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * @return Un hash de los nombres y el contenido de todos los archivos .class
+     *         del paquete, calculado una sola vez.
+     */
+    static String versionCompilador() {
+        String version = versionCompilador;
+        if (version == null) {
+            MessageDigest sha = sha256();
+            try {
+                for (Map.Entry<String, byte[]> clase : clasesDelPaquete().entrySet()) {
+                    sha.update(clase.getKey().getBytes(StandardCharsets.UTF_8));
+                    sha.update(clase.getValue());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            version = hexadecimal(sha.digest());
+            versionCompilador = version;
+        }
+        return version;
+    }
+
+    /**
+     * Lee los .class del paquete de donde se cargó esta clase, sea un directorio
+     * (target/classes) o un jar.
+     *
+     * @return El contenido de cada clase, ordenado por nombre.
+     */
+    private static TreeMap<String, byte[]> clasesDelPaquete() throws IOException {
+        String paquete = CacheProgramas.class.getPackageName().replace('.', '/') + "/";
+        TreeMap<String, byte[]> clases = new TreeMap<>();
+        CodeSource origen = CacheProgramas.class.getProtectionDomain().getCodeSource();
+        URL ubicacion = origen != null ? origen.getLocation() : null;
+        if (ubicacion == null) {
+            throw new IOException("No se sabe de dónde se cargó " + CacheProgramas.class.getName());
+        }
+        Path raiz;
+        try {
+            raiz = Paths.get(ubicacion.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        if (Files.isDirectory(raiz)) {
+            try (Stream<Path> archivos = Files.list(raiz.resolve(paquete))) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    String nombre = archivo.getFileName().toString();
+                    if (nombre.endsWith(".class")) {
+                        clases.put(nombre, Files.readAllBytes(archivo));
+                    }
+                }
+            }
+            return clases;
+        }
+        try (ZipFile jar = new ZipFile(raiz.toFile())) {
+            for (Enumeration<? extends ZipEntry> it = jar.entries(); it.hasMoreElements(); ) {
+                ZipEntry entrada = it.nextElement();
+                String nombre = entrada.getName();
+                if (nombre.startsWith(paquete) && nombre.endsWith(".class")
+                        && nombre.indexOf('/', paquete.length()) < 0) {
+                    try (InputStream bytes = jar.getInputStream(entrada)) {
+                        clases.put(nombre.substring(paquete.length()), bytes.readAllBytes());
+                    }
+                }
+            }
+        }
+        return clases;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Toda JVM debe incluir SHA-256.
+        }
+    }
+
+    private static String hexadecimal(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
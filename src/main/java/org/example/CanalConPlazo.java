@@ -0,0 +1,124 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams sobre una conexión del Demonio con un plazo para leer y escribir.
+ *
+ * Un SocketChannel bloqueante no tiene timeout de lectura, y el adaptador
+ * socket() que lo tendría no existe para los sockets Unix. Por eso el canal
+ * se pone en modo no bloqueante y cada operación espera en un Selector hasta
+ * que el canal esté listo o venza el plazo. El plazo es un instante, no una
+ * espera por operación: un cliente que manda un byte cada tanto igual tiene
+ * que terminar el pedido antes de que venza.
+ */
+final class CanalConPlazo implements Closeable {
+
+    private final SocketChannel canal;
+    private final Selector selector;
+    private final SelectionKey clave;
+    private long inicio = System.nanoTime();
+    private long plazo = Long.MAX_VALUE;
+
+    /**
+     * Si falla, cierra el canal.
+     */
+    CanalConPlazo(SocketChannel canal) throws IOException {
+        this.canal = canal;
+        Selector abierto = null;
+        try {
+            abierto = Selector.open();
+            canal.configureBlocking(false);
+            this.clave = canal.register(abierto, 0);
+        } catch (IOException | RuntimeException e) {
+            if (abierto != null) {
+                abierto.close();
+            }
+            canal.close();
+            throw e;
+        }
+        this.selector = abierto;
+    }
+
+    /**
+     * Las lecturas y escrituras que no terminen en 'nanos' desde ahora lanzan SocketTimeoutException.
+     */
+    void plazo(long nanos) {
+        inicio = System.nanoTime();
+        plazo = nanos;
+    }
+
+    InputStream entrada() {
+        return new InputStream() {
+            private final byte[] uno = new byte[1];
+
+            @Override
+            public int read() throws IOException {
+                return read(uno, 0, 1) < 0 ? -1 : uno[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] destino, int desde, int cantidad) throws IOException {
+                if (cantidad == 0) {
+                    return 0;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(destino, desde, cantidad);
+                int leidos;
+                while ((leidos = canal.read(buffer)) == 0) {
+                    esperar(SelectionKey.OP_READ);
+                }
+                return leidos;
+            }
+        };
+    }
+
+    OutputStream salida() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] origen, int desde, int cantidad) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(origen, desde, cantidad);
+                while (buffer.hasRemaining()) {
+                    if (canal.write(buffer) == 0) {
+                        esperar(SelectionKey.OP_WRITE);
+                    }
+                }
+            }
+        };
+    }
+
+    private void esperar(int operacion) throws IOException {
+        long resto = plazo - (System.nanoTime() - inicio);
+        if (resto <= 0) {
+            throw new SocketTimeoutException("Venció el plazo de la conexión.");
+        }
+        clave.interestOps(operacion);
+        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(resto)));
+        selector.selectedKeys().clear();
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IOException("El demonio se está deteniendo.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            selector.close();
+        } finally {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cliente mínimo del Demonio: envía cada archivo, escribe su salida en
+ * System.out, y las advertencias, el informe de --optimizar y los tiempos en
+ * System.err. No carga ANTLR.
+ *
+ * Uso: ClienteDemonio [--puerto=N | --socket=RUTA] [--detener] archivo...
+ *
+ * Con --detener lee la clave del demonio (ver ProtocoloDemonio), así que solo
+ * funciona para el mismo usuario que lo arrancó.
+ *
+ * Termina con código 1 si algún programa no se ejecutó correctamente.
+ */
+public class ClienteDemonio {
+
+    public static void main(String[] args) throws IOException {
+        boolean detener = false;
+        List<String> argumentos = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--detener")) {
+                detener = true;
+            } else {
+                argumentos.add(arg);
+            }
+        }
+        Opciones opciones = Opciones.parsear(argumentos.toArray(new String[0]));
+        SocketAddress direccion = ProtocoloDemonio.direccion(opciones);
+
+        boolean ok = true;
+        try (SocketChannel canal = SocketChannel.open(direccion)) {
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+            for (String archivo : opciones.getArchivos()) {
+                Path ruta = Paths.get(archivo);
+                long inicio = System.nanoTime();
+                ProtocoloDemonio.escribirPedido(salida, archivo, Files.readAllBytes(ruta));
+                ProtocoloDemonio.Respuesta respuesta = ProtocoloDemonio.leerRespuesta(entrada);
+                long nanosCliente = System.nanoTime() - inicio;
+
+                System.out.print(respuesta.salida);
+                System.out.flush();
+                for (String advertencia : respuesta.advertencias) {
+                    System.err.println(advertencia);
+                }
+                for (String cambio : respuesta.optimizaciones) {
+                    System.err.println("Optimización: " + cambio);
+                }
+                System.err.printf("%s %s: parseo %.2f ms, semántico %.2f ms, ejecución %.2f ms, "
+                                + "servidor %.2f ms, ida y vuelta %.2f ms%n", archivo, respuesta.estado,
+                        respuesta.nanosParseo / 1e6, respuesta.nanosAnalisis / 1e6, respuesta.nanosEjecucion / 1e6,
+                        respuesta.nanosServidor / 1e6, nanosCliente / 1e6);
+                ok &= respuesta.estado == ResultadoPrograma.Estado.OK;
+            }
+            if (detener) {
+                String clave = Files.readString(ProtocoloDemonio.archivoClave(direccion), StandardCharsets.UTF_8);
+                ProtocoloDemonio.escribirDetener(salida, clave.trim());
+            }
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
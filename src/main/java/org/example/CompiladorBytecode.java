@@ -0,0 +1,231 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Visitor que traduce un árbol ya comprobado por el AnalizadorSemanticoVisitor
+ * a Bytecode para la MaquinaVirtual.
+ *
+ * Usa la Resolucion del análisis para convertir cada par (profundidad, slot)
+ * en un índice del frame plano: el ámbito de profundidad d empieza justo
+ * después de los slots del ámbito d-1 que lo contiene. Los literales se
+ * convierten a int una única vez, aquí, y no en cada ejecución.
+ *
+ * Si el Optimizador anotó la Resolucion, las expresiones constantes se
+ * compilan como un único PUSH y los 'if' con condición conocida no generan salto.
+ * Las sentencias que eliminó el AnalizadorVivas no generan nada.
+ *
+ * Un 'while' es un salto condicional al final del bloque más un JUMP de vuelta
+ * a la condición: el cuerpo se ejecuta sobre los mismos slots del frame plano
+ * en cada iteración, sin reservar nada.
+ */
+public class CompiladorBytecode extends LanguageBaseVisitor<Void> {
+
+    private final Resolucion resolucion;
+
+    private final EmisorBytecode emisor = new EmisorBytecode();
+
+    // Primer slot del frame plano y cantidad de variables de cada ámbito activo.
+    private int[] base = new int[8];
+    private int[] variables = new int[8];
+    private int profundidad = 0;
+    private int tamanoFrame = 0;
+
+    public CompiladorBytecode(Resolucion resolucion) {
+        this.resolucion = resolucion;
+    }
+
+    /**
+     * Compila el programa completo.
+     *
+     * @param tree El árbol sintáctico, sin errores semánticos.
+     * @return El bytecode listo para ejecutarse.
+     */
+    public Bytecode compilar(LanguageParser.InicioContext tree) {
+        visit(tree);
+        return emisor.construir(tamanoFrame);
+    }
+
+    // --- Sentencias ---
+
+    @Override
+    public Void visitInicio(LanguageParser.InicioContext ctx) {
+        variables[0] = resolucion.getTamanoGlobal();
+        tamanoFrame = variables[0];
+        visitChildren(ctx);
+        emisor.emitir(Bytecode.HALT);
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaracion(LanguageParser.DeclaracionContext ctx) {
+        if (resolucion.isEliminada(ctx)) {
+            return null;
+        }
+        compilarExpresion(ctx.expresion());
+        emisor.emitir(Bytecode.STORE, slot(resolucion.getSimbolo(ctx)));
+        return null;
+    }
+
+    @Override
+    public Void visitAsignacion(LanguageParser.AsignacionContext ctx) {
+        if (resolucion.isEliminada(ctx)) {
+            return null;
+        }
+        compilarExpresion(ctx.expresion());
+        emisor.emitir(Bytecode.STORE, slot(resolucion.getSimbolo(ctx)));
+        return null;
+    }
+
+    @Override
+    public Void visitPrint(LanguageParser.PrintContext ctx) {
+        compilarExpresion(ctx.expresion());
+        emisor.emitir(Bytecode.PRINT);
+        return null;
+    }
+
+    /**
+     * if (cond) bloque  =>  cond; JIF fin; bloque; fin:
+     *
+     * Con la condición ya conocida se compila solo el bloque, o nada.
+     */
+    @Override
+    public Void visitIf(LanguageParser.IfContext ctx) {
+        Integer condicion = resolucion.getConstante(ctx.expresion());
+        if (condicion != null) {
+            if (condicion != 0) {
+                visit(ctx.bloque());
+            }
+            return null;
+        }
+        compilarExpresion(ctx.expresion());
+        int salto = emisor.emitir(Bytecode.JUMP_IF_FALSE, -1);
+        visit(ctx.bloque());
+        emisor.parchear(salto, emisor.posicion());
+        return null;
+    }
+
+    /**
+     * while (cond) bloque  =>  inicio: cond; JIF fin; bloque; JUMP inicio peso; fin:
+     *
+     * Con la condición ya conocida como falsa no se genera nada; como verdadera,
+     * el bucle no tiene salida y se compila sin evaluarla.
+     */
+    @Override
+    public Void visitWhile(LanguageParser.WhileContext ctx) {
+        Integer condicion = resolucion.getConstante(ctx.expresion());
+        if (condicion != null && condicion == 0) {
+            return null;
+        }
+        int inicio = emisor.posicion();
+        int salto = -1;
+        if (condicion == null) {
+            compilarExpresion(ctx.expresion());
+            salto = emisor.emitir(Bytecode.JUMP_IF_FALSE, -1);
+        }
+        visit(ctx.bloque());
+        emisor.emitir(Bytecode.JUMP, inicio, Presupuesto.peso(ctx));
+        if (salto >= 0) {
+            emisor.parchear(salto, emisor.posicion());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBloque(LanguageParser.BloqueContext ctx) {
+        profundidad++;
+        if (profundidad == base.length) {
+            base = Arrays.copyOf(base, base.length * 2);
+            variables = Arrays.copyOf(variables, variables.length * 2);
+        }
+        base[profundidad] = base[profundidad - 1] + variables[profundidad - 1];
+        variables[profundidad] = resolucion.getTamanoBloque(ctx);
+        tamanoFrame = Math.max(tamanoFrame, base[profundidad] + variables[profundidad]);
+        visitChildren(ctx);
+        profundidad--;
+        return null;
+    }
+
+    // --- Expresiones ---
+
+    @Override
+    public Void visitExpSuma(LanguageParser.ExpSumaContext ctx) {
+        compilarCadena(ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitExpResta(LanguageParser.ExpRestaContext ctx) {
+        compilarCadena(ctx);
+        return null;
+    }
+
+    /**
+     * Compila una cadena de sumas y restas sin recursión (ver Expresiones):
+     * primero la hoja izquierda y luego, subiendo, cada operando derecho y su operador.
+     */
+    private void compilarCadena(LanguageParser.ExpresionContext raiz) {
+        LanguageParser.ExpresionContext nodo = raiz;
+        while (Expresiones.esBinaria(nodo) && (nodo == raiz || resolucion.getConstante(nodo) == null)) {
+            nodo = Expresiones.izquierda(nodo);
+        }
+        compilarExpresion(nodo);
+        while (nodo != raiz) {
+            nodo = (LanguageParser.ExpresionContext) nodo.getParent();
+            compilarExpresion(Expresiones.derecha(nodo));
+            emisor.emitir(Expresiones.esSuma(nodo) ? Bytecode.ADD : Bytecode.SUB);
+        }
+    }
+
+    @Override
+    public Void visitExpComparacion(LanguageParser.ExpComparacionContext ctx) {
+        compilarExpresion(Expresiones.izquierda(ctx));
+        compilarExpresion(Expresiones.derecha(ctx));
+        switch (Expresiones.operador(ctx).getType()) {
+            case LanguageLexer.MENOR:
+                emisor.emitir(Bytecode.LT);
+                break;
+            case LanguageLexer.MAYOR:
+                emisor.emitir(Bytecode.GT);
+                break;
+            default:
+                emisor.emitir(Bytecode.EQ);
+                break;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitExpId(LanguageParser.ExpIdContext ctx) {
+        emisor.emitir(Bytecode.LOAD, slot(resolucion.getSimbolo(ctx)));
+        return null;
+    }
+
+    @Override
+    public Void visitExpNum(LanguageParser.ExpNumContext ctx) {
+        emisor.emitir(Bytecode.PUSH, Integer.parseInt(ctx.NUM().getText()));
+        return null;
+    }
+
+    @Override
+    public Void visitExpBoolean(LanguageParser.ExpBooleanContext ctx) {
+        // Representamos true como 1 y false como 0, igual que el EjecutorVisitor.
+        emisor.emitir(Bytecode.PUSH, ctx.TRUE() != null ? 1 : 0);
+        return null;
+    }
+
+    // --- Utilidades ---
+
+    private void compilarExpresion(LanguageParser.ExpresionContext expresion) {
+        Integer constante = resolucion.getConstante(expresion);
+        if (constante != null) {
+            emisor.emitir(Bytecode.PUSH, constante);
+        } else {
+            visit(expresion);
+        }
+    }
+
+    private int slot(Simbolo simbolo) {
+        return base[simbolo.getProfundidad()] + simbolo.getIndice();
+    }
+}
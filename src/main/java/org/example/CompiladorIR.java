@@ -0,0 +1,133 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Traduce un ProgramaIR ya comprobado por el AnalizadorIR a Bytecode para la
+ * MaquinaVirtual o el CompiladorJit.
+ *
+ * Genera las mismas secuencias que el CompiladorBytecode sin Optimizador:
+ * los slots salen del AnalizadorIR y las expresiones se recorren en postorden
+ * con una pila explícita, así que no hay recursión por profundidad de las
+ * expresiones. Un 'while' lleva el mismo peso que en el árbol (ver Presupuesto).
+ */
+public class CompiladorIR {
+
+    private final ProgramaIR ir;
+    private final AnalizadorIR analisis;
+
+    private final EmisorBytecode emisor = new EmisorBytecode();
+
+    private int[] pendientes = new int[16];
+
+    /**
+     * @param analisis El análisis del mismo programa, sin errores.
+     */
+    public CompiladorIR(ProgramaIR ir, AnalizadorIR analisis) {
+        this.ir = ir;
+        this.analisis = analisis;
+    }
+
+    public Bytecode compilar() {
+        compilarSentencias(ir.getRaiz());
+        emisor.emitir(Bytecode.HALT);
+        return emisor.construir(analisis.getTamanoFrame());
+    }
+
+    // --- Sentencias ---
+
+    private void compilarSentencias(int bloque) {
+        for (int i = 0; i < ir.b(bloque); i++) {
+            compilarSentencia(ir.sentencia(bloque, i));
+        }
+    }
+
+    private void compilarSentencia(int nodo) {
+        switch (ir.clase(nodo)) {
+            case ProgramaIR.DECLARACION:
+            case ProgramaIR.ASIGNACION:
+                compilarExpresion(ir.b(nodo));
+                emisor.emitir(Bytecode.STORE, analisis.getSlot(ir.a(nodo)));
+                break;
+            case ProgramaIR.PRINT:
+                compilarExpresion(ir.a(nodo));
+                emisor.emitir(Bytecode.PRINT);
+                break;
+            case ProgramaIR.IF: {
+                // cond; JIF fin; bloque; fin:
+                compilarExpresion(ir.a(nodo));
+                int salto = emisor.emitir(Bytecode.JUMP_IF_FALSE, -1);
+                compilarSentencias(ir.b(nodo));
+                emisor.parchear(salto, emisor.posicion());
+                break;
+            }
+            default: {
+                // inicio: cond; JIF fin; bloque; JUMP inicio peso; fin:
+                int inicio = emisor.posicion();
+                compilarExpresion(ir.a(nodo));
+                int salto = emisor.emitir(Bytecode.JUMP_IF_FALSE, -1);
+                compilarSentencias(ir.b(nodo));
+                emisor.emitir(Bytecode.JUMP, inicio, Presupuesto.peso(ir, nodo));
+                emisor.parchear(salto, emisor.posicion());
+                break;
+            }
+        }
+    }
+
+    // --- Expresiones ---
+
+    /**
+     * Emite una expresión en postorden: operando izquierdo, derecho y operador.
+     */
+    private void compilarExpresion(int raiz) {
+        int tope = 0;
+        pendientes[tope++] = raiz << 1;
+        while (tope > 0) {
+            int entrada = pendientes[--tope];
+            int nodo = entrada >>> 1;
+            byte clase = ir.clase(nodo);
+            if (!ProgramaIR.esBinaria(clase)) {
+                compilarHoja(nodo, clase);
+            } else if ((entrada & 1) == 0) {
+                if (tope + 3 > pendientes.length) {
+                    pendientes = Arrays.copyOf(pendientes, pendientes.length * 2);
+                }
+                pendientes[tope++] = nodo << 1 | 1;
+                pendientes[tope++] = ir.b(nodo) << 1;
+                pendientes[tope++] = ir.a(nodo) << 1;
+            } else {
+                emisor.emitir(opcode(clase));
+            }
+        }
+    }
+
+    private void compilarHoja(int nodo, byte clase) {
+        switch (clase) {
+            case ProgramaIR.ID:
+                emisor.emitir(Bytecode.LOAD, analisis.getSlot(nodo));
+                break;
+            case ProgramaIR.NUM:
+                // Un literal que no cabe en un int falla aquí, igual que en el CompiladorBytecode.
+                emisor.emitir(Bytecode.PUSH, ir.b(nodo) == 0 ? ir.a(nodo) : Integer.parseInt(ir.nombre(ir.a(nodo))));
+                break;
+            default:
+                emisor.emitir(Bytecode.PUSH, ir.a(nodo)); // true es 1 y false es 0.
+                break;
+        }
+    }
+
+    private static int opcode(byte clase) {
+        switch (clase) {
+            case ProgramaIR.SUMA:
+                return Bytecode.ADD;
+            case ProgramaIR.RESTA:
+                return Bytecode.SUB;
+            case ProgramaIR.MENOR:
+                return Bytecode.LT;
+            case ProgramaIR.MAYOR:
+                return Bytecode.GT;
+            default:
+                return Bytecode.EQ;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.example;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodTooLargeException;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Traduce el Bytecode de un programa a una clase real de la JVM y la carga
+ * como clase oculta (MethodHandles.Lookup.defineHiddenClass), para que
+ * HotSpot pueda compilarla como cualquier otro método Java.
+ *
+ * La traducción es casi uno a uno porque nuestro bytecode ya es de pila:
+ * cada slot del frame plano pasa a ser un local int de la JVM y la pila de
+ * operandos es la propia pila de la JVM. Como las clases ocultas no tienen
+ * nombre visible, se pueden descartar y el GC las recoge junto con su Lookup.
+ *
+ * Los pasos del Presupuesto se llevan en un local long: cada vuelta de un
+ * 'while' le resta su peso y solo llama al Presupuesto.Control al agotar el tramo.
+ */
+public class CompiladorJit {
+
+    private static final String NOMBRE_CLASE = "org/example/ProgramaJitGenerado";
+    private static final String INTERFAZ = Type.getInternalName(ProgramaJit.class);
+    private static final String SALIDA = Type.getInternalName(Salida.class);
+    private static final String CONTROL = Type.getInternalName(Presupuesto.Control.class);
+
+    // Locales de la JVM: 0 'this', 1 'salida', 2 'control' y 3-4 los pasos restantes del tramo (long).
+    private static final int LOCAL_CONTROL = 2;
+    private static final int LOCAL_RESTANTE = 3;
+    private static final int PRIMER_LOCAL = 5;
+    private static final int MAXIMO_LOCALES = 0xFFFF;
+
+    /**
+     * Compila y carga el programa.
+     *
+     * @param programa El bytecode a traducir.
+     * @return Una instancia de la clase generada.
+     * @throws IllegalArgumentException Si el programa supera los límites de un método de la JVM
+     *         (64 KB de código o 65535 locales); en ese caso hay que ejecutarlo con la MaquinaVirtual.
+     */
+    public ProgramaJit compilar(Bytecode programa) {
+        if (programa.getTamanoFrame() + PRIMER_LOCAL > MAXIMO_LOCALES) {
+            throw new IllegalArgumentException("El programa tiene demasiadas variables para un método de la JVM.");
+        }
+        byte[] clase;
+        try {
+            clase = generarClase(programa);
+        } catch (MethodTooLargeException e) {
+            throw new IllegalArgumentException("El programa es demasiado grande para un método de la JVM.", e);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(clase, true);
+            return (ProgramaJit) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo cargar la clase generada.", e);
+        }
+    }
+
+    private byte[] generarClase(Bytecode programa) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                NOMBRE_CLASE, null, "java/lang/Object", new String[]{INTERFAZ});
+
+        MethodVisitor constructor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "ejecutar",
+                "(L" + SALIDA + ";L" + CONTROL + ";)V", null, null);
+        mv.visitCode();
+        generarCuerpo(mv, programa);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private void generarCuerpo(MethodVisitor mv, Bytecode programa) {
+        int[] codigo = programa.getCodigo();
+
+        // Todas las variables empiezan en 0, así el verificador nunca ve un local sin inicializar
+        // en los puntos donde se unen dos caminos (por ejemplo, después de un 'if').
+        for (int slot = 0; slot < programa.getTamanoFrame(); slot++) {
+            mv.visitInsn(Opcodes.ICONST_0);
+            mv.visitVarInsn(Opcodes.ISTORE, PRIMER_LOCAL + slot);
+        }
+        // restante = control.recargar(0)
+        mv.visitVarInsn(Opcodes.ALOAD, LOCAL_CONTROL);
+        mv.visitInsn(Opcodes.LCONST_0);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CONTROL, "recargar", "(J)J", false);
+        mv.visitVarInsn(Opcodes.LSTORE, LOCAL_RESTANTE);
+
+        // Una etiqueta por cada destino de salto.
+        Label[] etiquetas = new Label[codigo.length + 1];
+        for (int pc = 0; pc < codigo.length; pc += Bytecode.longitud(codigo[pc])) {
+            if (codigo[pc] == Bytecode.JUMP_IF_FALSE || codigo[pc] == Bytecode.JUMP) {
+                etiquetas[codigo[pc + 1]] = new Label();
+            }
+        }
+
+        for (int pc = 0; pc < codigo.length; pc += Bytecode.longitud(codigo[pc])) {
+            if (etiquetas[pc] != null) {
+                mv.visitLabel(etiquetas[pc]);
+            }
+            switch (codigo[pc]) {
+                case Bytecode.PUSH:
+                    apilarConstante(mv, codigo[pc + 1]);
+                    break;
+                case Bytecode.LOAD:
+                    mv.visitVarInsn(Opcodes.ILOAD, PRIMER_LOCAL + codigo[pc + 1]);
+                    break;
+                case Bytecode.STORE:
+                    mv.visitVarInsn(Opcodes.ISTORE, PRIMER_LOCAL + codigo[pc + 1]);
+                    break;
+                case Bytecode.ADD:
+                    mv.visitInsn(Opcodes.IADD);
+                    break;
+                case Bytecode.SUB:
+                    mv.visitInsn(Opcodes.ISUB);
+                    break;
+                case Bytecode.LT:
+                    comparar(mv, Opcodes.IF_ICMPLT);
+                    break;
+                case Bytecode.GT:
+                    comparar(mv, Opcodes.IF_ICMPGT);
+                    break;
+                case Bytecode.EQ:
+                    comparar(mv, Opcodes.IF_ICMPEQ);
+                    break;
+                case Bytecode.JUMP_IF_FALSE:
+                    mv.visitJumpInsn(Opcodes.IFEQ, etiquetas[codigo[pc + 1]]);
+                    break;
+                case Bytecode.JUMP:
+                    cobrarPasos(mv, codigo[pc + 2]);
+                    mv.visitJumpInsn(Opcodes.GOTO, etiquetas[codigo[pc + 1]]);
+                    break;
+                case Bytecode.PRINT:
+                    // pila: valor -> valor, salida -> salida, valor
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitInsn(Opcodes.SWAP);
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, SALIDA, "imprimir", "(I)V", true);
+                    break;
+                case Bytecode.HALT:
+                    mv.visitInsn(Opcodes.RETURN);
+                    break;
+                default:
+                    throw new IllegalStateException("Código de operación desconocido " + codigo[pc] + " en " + pc);
+            }
+        }
+    }
+
+    /**
+     * restante -= peso; if (restante < 0) restante = control.recargar(restante);
+     */
+    private void cobrarPasos(MethodVisitor mv, int peso) {
+        Label sigue = new Label();
+        mv.visitVarInsn(Opcodes.LLOAD, LOCAL_RESTANTE);
+        mv.visitLdcInsn((long) peso);
+        mv.visitInsn(Opcodes.LSUB);
+        mv.visitInsn(Opcodes.DUP2);
+        mv.visitVarInsn(Opcodes.LSTORE, LOCAL_RESTANTE);
+        mv.visitInsn(Opcodes.LCONST_0);
+        mv.visitInsn(Opcodes.LCMP);
+        mv.visitJumpInsn(Opcodes.IFGE, sigue);
+        mv.visitVarInsn(Opcodes.ALOAD, LOCAL_CONTROL);
+        mv.visitVarInsn(Opcodes.LLOAD, LOCAL_RESTANTE);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CONTROL, "recargar", "(J)J", false);
+        mv.visitVarInsn(Opcodes.LSTORE, LOCAL_RESTANTE);
+        mv.visitLabel(sigue);
+    }
+
+    /**
+     * a, b -> (a OP b) ? 1 : 0. La JVM no tiene una instrucción que deje el
+     * resultado de una comparación de ints en la pila, así que se usa un salto.
+     */
+    private void comparar(MethodVisitor mv, int salto) {
+        Label verdadero = new Label();
+        Label fin = new Label();
+        mv.visitJumpInsn(salto, verdadero);
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitJumpInsn(Opcodes.GOTO, fin);
+        mv.visitLabel(verdadero);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitLabel(fin);
+    }
+
+    private void apilarConstante(MethodVisitor mv, int valor) {
+        if (valor >= -1 && valor <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + valor);
+        } else if (valor >= Byte.MIN_VALUE && valor <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, valor);
+        } else if (valor >= Short.MIN_VALUE && valor <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, valor);
+        } else {
+            mv.visitLdcInsn(valor);
+        }
+    }
+}
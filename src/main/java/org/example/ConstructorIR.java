@@ -0,0 +1,180 @@
+package org.example;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.Arrays;
+
+/**
+ * Baja un árbol de ANTLR sin errores de sintaxis a un ProgramaIR.
+ *
+ * Las sentencias se recorren con recursión (su anidamiento es el de los
+ * bloques del fuente), pero las expresiones con una pila explícita, porque
+ * las cadenas largas de sumas y restas producen árboles muy profundos (ver
+ * Expresiones). Cada nodo se agrega después de sus hijos.
+ *
+ * Al terminar, el ProgramaIR no guarda ninguna referencia al árbol ni a los
+ * tokens: quien los tenga puede soltarlos para que se liberen.
+ */
+public final class ConstructorIR {
+
+    private final ProgramaIR ir = new ProgramaIR();
+
+    // Sentencias de los bloques abiertos, una lista encima de otra.
+    private int[] sentencias = new int[64];
+    private int cantidadSentencias = 0;
+
+    // Para recorrer expresiones en postorden: nodos pendientes (visitado es true
+    // si sus hijos ya se agregaron) y los índices en el IR de los ya agregados.
+    private LanguageParser.ExpresionContext[] pendientes = new LanguageParser.ExpresionContext[16];
+    private boolean[] visitados = new boolean[16];
+    private int[] hechos = new int[16];
+
+    private ConstructorIR() {
+    }
+
+    /**
+     * @param tree Un árbol sin errores de sintaxis.
+     */
+    public static ProgramaIR construir(LanguageParser.InicioContext tree) {
+        ConstructorIR constructor = new ConstructorIR();
+        ProgramaIR ir = constructor.ir;
+        int inicio = constructor.cantidadSentencias;
+        constructor.agregarSentencias(tree.programa());
+        int lista = ir.agregarLista(constructor.sentencias, inicio, constructor.cantidadSentencias);
+        ir.terminar(ir.agregar(ProgramaIR.PROGRAMA, lista, constructor.cantidadSentencias - inicio, 1, 0));
+        return ir;
+    }
+
+    private void agregarSentencias(LanguageParser.ProgramaContext programa) {
+        for (LanguageParser.SentenciaContext sentencia : programa.sentencia()) {
+            int nodo = sentencia(sentencia);
+            if (cantidadSentencias == sentencias.length) {
+                sentencias = Arrays.copyOf(sentencias, cantidadSentencias * 2);
+            }
+            sentencias[cantidadSentencias++] = nodo;
+        }
+    }
+
+    private int sentencia(LanguageParser.SentenciaContext ctx) {
+        if (ctx.declaracion() != null) {
+            LanguageParser.DeclaracionContext declaracion = ctx.declaracion();
+            int nombre = nombre(declaracion.ID());
+            int valor = expresion(declaracion.expresion());
+            return agregar(ProgramaIR.DECLARACION, nombre, valor, declaracion.IGUAL().getSymbol());
+        }
+        if (ctx.asignacion() != null) {
+            LanguageParser.AsignacionContext asignacion = ctx.asignacion();
+            int nombre = nombre(asignacion.ID());
+            int valor = expresion(asignacion.expresion());
+            return agregar(ProgramaIR.ASIGNACION, nombre, valor, asignacion.IGUAL().getSymbol());
+        }
+        if (ctx.print() != null) {
+            int valor = expresion(ctx.print().expresion());
+            return agregar(ProgramaIR.PRINT, valor, 0, ctx.print().PRINT().getSymbol());
+        }
+        if (ctx.if_() != null) {
+            LanguageParser.IfContext si = ctx.if_();
+            int condicion = expresion(si.expresion());
+            return agregar(ProgramaIR.IF, condicion, bloque(si.bloque()), si.PAREN_ABIERTO().getSymbol());
+        }
+        LanguageParser.WhileContext mientras = ctx.while_();
+        int condicion = expresion(mientras.expresion());
+        return agregar(ProgramaIR.WHILE, condicion, bloque(mientras.bloque()), mientras.PAREN_ABIERTO().getSymbol());
+    }
+
+    private int bloque(LanguageParser.BloqueContext ctx) {
+        int inicio = cantidadSentencias;
+        agregarSentencias(ctx.programa());
+        int lista = ir.agregarLista(sentencias, inicio, cantidadSentencias);
+        int cantidad = cantidadSentencias - inicio;
+        cantidadSentencias = inicio;
+        return agregar(ProgramaIR.BLOQUE, lista, cantidad, ctx.LLAVE_ABIERTA().getSymbol());
+    }
+
+    private int nombre(TerminalNode id) {
+        return agregar(ProgramaIR.NOMBRE, ir.internar(id.getText()), 0, id.getSymbol());
+    }
+
+    /**
+     * Agrega una expresión en postorden (izquierda, derecha, operador) sin recursión.
+     *
+     * @return El índice de su raíz en el IR.
+     */
+    private int expresion(LanguageParser.ExpresionContext raiz) {
+        int tope = 0;
+        int cantidadHechos = 0;
+        pendientes[tope] = raiz;
+        visitados[tope++] = false;
+        while (tope > 0) {
+            LanguageParser.ExpresionContext ctx = pendientes[--tope];
+            boolean visitado = visitados[tope];
+            if (!visitado && (Expresiones.esBinaria(ctx) || Expresiones.esComparacion(ctx))) {
+                if (tope + 3 > pendientes.length) {
+                    pendientes = Arrays.copyOf(pendientes, pendientes.length * 2);
+                    visitados = Arrays.copyOf(visitados, visitados.length * 2);
+                }
+                // Se vuelve a él después de sus dos operandos; el izquierdo sale primero.
+                pendientes[tope] = ctx;
+                visitados[tope++] = true;
+                pendientes[tope] = Expresiones.derecha(ctx);
+                visitados[tope++] = false;
+                pendientes[tope] = Expresiones.izquierda(ctx);
+                visitados[tope++] = false;
+                continue;
+            }
+            int nodo;
+            if (visitado) {
+                int derecha = hechos[--cantidadHechos];
+                int izquierda = hechos[--cantidadHechos];
+                Token operador = Expresiones.operador(ctx);
+                nodo = agregar(claseBinaria(operador), izquierda, derecha, operador);
+            } else {
+                nodo = hoja(ctx);
+            }
+            if (cantidadHechos == hechos.length) {
+                hechos = Arrays.copyOf(hechos, hechos.length * 2);
+            }
+            hechos[cantidadHechos++] = nodo;
+        }
+        return hechos[0];
+    }
+
+    private int hoja(LanguageParser.ExpresionContext ctx) {
+        if (ctx instanceof LanguageParser.ExpIdContext) {
+            TerminalNode id = ((LanguageParser.ExpIdContext) ctx).ID();
+            return agregar(ProgramaIR.ID, ir.internar(id.getText()), 0, id.getSymbol());
+        }
+        if (ctx instanceof LanguageParser.ExpNumContext) {
+            Token num = ((LanguageParser.ExpNumContext) ctx).NUM().getSymbol();
+            String texto = num.getText();
+            try {
+                return agregar(ProgramaIR.NUM, Integer.parseInt(texto), 0, num);
+            } catch (NumberFormatException e) {
+                // Se guarda el texto: el CompiladorIR falla al convertirlo, igual que el CompiladorBytecode.
+                return agregar(ProgramaIR.NUM, ir.internar(texto), 1, num);
+            }
+        }
+        LanguageParser.ExpBooleanContext booleano = (LanguageParser.ExpBooleanContext) ctx;
+        return agregar(ProgramaIR.BOOLEAN, booleano.TRUE() != null ? 1 : 0, 0, booleano.getStart());
+    }
+
+    private static byte claseBinaria(Token operador) {
+        switch (operador.getType()) {
+            case LanguageLexer.SUMA:
+                return ProgramaIR.SUMA;
+            case LanguageLexer.RESTA:
+                return ProgramaIR.RESTA;
+            case LanguageLexer.MENOR:
+                return ProgramaIR.MENOR;
+            case LanguageLexer.MAYOR:
+                return ProgramaIR.MAYOR;
+            default:
+                return ProgramaIR.IGUAL;
+        }
+    }
+
+    private int agregar(byte clase, int a, int b, Token token) {
+        return ir.agregar(clase, a, b, token.getLine(), token.getCharPositionInLine());
+    }
+}
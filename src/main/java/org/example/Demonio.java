@@ -0,0 +1,173 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proceso de larga duración que recibe programas por un socket local y
+ * devuelve su salida, sus errores semánticos y los tiempos de cada fase.
+ *
+ * La JVM, las clases de ANTLR y los ATN de LanguageLexer y LanguageParser se
+ * cargan una sola vez al arrancar (con un programa de calentamiento), así que
+ * cada pedido solo paga el trabajo propio del programa. Escucha en un socket
+ * Unix (--socket=RUTA) o en un puerto TCP de la interfaz loopback (--puerto=N).
+ * El formato de los mensajes está en ProtocoloDemonio.
+ *
+ * Cada conexión ocupa un hilo mientras dura. Hay --hilos hilos y como mucho
+ * CONEXIONES_EN_ESPERA conexiones esperando uno; las que llegan con todo
+ * ocupado se cierran enseguida. Un pedido con una longitud fuera de rango o
+ * que hace fallar al demonio termina solo su propia conexión.
+ *
+ * Para que nadie retenga un hilo para siempre, un cliente tiene
+ * --demonio-plazo-ms para enviar cada pedido completo (contando la espera
+ * desde el pedido anterior) y para recibir la respuesta (ver CanalConPlazo),
+ * y los programas se ejecutan con el Presupuesto de las opciones, que en el
+ * demonio siempre tiene límites (ver Opciones.getPresupuesto()).
+ */
+public class Demonio {
+
+    private static final String PROGRAMA_CALENTAMIENTO = "int x = 1; if (true) { x = x + 1 - 1; } print(x);";
+    private static final int CONEXIONES_EN_ESPERA = 64;
+
+    private final Opciones opciones;
+    private final ProcesadorPrograma procesador;
+    private final ThreadPoolExecutor hilos;
+    private volatile ServerSocketChannel servidor;
+    private byte[] clave; // La de DETENER, generada en atender().
+
+    public Demonio(Opciones opciones) {
+        this.opciones = opciones;
+        this.procesador = new ProcesadorPrograma(opciones);
+        this.hilos = new ThreadPoolExecutor(opciones.getHilos(), opciones.getHilos(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(CONEXIONES_EN_ESPERA), r -> {
+                    Thread hilo = new Thread(r, "demonio-conexion");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    /**
+     * Atiende pedidos hasta que un cliente pida detener el demonio.
+     */
+    public void atender() throws IOException {
+        procesador.procesar("calentamiento", PROGRAMA_CALENTAMIENTO);
+
+        SocketAddress direccion = ProtocoloDemonio.direccion(opciones);
+        if (direccion instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) direccion).getPath());
+        }
+        Path archivoClave = ProtocoloDemonio.archivoClave(direccion);
+        clave = generarClave(archivoClave);
+        try (ServerSocketChannel canal = ServerSocketChannel.open(ProtocoloDemonio.familia(direccion))) {
+            servidor = canal;
+            canal.bind(direccion);
+            System.out.println("Demonio escuchando en " + direccion);
+            while (true) {
+                SocketChannel conexion;
+                try {
+                    conexion = canal.accept();
+                } catch (AsynchronousCloseException e) {
+                    break; // Un cliente pidió detener el demonio.
+                }
+                try {
+                    hilos.execute(() -> atenderConexion(conexion));
+                } catch (RejectedExecutionException e) {
+                    System.err.println("Conexión rechazada: todos los hilos están ocupados.");
+                    conexion.close();
+                }
+            }
+        } finally {
+            hilos.shutdownNow();
+            Files.deleteIfExists(archivoClave);
+            if (direccion instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) direccion).getPath());
+            }
+        }
+        System.out.println("Demonio detenido.");
+    }
+
+    private void atenderConexion(SocketChannel conexion) {
+        long plazo = opciones.getPlazoDemonioNanos();
+        try (CanalConPlazo canal = new CanalConPlazo(conexion)) {
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(canal.entrada()));
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(canal.salida()));
+            while (true) {
+                canal.plazo(plazo);
+                int operacion;
+                try {
+                    operacion = entrada.readInt();
+                } catch (EOFException e) {
+                    return; // El cliente cerró la conexión.
+                }
+                if (operacion == ProtocoloDemonio.DETENER) {
+                    byte[] recibida = entrada.readUTF().getBytes(StandardCharsets.UTF_8);
+                    if (!MessageDigest.isEqual(recibida, clave)) {
+                        throw new IOException("Clave de DETENER incorrecta.");
+                    }
+                    servidor.close();
+                    return;
+                }
+                if (operacion != ProtocoloDemonio.EJECUTAR) {
+                    throw new IOException("Operación desconocida: " + operacion);
+                }
+                String nombre = entrada.readUTF();
+                int longitud = entrada.readInt();
+                if (longitud < 0 || longitud > ProtocoloDemonio.FUENTE_MAXIMA) {
+                    throw new IOException("Longitud de programa fuera de rango: " + longitud);
+                }
+                byte[] fuente = new byte[longitud];
+                entrada.readFully(fuente);
+
+                long inicio = System.nanoTime();
+                ResultadoPrograma resultado = procesador.procesar(nombre,
+                        new FuenteMapeada(ByteBuffer.wrap(fuente), nombre));
+                canal.plazo(plazo);
+                ProtocoloDemonio.escribirRespuesta(salida, resultado, System.nanoTime() - inicio);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Lo que falle en una conexión no debe tirar el hilo ni el demonio.
+            System.err.println("Conexión terminada con error: " + e);
+        }
+    }
+
+    /**
+     * Genera una clave al azar y la escribe en un archivo nuevo que solo puede leer el usuario actual.
+     */
+    private static byte[] generarClave(Path archivo) throws IOException {
+        byte[] azar = new byte[32];
+        new SecureRandom().nextBytes(azar);
+        String texto = HexFormat.of().formatHex(azar);
+        Files.createDirectories(archivo.toAbsolutePath().getParent());
+        Files.deleteIfExists(archivo);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(archivo,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(archivo);
+        }
+        Files.writeString(archivo, texto, StandardCharsets.UTF_8);
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
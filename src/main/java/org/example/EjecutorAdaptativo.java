@@ -0,0 +1,140 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta programas con la MaquinaVirtual y, cuando un mismo programa ya se
+ * ejecutó 'umbral' veces, lo compila con el CompiladorJit y usa la clase
+ * generada en las ejecuciones siguientes.
+ *
+ * Los programas se reconocen por el contenido de su Bytecode, así que volver a
+ * compilar el mismo archivo cuenta como el mismo programa. Si un programa no
+ * cabe en un método de la JVM se sigue ejecutando con la MaquinaVirtual.
+ *
+ * Recuerda como mucho 'maximo' programas: al superarlo olvida el usado hace
+ * más tiempo (LRU), con su cuenta de ejecuciones y su clase generada. Como las
+ * clases son ocultas y no fuertes, la JVM las descarga en cuanto nadie las
+ * referencia, así que un demonio que recibe programas distintos sin parar no
+ * acumula memoria ni Metaspace. Un programa olvidado vuelve a empezar con la
+ * MaquinaVirtual.
+ *
+ * El CompiladorJit (y con él ASM) se crea recién al compilar el primer
+ * programa, para no cargarlo en las ejecuciones que nunca lo usan.
+ */
+public class EjecutorAdaptativo {
+
+    public static final int MAXIMO_POR_DEFECTO = 1024;
+
+    private final int umbral;
+    private CompiladorJit jit; // Se crea al compilar el primer programa (ver compilador()).
+    // Del usado hace más tiempo al más reciente. Se accede solo sincronizando sobre el mapa.
+    private final Map<Bytecode, Entrada> programas;
+
+    /**
+     * @param umbral Cantidad de ejecuciones con la MaquinaVirtual antes de compilar.
+     *               Con 0 se compila desde la primera ejecución.
+     */
+    public EjecutorAdaptativo(int umbral) {
+        this(umbral, MAXIMO_POR_DEFECTO);
+    }
+
+    /**
+     * @param maximo Cantidad de programas que se recuerdan (ver la descripción de la clase).
+     */
+    public EjecutorAdaptativo(int umbral, int maximo) {
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El máximo de programas debe ser al menos 1: " + maximo);
+        }
+        this.umbral = umbral;
+        this.programas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Bytecode, Entrada> masAntigua) {
+                return size() > maximo;
+            }
+        };
+    }
+
+    /**
+     * Ejecuta el programa con el motor que corresponda según cuántas veces se ejecutó.
+     *
+     * @param programa El bytecode del programa.
+     * @param salida Destino de las sentencias 'print'.
+     */
+    public void ejecutar(Bytecode programa, Salida salida) {
+        ejecutar(programa, salida, Presupuesto.SIN_LIMITE.iniciar());
+    }
+
+    /**
+     * @param control La cuenta del Presupuesto de esta ejecución. La Salida ya debe estar limitada.
+     * @throws Presupuesto.Agotado Si se supera un límite.
+     * @see #ejecutar(Bytecode, Salida)
+     */
+    public void ejecutar(Bytecode programa, Salida salida, Presupuesto.Control control) {
+        Entrada entrada;
+        synchronized (programas) {
+            entrada = programas.computeIfAbsent(programa, p -> new Entrada());
+        }
+        ProgramaJit compilado = entrada.compilado;
+        if (compilado == null && !entrada.noCompilable && entrada.ejecuciones.getAndIncrement() >= umbral) {
+            compilado = compilar(programa, entrada);
+        }
+
+        if (compilado == null) {
+            new MaquinaVirtual(salida, control).ejecutar(programa);
+            return;
+        }
+        try {
+            compilado.ejecutar(salida, control);
+        } finally {
+            salida.vaciar(); // Lo ya impreso sale aunque el programa falle.
+        }
+    }
+
+    /**
+     * @return true si el programa ya se ejecuta con la clase generada.
+     */
+    public boolean estaCompilado(Bytecode programa) {
+        Entrada entrada;
+        synchronized (programas) {
+            entrada = programas.get(programa);
+        }
+        return entrada != null && entrada.compilado != null;
+    }
+
+    private ProgramaJit compilar(Bytecode programa, Entrada entrada) {
+        synchronized (entrada) {
+            if (entrada.compilado == null && !entrada.noCompilable) {
+                try {
+                    entrada.compilado = compilador().compilar(programa);
+                } catch (IllegalArgumentException e) {
+                    entrada.noCompilable = true;
+                }
+            }
+            return entrada.compilado;
+        }
+    }
+
+    private synchronized CompiladorJit compilador() {
+        if (jit == null) {
+            jit = new CompiladorJit();
+        }
+        return jit;
+    }
+
+    /**
+     * @return Cuántos programas se recuerdan ahora.
+     */
+    public int getCantidadProgramas() {
+        synchronized (programas) {
+            return programas.size();
+        }
+    }
+
+    private static final class Entrada {
+        final AtomicInteger ejecuciones = new AtomicInteger();
+        volatile ProgramaJit compilado;
+        volatile boolean noCompilable;
+    }
+}
@@ -0,0 +1,243 @@
+package org.example;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EjecutorVisitor que además perfila el programa a nivel de código fuente:
+ * cuenta cuántas veces se ejecuta cada sentencia y mide su tiempo. Cada
+ * sentencia se informa con la línea de su primer token (la misma que muestran
+ * los ErrorSemantico), pero dos sentencias de una misma línea se miden por
+ * separado.
+ *
+ * Las mediciones se guardan en un árbol de llamadas: cada 'if' o 'while' es un
+ * nodo y las sentencias de su bloque cuelgan de él, así que el tiempo de un
+ * 'if' o 'while' incluye el de su bloque (todas sus iteraciones). Con ese árbol se generan dos informes:
+ *
+ * - Las sentencias más costosas por tiempo propio (sin contar bloques
+ *   anidados) y los bloques 'if'/'while' con sus ejecuciones, entradas al
+ *   bloque (las iteraciones, en un 'while') y tiempo total.
+ * - Las pilas colapsadas ("marco;marco;marco valor" por línea) que aceptan
+ *   flamegraph.pl, speedscope y herramientas similares, con el tiempo propio
+ *   en nanosegundos como valor.
+ *
+ * Medir cada sentencia cuesta un par de System.nanoTime(), así que los tiempos
+ * de las sentencias muy baratas quedan inflados; sirve para ver qué domina,
+ * no para medir el tiempo absoluto.
+ */
+public class EjecutorPerfilado extends EjecutorVisitor {
+
+    private static final int LARGO_TEXTO = 40;
+
+    private final Nodo raiz;
+    private Nodo actual;
+
+    public EjecutorPerfilado(Resolucion resolucion, Salida salida, String programa) {
+        super(resolucion, salida);
+        this.raiz = new Nodo(null, null, false, programa);
+        this.actual = raiz;
+    }
+
+    @Override
+    public Integer visitDeclaracion(LanguageParser.DeclaracionContext ctx) {
+        long inicio = entrar(ctx, false);
+        try {
+            return super.visitDeclaracion(ctx);
+        } finally {
+            salir(inicio);
+        }
+    }
+
+    @Override
+    public Integer visitAsignacion(LanguageParser.AsignacionContext ctx) {
+        long inicio = entrar(ctx, false);
+        try {
+            return super.visitAsignacion(ctx);
+        } finally {
+            salir(inicio);
+        }
+    }
+
+    @Override
+    public Integer visitPrint(LanguageParser.PrintContext ctx) {
+        long inicio = entrar(ctx, false);
+        try {
+            return super.visitPrint(ctx);
+        } finally {
+            salir(inicio);
+        }
+    }
+
+    @Override
+    public Integer visitIf(LanguageParser.IfContext ctx) {
+        long inicio = entrar(ctx, true);
+        try {
+            return super.visitIf(ctx);
+        } finally {
+            salir(inicio);
+        }
+    }
+
+    @Override
+    public Integer visitWhile(LanguageParser.WhileContext ctx) {
+        long inicio = entrar(ctx, true);
+        try {
+            return super.visitWhile(ctx);
+        } finally {
+            salir(inicio);
+        }
+    }
+
+    @Override
+    public Integer visitBloque(LanguageParser.BloqueContext ctx) {
+        actual.entradas++; // El nodo actual es el 'if' o 'while' dueño del bloque.
+        return super.visitBloque(ctx);
+    }
+
+    private long entrar(ParserRuleContext ctx, boolean esIf) {
+        Nodo hijo = actual.hijos.get(ctx);
+        if (hijo == null) {
+            String texto;
+            if (ctx instanceof LanguageParser.IfContext) {
+                texto = "if (" + Expresiones.texto(((LanguageParser.IfContext) ctx).expresion(), LARGO_TEXTO) + ")";
+            } else if (ctx instanceof LanguageParser.WhileContext) {
+                texto = "while (" + Expresiones.texto(((LanguageParser.WhileContext) ctx).expresion(), LARGO_TEXTO) + ")";
+            } else {
+                texto = Expresiones.texto(ctx, LARGO_TEXTO);
+            }
+            hijo = new Nodo(actual, ctx, esIf, texto.replaceAll("\\s+", " "));
+            actual.hijos.put(ctx, hijo);
+        }
+        actual = hijo;
+        return System.nanoTime();
+    }
+
+    private void salir(long inicio) {
+        long nanos = System.nanoTime() - inicio;
+        actual.ejecuciones++;
+        actual.nanosTotal += nanos;
+        actual = actual.padre;
+        actual.nanosHijos += nanos;
+    }
+
+    /**
+     * Escribe las 'maximo' sentencias con más tiempo propio y todos los bloques 'if'/'while'.
+     */
+    public void imprimirInforme(PrintStream destino, int maximo) {
+        Map<ParserRuleContext, Linea> lineas = new LinkedHashMap<>();
+        Map<ParserRuleContext, Linea> ifs = new LinkedHashMap<>();
+        acumular(raiz, lineas, ifs);
+        long total = raiz.nanosHijos;
+
+        List<Linea> ordenadas = new ArrayList<>(lineas.values());
+        ordenadas.sort((a, b) -> Long.compare(b.nanosPropio, a.nanosPropio));
+        List<Linea> bloques = new ArrayList<>(ifs.values());
+        bloques.sort(Comparator.comparingInt((Linea linea) -> linea.numero).thenComparingInt(linea -> linea.columna));
+        destino.println("--- SENTENCIAS MAS COSTOSAS ---");
+        destino.printf("%6s %12s %10s %10s %6s  %s%n", "LINEA", "EJECUCIONES", "PROPIO ms", "TOTAL ms", "%", "SENTENCIA");
+        for (Linea linea : ordenadas.subList(0, Math.min(maximo, ordenadas.size()))) {
+            destino.printf("%6d %12d %10.3f %10.3f %6.1f  %s%n", linea.numero, linea.ejecuciones,
+                    linea.nanosPropio / 1e6, linea.nanosTotal / 1e6,
+                    total == 0 ? 0.0 : 100.0 * linea.nanosPropio / total, linea.texto);
+        }
+        destino.println("--- BLOQUES IF/WHILE ---");
+        destino.printf("%6s %12s %10s %10s  %s%n", "LINEA", "EJECUCIONES", "ENTRADAS", "TOTAL ms", "CONDICION");
+        for (Linea linea : bloques) {
+            destino.printf("%6d %12d %10d %10.3f  %s%n", linea.numero, linea.ejecuciones, linea.entradas,
+                    linea.nanosTotal / 1e6, linea.texto);
+        }
+        destino.printf("Tiempo total medido: %.3f ms%n", total / 1e6);
+    }
+
+    /**
+     * Escribe las pilas colapsadas, una por camino del árbol con tiempo propio.
+     */
+    public void imprimirPilas(PrintStream destino) {
+        StringBuilder pila = new StringBuilder(raiz.texto.replace(';', ','));
+        for (Nodo hijo : raiz.hijos.values()) {
+            imprimirPilas(hijo, pila, destino);
+        }
+    }
+
+    private void imprimirPilas(Nodo nodo, StringBuilder pila, PrintStream destino) {
+        int largo = pila.length();
+        pila.append(';').append(nodo.linea).append(": ").append(nodo.texto);
+        long propio = nodo.nanosTotal - nodo.nanosHijos;
+        if (propio > 0) {
+            destino.append(pila).append(' ').append(Long.toString(propio)).println();
+        }
+        for (Nodo hijo : nodo.hijos.values()) {
+            imprimirPilas(hijo, pila, destino);
+        }
+        pila.setLength(largo);
+    }
+
+    private static void acumular(Nodo nodo, Map<ParserRuleContext, Linea> lineas, Map<ParserRuleContext, Linea> ifs) {
+        for (Nodo hijo : nodo.hijos.values()) {
+            Linea linea = lineas.computeIfAbsent(hijo.sentencia, sentencia -> new Linea(hijo));
+            linea.ejecuciones += hijo.ejecuciones;
+            linea.nanosPropio += hijo.nanosTotal - hijo.nanosHijos;
+            linea.nanosTotal += hijo.nanosTotal;
+            if (hijo.esIf) {
+                Linea bloque = ifs.computeIfAbsent(hijo.sentencia, sentencia -> new Linea(hijo));
+                bloque.ejecuciones += hijo.ejecuciones;
+                bloque.entradas += hijo.entradas;
+                bloque.nanosTotal += hijo.nanosTotal;
+            }
+            acumular(hijo, lineas, ifs);
+        }
+    }
+
+    /**
+     * Un contexto del árbol de llamadas: una sentencia dentro de una cadena de 'if'/'while'.
+     */
+    private static final class Nodo {
+        final Nodo padre;
+        final ParserRuleContext sentencia; // null en la raíz.
+        final int linea;
+        final int columna;
+        final boolean esIf;
+        final String texto;
+        // Clave: el contexto de la sentencia, que no redefine equals ni hashCode, así que
+        // dos sentencias de la misma línea (o un 'if' y un 'while') son nodos distintos.
+        final Map<ParserRuleContext, Nodo> hijos = new LinkedHashMap<>(); // En orden de primera ejecución.
+        long ejecuciones;
+        long entradas;
+        long nanosTotal;
+        long nanosHijos;
+
+        Nodo(Nodo padre, ParserRuleContext sentencia, boolean esIf, String texto) {
+            this.padre = padre;
+            this.sentencia = sentencia;
+            this.linea = sentencia == null ? 0 : sentencia.getStart().getLine();
+            this.columna = sentencia == null ? 0 : sentencia.getStart().getCharPositionInLine();
+            this.esIf = esIf;
+            this.texto = texto;
+        }
+    }
+
+    /**
+     * Totales de una sentencia sumando todos los contextos en que aparece.
+     */
+    private static final class Linea {
+        final int numero;
+        final int columna;
+        final String texto;
+        long ejecuciones;
+        long entradas;
+        long nanosPropio;
+        long nanosTotal;
+
+        Linea(Nodo nodo) {
+            this.numero = nodo.linea;
+            this.columna = nodo.columna;
+            this.texto = nodo.texto;
+        }
+    }
+}
@@ -1,4 +1,9 @@
 package org.example;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
  * Visitor para la Pasada de ejecución.
  *
@@ -9,11 +14,53 @@ package org.example;
  * El tipo de retorno genérico es <Integer> porque las expresiones en nuestro
  * lenguaje evalúan a un valor numérico (0 para false, 1 para true). Las
  * sentencias pueden devolver un valor dummy (como 0 o null).
+ *
+ * Las variables no se buscan por nombre: el análisis semántico ya resolvió cada
+ * identificador a un par (profundidad, slot), así que los valores viven en un
+ * frame int[] por ámbito activo y se accede a ellos por índice. Las expresiones
+ * que el Optimizador ya calculó se toman directamente de la Resolucion, y las
+ * declaraciones y asignaciones que el AnalizadorVivas eliminó no se ejecutan.
+ *
+ * Los frames se reutilizan: hay uno por profundidad y solo se reemplaza si un
+ * bloque necesita más slots de los que tiene. Así un 'while' no reserva nada
+ * por iteración. No hace falta limpiarlos al entrar, porque el análisis
+ * semántico garantiza que una variable se declara (y se escribe) antes de leerse.
+ *
+ * Cada vuelta de un 'while' descuenta su peso de los pasos del Presupuesto
+ * (ver Presupuesto.peso); el peso de cada bucle se calcula una sola vez.
  */
 public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
 
-    // El ejecutor necesita su propia tabla de símbolos para almacenar los valores de las variables en tiempo de ejecución.
-    private final TablaSimbolos tablaSimbolos = new TablaSimbolos();
+    private final Resolucion resolucion;
+    private final Salida salida;
+
+    // frames[d] es el frame del ámbito activo de profundidad d (0 = global).
+    private int[][] frames = new int[8][];
+    private int profundidad = 0;
+    private long sentencias = 0; // Para las Metricas.
+
+    private final Presupuesto.Control control;
+    private long restante; // Pasos que quedan del tramo actual del Presupuesto.
+    private final Map<LanguageParser.WhileContext, Integer> pesos = new IdentityHashMap<>();
+
+    public EjecutorVisitor(Resolucion resolucion) {
+        this(resolucion, new SalidaBuffer(System.out));
+    }
+
+    public EjecutorVisitor(Resolucion resolucion, Salida salida) {
+        this(resolucion, salida, Presupuesto.SIN_LIMITE.iniciar());
+    }
+
+    /**
+     * @param control La cuenta del Presupuesto de esta ejecución. La Salida ya debe estar limitada.
+     *                Si se supera un límite, visit() lanza Presupuesto.Agotado.
+     */
+    public EjecutorVisitor(Resolucion resolucion, Salida salida, Presupuesto.Control control) {
+        this.resolucion = resolucion;
+        this.salida = salida;
+        this.control = control;
+        this.restante = control.recargar(0);
+    }
 
     // --- Métodos de visita para las Sentencias ---
 
@@ -21,21 +68,20 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
      * Visita la regla 'declaracion'.
      * ANTLR Rule: declaracion: INT ID IGUAL expresion;
      *
-     * Acción: Calcula el valor de la expresión de la derecha, crea un nuevo
-     * símbolo con ese valor y lo inserta en la tabla de símbolos.
+     * Acción: Calcula el valor de la expresión de la derecha y lo guarda en el
+     * slot que el análisis semántico reservó para la variable.
      */
     @Override
     public Integer visitDeclaracion(LanguageParser.DeclaracionContext ctx) {
+        if (resolucion.isEliminada(ctx)) {
+            return 0; // El AnalizadorVivas vio que su valor nunca se lee.
+        }
+        sentencias++;
         // 1. Calcular el valor de la expresión de la derecha.
-        Integer valor = visit(ctx.expresion());
-
-        String nombreVar = ctx.ID().getText();
-        String tipo = ctx.INT().getText();
+        int valor = evaluar(ctx.expresion());
 
-        // 2. Crear el Símbolo con su valor inicial y guardarlo.
-        // Usamos el nuevo constructor de Simbolo.
-        Simbolo simbolo = new Simbolo(nombreVar, tipo, ctx.ID().getSymbol(), valor);
-        tablaSimbolos.insertar(simbolo); // No lanzará excepción porque la Pasada 1 ya lo validó.
+        // 2. Guardarlo en su slot. La Pasada 1 garantiza que el símbolo está resuelto.
+        escribir(resolucion.getSimbolo(ctx), valor);
 
         return 0; // Las sentencias no devuelven un valor relevante.
     }
@@ -44,16 +90,18 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
      * Visita la regla 'asignacion'.
      * ANTLR Rule: asignacion: ID IGUAL expresion;
      *
-     * Acción: Busca la variable en la tabla de símbolos y actualiza su valor.
+     * Acción: Actualiza el valor de la variable en su slot ya resuelto.
      */
     @Override
     public Integer visitAsignacion(LanguageParser.AsignacionContext ctx) {
-        String nombreVar = ctx.ID().getText();
-        Integer nuevoValor = visit(ctx.expresion());
+        if (resolucion.isEliminada(ctx)) {
+            return 0;
+        }
+        sentencias++;
+        int nuevoValor = evaluar(ctx.expresion());
 
-        // Buscamos el símbolo. Tenemos la garantía de que existe gracias a la Pasada 1.
-        Simbolo simbolo = tablaSimbolos.buscar(nombreVar);
-        simbolo.setValor(nuevoValor);
+        // Tenemos la garantía de que el símbolo existe gracias a la Pasada 1.
+        escribir(resolucion.getSimbolo(ctx), nuevoValor);
 
         return 0;
     }
@@ -62,12 +110,13 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
      * Visita la regla 'impresion'.
      * ANTLR Rule: impresion: PRINT PAREN_ABIERTO expresion PAREN_CERRADO;
      *
-     * Acción: Evalúa la expresión interna e imprime el resultado en la consola.
+     * Acción: Evalúa la expresión interna e imprime el resultado en la salida.
      */
     @Override
     public Integer visitPrint(LanguageParser.PrintContext ctx) {
-        Integer valor = visit(ctx.expresion());
-        System.out.println(valor);
+        sentencias++;
+        int valor = evaluar(ctx.expresion());
+        salida.imprimir(valor);
         return 0;
     }
 
@@ -79,7 +128,8 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
      */
     @Override
     public Integer visitIf(LanguageParser.IfContext ctx) {
-        Integer condicion = visit(ctx.expresion());
+        sentencias++;
+        int condicion = evaluar(ctx.expresion());
         // En nuestro lenguaje, '1' representa 'true'.
         if (condicion == 1) {
             visit(ctx.bloque());
@@ -87,19 +137,41 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
         return 0;
     }
 
+    /**
+     * Visita la regla 'while'.
+     * ANTLR Rule: while: WHILE PAREN_ABIERTO expresion PAREN_CERRADO bloque;
+     *
+     * Acción: Repite el bloque mientras la condición valga '1' (true). Cada
+     * evaluación de la condición cuenta como una sentencia ejecutada.
+     */
+    @Override
+    public Integer visitWhile(LanguageParser.WhileContext ctx) {
+        LanguageParser.ExpresionContext condicion = ctx.expresion();
+        LanguageParser.BloqueContext bloque = ctx.bloque();
+        int peso = pesos.computeIfAbsent(ctx, Presupuesto::peso);
+        sentencias++;
+        while (evaluar(condicion) == 1) {
+            restante -= peso;
+            if (restante < 0) {
+                restante = control.recargar(restante);
+            }
+            visit(bloque);
+            sentencias++;
+        }
+        return 0;
+    }
+
     // --- Métodos de visita para las Expresiones (donde se calculan valores) ---
 
     /**
      * Visita la regla de suma.
      * ANTLR Rule: expresion: expresion SUMA expresion # ExpSuma
      *
-     * Acción: Evalúa recursivamente los operandos y devuelve su suma.
+     * Acción: Evalúa los operandos y devuelve su suma.
      */
     @Override
     public Integer visitExpSuma(LanguageParser.ExpSumaContext ctx) {
-        Integer izq = visit(ctx.expresion(0));
-        Integer der = visit(ctx.expresion(1));
-        return izq + der;
+        return evaluarCadena(ctx);
     }
 
     /**
@@ -108,22 +180,50 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
      */
     @Override
     public Integer visitExpResta(LanguageParser.ExpRestaContext ctx) {
-        Integer izq = visit(ctx.expresion(0));
-        Integer der = visit(ctx.expresion(1));
-        return izq - der;
+        return evaluarCadena(ctx);
+    }
+
+    /**
+     * Evalúa una cadena de sumas y restas sin recursión (ver Expresiones).
+     * La bajada se detiene también en las subexpresiones que el Optimizador ya calculó.
+     */
+    private int evaluarCadena(LanguageParser.ExpresionContext raiz) {
+        LanguageParser.ExpresionContext nodo = raiz;
+        while (Expresiones.esBinaria(nodo) && (nodo == raiz || resolucion.getConstante(nodo) == null)) {
+            nodo = Expresiones.izquierda(nodo);
+        }
+        int valor = evaluar(nodo);
+        while (nodo != raiz) {
+            nodo = (LanguageParser.ExpresionContext) nodo.getParent();
+            int der = evaluar(Expresiones.derecha(nodo));
+            valor = Expresiones.esSuma(nodo) ? valor + der : valor - der;
+        }
+        return valor;
+    }
+
+    /**
+     * Visita una comparación.
+     * ANTLR Rule: expresion: expresion (MENOR | MAYOR | IGUAL_IGUAL) expresion # ExpComparacion
+     *
+     * Acción: Evalúa los operandos y devuelve 1 si la comparación se cumple, 0 si no.
+     */
+    @Override
+    public Integer visitExpComparacion(LanguageParser.ExpComparacionContext ctx) {
+        int izquierda = evaluar(Expresiones.izquierda(ctx));
+        int derecha = evaluar(Expresiones.derecha(ctx));
+        return Expresiones.comparar(ctx, izquierda, derecha);
     }
 
     /**
      * Visita un identificador en una expresión.
      * ANTLR Rule: expresion: ... | ID # ExpId
      *
-     * Acción: Busca la variable en la tabla de símbolos y devuelve su valor actual.
+     * Acción: Lee el valor actual de la variable desde su slot ya resuelto.
      */
     @Override
     public Integer visitExpId(LanguageParser.ExpIdContext ctx) {
-        String nombreVar = ctx.ID().getText();
-        Simbolo simbolo = tablaSimbolos.buscar(nombreVar);
-        return simbolo.getValor();
+        Simbolo simbolo = resolucion.getSimbolo(ctx);
+        return frames[simbolo.getProfundidad()][simbolo.getIndice()];
     }
 
     /**
@@ -147,11 +247,67 @@ public class EjecutorVisitor extends LanguageBaseVisitor<Integer> {
 
     // --- Gestión de Ámbitos ---
 
+    @Override
+    public Integer visitInicio(LanguageParser.InicioContext ctx) {
+        profundidad = 0;
+        frames[0] = new int[resolucion.getTamanoGlobal()];
+        try {
+            visitChildren(ctx);
+        } finally {
+            salida.vaciar(); // Lo ya impreso sale aunque el programa falle.
+        }
+        return 0;
+    }
+
+    /**
+     * Ejecuta una sentencia del nivel superior ya analizada, con las variables
+     * globales que dejaron las anteriores. El frame global crece si la
+     * Resolucion tiene más variables globales que antes. La salida no se vacía.
+     */
+    public void ejecutarSentencia(LanguageParser.SentenciaContext ctx) {
+        profundidad = 0;
+        int tamano = resolucion.getTamanoGlobal();
+        if (frames[0] == null) {
+            frames[0] = new int[Math.max(tamano, 16)];
+        } else if (frames[0].length < tamano) {
+            frames[0] = Arrays.copyOf(frames[0], Math.max(tamano, frames[0].length * 2));
+        }
+        visit(ctx);
+        pesos.clear(); // Sus 'while' no se vuelven a ejecutar.
+    }
+
     @Override
     public Integer visitBloque(LanguageParser.BloqueContext ctx) {
-        tablaSimbolos.abrirAmbito();
+        profundidad++;
+        if (profundidad == frames.length) {
+            frames = Arrays.copyOf(frames, frames.length * 2);
+        }
+        int tamano = resolucion.getTamanoBloque(ctx);
+        if (frames[profundidad] == null || frames[profundidad].length < tamano) {
+            frames[profundidad] = new int[tamano];
+        }
         visitChildren(ctx);
-        tablaSimbolos.cerrarAmbito();
+        profundidad--; // El frame queda para el próximo bloque de esta profundidad.
         return 0;
     }
+
+    /**
+     * @return Cuántas sentencias se ejecutaron (declaraciones, asignaciones, prints, if y
+     *         cada evaluación de la condición de un while).
+     */
+    public long getSentenciasEjecutadas() {
+        return sentencias;
+    }
+
+    /**
+     * Calcula el valor de una expresión, salvo que el Optimizador ya lo conozca.
+     */
+    private int evaluar(LanguageParser.ExpresionContext expresion) {
+        Integer constante = resolucion.getConstante(expresion);
+        return constante != null ? constante : visit(expresion);
+    }
+
+    private void escribir(Simbolo simbolo, int valor) {
+        frames[simbolo.getProfundidad()][simbolo.getIndice()] = valor;
+    }
 }
@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Arma el código de un Bytecode instrucción por instrucción, llevando la
+ * altura de la pila de operandos para dimensionarla antes de ejecutar.
+ *
+ * Lo comparten los dos compiladores: el CompiladorBytecode, que recorre el
+ * árbol de ANTLR, y el CompiladorIR, que recorre un ProgramaIR.
+ */
+final class EmisorBytecode {
+
+    private int[] codigo = new int[64];
+    private int tamano = 0;
+
+    private int pila = 0;
+    private int pilaMaxima = 0;
+
+    /**
+     * @return La posición donde irá la próxima instrucción (el destino de un salto hacia ella).
+     */
+    int posicion() {
+        return tamano;
+    }
+
+    int emitir(int opcode) {
+        return emitir(opcode, 0, 0);
+    }
+
+    int emitir(int opcode, int operando) {
+        return emitir(opcode, operando, 0);
+    }
+
+    /**
+     * Añade una instrucción al final del código.
+     *
+     * @return La posición de la instrucción, para poder parchear su operando.
+     */
+    int emitir(int opcode, int operando, int segundoOperando) {
+        int longitud = Bytecode.longitud(opcode);
+        if (tamano + longitud > codigo.length) {
+            codigo = Arrays.copyOf(codigo, codigo.length * 2);
+        }
+        int posicion = tamano;
+        codigo[tamano++] = opcode;
+        if (longitud >= 2) {
+            codigo[tamano++] = operando;
+        }
+        if (longitud == 3) {
+            codigo[tamano++] = segundoOperando;
+        }
+        actualizarPila(opcode);
+        return posicion;
+    }
+
+    /**
+     * Cambia el destino del salto emitido en 'instruccion'.
+     */
+    void parchear(int instruccion, int destino) {
+        codigo[instruccion + 1] = destino;
+    }
+
+    Bytecode construir(int tamanoFrame) {
+        return new Bytecode(Arrays.copyOf(codigo, tamano), tamanoFrame, pilaMaxima);
+    }
+
+    private void actualizarPila(int opcode) {
+        switch (opcode) {
+            case Bytecode.PUSH:
+            case Bytecode.LOAD:
+                pila++;
+                break;
+            case Bytecode.STORE:
+            case Bytecode.ADD:
+            case Bytecode.SUB:
+            case Bytecode.LT:
+            case Bytecode.GT:
+            case Bytecode.EQ:
+            case Bytecode.JUMP_IF_FALSE:
+            case Bytecode.PRINT:
+                pila--;
+                break;
+            default:
+                break;
+        }
+        pilaMaxima = Math.max(pilaMaxima, pila);
+    }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entrenamiento para el Class Data Sharing de la JVM (AppCDS), para --entrenar-cds.
+ *
+ * Arrancar la JVM y cargar el runtime de ANTLR y nuestras clases cuesta más
+ * que ejecutar un programa chico. Con un archivo CDS la JVM toma esas clases
+ * ya leídas y verificadas de un archivo mapeado en memoria en lugar de
+ * buscarlas en los jars.
+ *
+ * generar() arranca una JVM hija con -XX:ArchiveClassesAtExit y el mismo
+ * classpath, que ejecuta main(): procesa un programa de muestra con cada
+ * motor, lexer y parser, por Main, por el ProcesadorPrograma y por el
+ * ModoFlujo. Al terminar, la JVM hija vuelca al archivo todas las clases que
+ * cargó. Después se usa con:
+ *
+ *   java -XX:SharedArchiveFile=ARCHIVO -cp ... org.example.Main ...
+ *
+ * Al terminar mide el tiempo hasta la primera salida de un programa trivial
+ * con y sin el archivo. Ese arranque ya no incluye AWT, ASM ni JFR (ver
+ * VisorArbol, EjecutorAdaptativo y Metricas), así que lo que queda es sobre
+ * todo cargar clases, que es lo que el archivo ahorra.
+ *
+ * El classpath tiene que ser solo de jars (por ejemplo, el de 'mvn package'
+ * más las dependencias): la JVM no archiva clases de directorios. El archivo
+ * solo sirve para la misma JVM y el mismo classpath con que se generó; si no
+ * coinciden, la JVM lo ignora y arranca como siempre.
+ */
+public final class EntrenadorCds {
+
+    private static final int ARRANQUES = 5;
+
+    private EntrenadorCds() {
+    }
+
+    /**
+     * Genera el archivo CDS con una JVM hija e informa el resultado por System.out.
+     *
+     * @return true si el archivo quedó generado.
+     */
+    public static boolean generar(Path archivo) throws IOException, InterruptedException {
+        Path absoluto = archivo.toAbsolutePath();
+        String classpath = System.getProperty("java.class.path");
+        for (String entrada : classpath.split(File.pathSeparator)) {
+            if (Files.isDirectory(Paths.get(entrada))) {
+                // La JVM no archiva clases de directorios: solo de jars.
+                System.err.println("El classpath tiene un directorio (" + entrada + "), pero CDS solo acepta"
+                        + " jars. Empaquetar con 'mvn package' y usar target/*.jar.");
+                return false;
+            }
+        }
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Path registro = Files.createTempFile("entrenamiento-cds", ".log");
+        try {
+            Files.deleteIfExists(absoluto);
+            Process proceso = new ProcessBuilder(java.toString(), "-XX:ArchiveClassesAtExit=" + absoluto,
+                    "-cp", classpath, EntrenadorCds.class.getName())
+                    .redirectErrorStream(true)
+                    .redirectOutput(registro.toFile())
+                    .start();
+            int codigo = proceso.waitFor();
+            if (codigo != 0 || !Files.exists(absoluto)) {
+                System.err.println("No se pudo generar el archivo CDS (código " + codigo + "):");
+                Files.copy(registro, System.err);
+                return false;
+            }
+        } finally {
+            Files.deleteIfExists(registro);
+        }
+        System.out.println("Archivo CDS generado: " + absoluto + " (" + (Files.size(absoluto) >> 10) + " KB).");
+        medirArranque(java, classpath, absoluto);
+        System.out.println("Usar con: " + java + " -XX:SharedArchiveFile=" + absoluto + " -cp " + classpath
+                + " " + Main.class.getName() + " ...");
+        return true;
+    }
+
+    /**
+     * Mide el tiempo hasta la primera salida de un 'print(1);' con y sin el
+     * archivo, que es lo que el archivo tiene que mejorar. Toma el mejor de
+     * varios arranques de cada uno.
+     */
+    private static void medirArranque(Path java, String classpath, Path archivo)
+            throws IOException, InterruptedException {
+        Path programa = Files.createTempFile("arranque-cds", ".lang");
+        try {
+            Files.writeString(programa, "print(1);\n", StandardCharsets.UTF_8);
+            long sin = Long.MAX_VALUE;
+            long con = Long.MAX_VALUE;
+            for (int i = 0; i < ARRANQUES; i++) {
+                sin = Math.min(sin, arrancar(java.toString(), "-Xshare:auto", classpath, programa));
+                con = Math.min(con, arrancar(java.toString(), "-XX:SharedArchiveFile=" + archivo, classpath, programa));
+            }
+            System.out.println("Primera salida de print(1);: " + sin / 1_000_000 + " ms sin el archivo, "
+                    + con / 1_000_000 + " ms con el archivo.");
+        } finally {
+            Files.deleteIfExists(programa);
+        }
+    }
+
+    /**
+     * @return Los nanosegundos hasta que Main imprime el 1 del programa.
+     */
+    private static long arrancar(String java, String opcionCds, String classpath, Path programa)
+            throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(java, opcionCds, "-cp", classpath, Main.class.getName(), "--sin-eco",
+                programa.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        long primeraSalida = -1;
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (primeraSalida < 0 && linea.equals("1")) {
+                    primeraSalida = System.nanoTime() - inicio;
+                }
+            }
+        }
+        proceso.waitFor();
+        return primeraSalida < 0 ? Long.MAX_VALUE : primeraSalida;
+    }
+
+    /**
+     * La carga de trabajo de la JVM hija. Todo lo que imprime se descarta.
+     */
+    public static void main(String[] args) throws Exception {
+        String muestra = new GeneradorProgramas(200, 3, 4, 4, 1).generar();
+        Path archivo = Files.createTempFile("entrenamiento-cds", ".lang");
+        PrintStream salida = System.out;
+        PrintStream errores = System.err;
+        PrintStream descarte = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+        try {
+            Files.writeString(archivo, muestra, StandardCharsets.UTF_8);
+            System.setOut(descarte);
+            System.setErr(descarte);
+
+            // El camino de Main interactivo, que es el que más importa que arranque rápido.
+            for (String motor : new String[]{"visitor", "vm", "jit"}) {
+                Main.main(new String[]{"--motor=" + motor, archivo.toString()});
+            }
+            Main.main(new String[]{"--optimizar", "--metricas", "--lexer=rapido", archivo.toString()});
+
+            List<String[]> combinaciones = new ArrayList<>();
+            combinaciones.add(new String[]{});
+            combinaciones.add(new String[]{"--optimizar"});
+            combinaciones.add(new String[]{"--parseo=ll", "--metricas"});
+            combinaciones.add(new String[]{"--motor=vm", "--ir"});
+            combinaciones.add(new String[]{"--motor=vm", "--lexer=rapido", "--parser=rapido"});
+            combinaciones.add(new String[]{"--motor=jit", "--max-pasos=1000000", "--max-salida=1000000"});
+            for (String[] argumentos : combinaciones) {
+                ProcesadorPrograma procesador = new ProcesadorPrograma(Opciones.parsear(argumentos));
+                procesador.procesar("muestra.lang", muestra);
+                procesador.procesar("error-semantico.lang", "int a = 1; print(b);");
+                procesador.procesar("error-sintactico.lang", "int a = ;");
+            }
+
+            new ModoFlujo(Opciones.parsear(new String[]{})).ejecutar(
+                    Channels.newChannel(new ByteArrayInputStream(muestra.getBytes(StandardCharsets.ISO_8859_1))),
+                    "muestra.lang", new SalidaBuffer(descarte), descarte);
+        } finally {
+            System.setOut(salida);
+            System.setErr(errores);
+            Files.deleteIfExists(archivo);
+        }
+    }
+}
@@ -16,6 +16,25 @@ public class ErrorSemantico {
         this.columna = token.getCharPositionInLine();
     }
 
+    // Para reconstruir errores ya reportados (por ejemplo, desde la CacheProgramas).
+    public ErrorSemantico(String mensaje, int linea, int columna) {
+        this.mensaje = mensaje;
+        this.linea = linea;
+        this.columna = columna;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public int getLinea() {
+        return linea;
+    }
+
+    public int getColumna() {
+        return columna;
+    }
+
     @Override
     public String toString() {
         return "Error Semántico en línea " + linea + ":" + columna + " -> " + mensaje;
@@ -0,0 +1,26 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder con la duración de una fase del pipeline
+ * (léxico, sintáctico, semántico, optimización, compilación o ejecución).
+ *
+ * @see Metricas
+ */
+@Name("org.example.Fase")
+@Label("Fase del compilador")
+@Category("Compilador")
+@Description("Duración de una fase del pipeline para un programa")
+class EventoFase extends Event {
+
+    @Label("Programa")
+    String programa;
+
+    @Label("Fase")
+    String fase;
+}
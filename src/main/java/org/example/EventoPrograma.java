@@ -0,0 +1,44 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder con los contadores de un programa completo.
+ * Los contadores que no se pudieron medir valen -1.
+ *
+ * @see Metricas
+ */
+@Name("org.example.Programa")
+@Label("Programa procesado")
+@Category("Compilador")
+@Description("Contadores del front end y de la ejecución de un programa")
+class EventoPrograma extends Event {
+
+    @Label("Programa")
+    String programa;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Nodos del árbol")
+    long nodos;
+
+    @Label("Búsquedas de símbolos")
+    long busquedas;
+
+    @Label("Búsquedas fallidas")
+    long fallosBusqueda;
+
+    @Label("Profundidad máxima de ámbitos")
+    int profundidadMaxima;
+
+    @Label("Sentencias ejecutadas")
+    long sentenciasEjecutadas;
+
+    @Label("Prints")
+    long prints;
+}
@@ -0,0 +1,301 @@
+package org.example;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+
+/**
+ * Exporta un árbol sintáctico o un ProgramaIR a Graphviz DOT o a JSON, para
+ * --exportar. Es la alternativa al VisorArbol para programas grandes y para
+ * servidores sin pantalla.
+ *
+ * El recorrido es en preorden y sin recursión, con una pila de marcos, así
+ * que las cadenas de sumas de miles de niveles no desbordan la pila. Cada
+ * nodo se escribe en el Writer apenas se visita: en memoria solo está el
+ * camino desde la raíz, nunca el texto completo.
+ *
+ * Se puede limitar la profundidad y la cantidad total de nodos. Los hijos que
+ * quedan afuera por un límite no se visitan; cada nodo informa cuántos hijos
+ * directos se omitieron (en DOT, con un nodo punteado; en JSON, con el campo
+ * "omitidos"). Para exportar solo una parte, buscarSentencia() encuentra la
+ * sentencia de una línea y se exporta desde ahí.
+ *
+ * Los dos tipos de árbol se recorren igual a través de Nodos.
+ */
+public class ExportadorArbol {
+
+    public enum Formato { DOT, JSON }
+
+    /**
+     * Lo que el exportador necesita saber de los nodos de un tipo de árbol.
+     */
+    public interface Nodos<N> {
+        String etiqueta(N nodo);
+
+        int linea(N nodo);
+
+        int cantidadHijos(N nodo);
+
+        N hijo(N nodo, int i);
+
+        /**
+         * @return true si el nodo es una sentencia (para buscarSentencia()).
+         */
+        boolean esSentencia(N nodo);
+    }
+
+    /**
+     * Los nodos del árbol de ANTLR. Las reglas se muestran con su nombre y, si
+     * son una alternativa con etiqueta, con la etiqueta (por ejemplo, "expresion#ExpSuma").
+     */
+    public static final Nodos<ParseTree> ARBOL = new Nodos<ParseTree>() {
+        @Override
+        public String etiqueta(ParseTree nodo) {
+            if (nodo instanceof TerminalNode) {
+                return nodo.getText();
+            }
+            ParserRuleContext regla = (ParserRuleContext) nodo;
+            String nombre = LanguageParser.ruleNames[regla.getRuleIndex()];
+            String clase = regla.getClass().getSimpleName();
+            clase = clase.substring(0, clase.length() - "Context".length());
+            return clase.equalsIgnoreCase(nombre) ? nombre : nombre + "#" + clase;
+        }
+
+        @Override
+        public int linea(ParseTree nodo) {
+            return nodo instanceof TerminalNode ? ((TerminalNode) nodo).getSymbol().getLine()
+                    : ((ParserRuleContext) nodo).getStart().getLine();
+        }
+
+        @Override
+        public int cantidadHijos(ParseTree nodo) {
+            return nodo.getChildCount();
+        }
+
+        @Override
+        public ParseTree hijo(ParseTree nodo, int i) {
+            return nodo.getChild(i);
+        }
+
+        @Override
+        public boolean esSentencia(ParseTree nodo) {
+            return nodo instanceof LanguageParser.SentenciaContext;
+        }
+    };
+
+    /**
+     * @return Los nodos de un ProgramaIR, identificados por su índice en la arena.
+     */
+    public static Nodos<Integer> nodos(ProgramaIR ir) {
+        return new Nodos<Integer>() {
+            @Override
+            public String etiqueta(Integer nodo) {
+                byte clase = ir.clase(nodo);
+                switch (clase) {
+                    case ProgramaIR.PROGRAMA:
+                        return "programa";
+                    case ProgramaIR.BLOQUE:
+                        return "bloque";
+                    case ProgramaIR.DECLARACION:
+                        return "declaracion";
+                    case ProgramaIR.ASIGNACION:
+                        return "asignacion";
+                    case ProgramaIR.PRINT:
+                        return "print";
+                    case ProgramaIR.IF:
+                        return "if";
+                    case ProgramaIR.WHILE:
+                        return "while";
+                    case ProgramaIR.NOMBRE:
+                    case ProgramaIR.ID:
+                        return ir.nombre(ir.a(nodo));
+                    case ProgramaIR.NUM:
+                        return ir.b(nodo) == 1 ? ir.nombre(ir.a(nodo)) : Integer.toString(ir.a(nodo));
+                    case ProgramaIR.BOOLEAN:
+                        return ir.a(nodo) == 1 ? "true" : "false";
+                    default:
+                        return ProgramaIR.operador(clase);
+                }
+            }
+
+            @Override
+            public int linea(Integer nodo) {
+                return ir.linea(nodo);
+            }
+
+            @Override
+            public int cantidadHijos(Integer nodo) {
+                byte clase = ir.clase(nodo);
+                switch (clase) {
+                    case ProgramaIR.PROGRAMA:
+                    case ProgramaIR.BLOQUE:
+                        return ir.b(nodo);
+                    case ProgramaIR.PRINT:
+                        return 1;
+                    case ProgramaIR.DECLARACION:
+                    case ProgramaIR.ASIGNACION:
+                    case ProgramaIR.IF:
+                    case ProgramaIR.WHILE:
+                        return 2;
+                    default:
+                        return ProgramaIR.esBinaria(clase) ? 2 : 0;
+                }
+            }
+
+            @Override
+            public Integer hijo(Integer nodo, int i) {
+                byte clase = ir.clase(nodo);
+                if (clase == ProgramaIR.PROGRAMA || clase == ProgramaIR.BLOQUE) {
+                    return ir.sentencia(nodo, i);
+                }
+                return i == 0 ? ir.a(nodo) : ir.b(nodo);
+            }
+
+            @Override
+            public boolean esSentencia(Integer nodo) {
+                byte clase = ir.clase(nodo);
+                return clase >= ProgramaIR.DECLARACION && clase <= ProgramaIR.WHILE;
+            }
+        };
+    }
+
+    private final Formato formato;
+    private final int profundidadMaxima;
+    private final long nodosMaximos;
+
+    /**
+     * @param profundidadMaxima Profundidad del nodo más hondo que se escribe (la raíz tiene 0).
+     * @param nodosMaximos      Cantidad máxima de nodos que se escriben.
+     */
+    public ExportadorArbol(Formato formato, int profundidadMaxima, long nodosMaximos) {
+        this.formato = formato;
+        this.profundidadMaxima = profundidadMaxima;
+        this.nodosMaximos = nodosMaximos;
+    }
+
+    /**
+     * @return La primera sentencia, en preorden, que empieza en esa línea, o null si no hay ninguna.
+     */
+    public static <N> N buscarSentencia(Nodos<N> nodos, N raiz, int linea) {
+        ArrayDeque<N> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            N nodo = pendientes.pop();
+            if (nodos.esSentencia(nodo) && nodos.linea(nodo) == linea) {
+                return nodo;
+            }
+            for (int i = nodos.cantidadHijos(nodo) - 1; i >= 0; i--) {
+                pendientes.push(nodos.hijo(nodo, i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Escribe el árbol que cuelga de 'raiz'. No vacía ni cierra el Writer.
+     *
+     * @param nombre El nombre del grafo en DOT o del campo "programa" en JSON.
+     * @return Cuántos nodos se escribieron.
+     */
+    public <N> long exportar(Nodos<N> nodos, N raiz, String nombre, Writer salida) throws IOException {
+        if (formato == Formato.DOT) {
+            salida.write("digraph \"" + escapar(nombre) + "\" {\n  node [shape=box, fontname=\"monospace\"];\n");
+        } else {
+            salida.write("{\"programa\":\"" + escapar(nombre) + "\",\"arbol\":");
+        }
+
+        ArrayDeque<Marco<N>> pila = new ArrayDeque<>();
+        long escritos = 0;
+        pila.push(abrir(nodos, raiz, 0, escritos++, null, salida));
+        while (!pila.isEmpty()) {
+            Marco<N> marco = pila.peek();
+            if (marco.siguiente < marco.hijos && marco.profundidad < profundidadMaxima && escritos < nodosMaximos) {
+                N hijo = nodos.hijo(marco.nodo, marco.siguiente++);
+                pila.push(abrir(nodos, hijo, marco.profundidad + 1, escritos++, marco, salida));
+            } else {
+                cerrar(marco, marco.hijos - marco.siguiente, salida);
+                pila.pop();
+            }
+        }
+
+        salida.write("}\n");
+        return escritos;
+    }
+
+    private <N> Marco<N> abrir(Nodos<N> nodos, N nodo, int profundidad, long id, Marco<N> padre, Writer salida)
+            throws IOException {
+        String etiqueta = escapar(nodos.etiqueta(nodo));
+        int linea = nodos.linea(nodo);
+        if (formato == Formato.DOT) {
+            salida.write("  n" + id + " [label=\"" + etiqueta + "\\nlínea " + linea + "\"];\n");
+            if (padre != null) {
+                salida.write("  n" + padre.id + " -> n" + id + ";\n");
+            }
+        } else {
+            if (padre != null && padre.siguiente > 1) {
+                salida.write(',');
+            }
+            salida.write("\n{\"etiqueta\":\"" + etiqueta + "\",\"linea\":" + linea + ",\"hijos\":[");
+        }
+        return new Marco<>(nodo, profundidad, id, nodos.cantidadHijos(nodo));
+    }
+
+    private void cerrar(Marco<?> marco, int omitidos, Writer salida) throws IOException {
+        if (formato == Formato.DOT) {
+            if (omitidos > 0) {
+                salida.write("  n" + marco.id + "_omitidos [label=\"" + omitidos + " más\", style=dashed];\n");
+                salida.write("  n" + marco.id + " -> n" + marco.id + "_omitidos [style=dashed];\n");
+            }
+        } else {
+            salida.write(omitidos > 0 ? "],\"omitidos\":" + omitidos + "}" : "]}");
+        }
+    }
+
+    /**
+     * Escapa un texto para ponerlo entre comillas dobles. DOT no tiene escapes
+     * para los caracteres de control, así que ahí se cambian por espacios.
+     */
+    private String escapar(String texto) {
+        StringBuilder resultado = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (resultado == null) {
+                    resultado = new StringBuilder(texto.length() + 8).append(texto, 0, i);
+                }
+                if (c == '"' || c == '\\') {
+                    resultado.append('\\').append(c);
+                } else if (formato == Formato.JSON) {
+                    resultado.append(String.format("\\u%04x", (int) c));
+                } else {
+                    resultado.append(' ');
+                }
+            } else if (resultado != null) {
+                resultado.append(c);
+            }
+        }
+        return resultado == null ? texto : resultado.toString();
+    }
+
+    /**
+     * Un nodo del camino desde la raíz, con el próximo hijo por visitar.
+     */
+    private static final class Marco<N> {
+        final N nodo;
+        final int profundidad;
+        final long id;
+        final int hijos;
+        int siguiente = 0;
+
+        Marco(N nodo, int profundidad, long id, int hijos) {
+            this.nodo = nodo;
+            this.profundidad = profundidad;
+            this.id = id;
+            this.hijos = hijos;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Utilidades para recorrer las expresiones binarias (ExpSuma y ExpResta) sin recursión.
+ *
+ * Una cadena como 'a + b + c + ... + z' produce un árbol inclinado a la
+ * izquierda con un nivel por operador. Recorrerlo con visitas recursivas
+ * desborda la pila en cadenas largas, así que las pasadas bajan por la rama
+ * izquierda con un bucle hasta la primera hoja y vuelven a subir con getParent(),
+ * visitando en cada nivel solo el operando derecho. El orden de visita es el
+ * mismo que el del recorrido recursivo (izquierda, derecha, operador).
+ */
+public final class Expresiones {
+
+    private Expresiones() {
+    }
+
+    public static boolean esBinaria(LanguageParser.ExpresionContext expresion) {
+        return expresion instanceof LanguageParser.ExpSumaContext
+                || expresion instanceof LanguageParser.ExpRestaContext;
+    }
+
+    public static boolean esSuma(LanguageParser.ExpresionContext expresion) {
+        return expresion instanceof LanguageParser.ExpSumaContext;
+    }
+
+    /**
+     * @return true si es una comparación ('<', '>' o '=='). No forma parte de las
+     *         cadenas: sus operandos se recorren como expresiones separadas.
+     */
+    public static boolean esComparacion(LanguageParser.ExpresionContext expresion) {
+        return expresion instanceof LanguageParser.ExpComparacionContext;
+    }
+
+    /**
+     * Aplica el operador de una comparación a dos valores ya calculados.
+     *
+     * @return 1 si la comparación es verdadera, 0 si no.
+     */
+    public static int comparar(LanguageParser.ExpComparacionContext comparacion, int izquierda, int derecha) {
+        switch (operador(comparacion).getType()) {
+            case LanguageLexer.MENOR:
+                return izquierda < derecha ? 1 : 0;
+            case LanguageLexer.MAYOR:
+                return izquierda > derecha ? 1 : 0;
+            default:
+                return izquierda == derecha ? 1 : 0;
+        }
+    }
+
+    /**
+     * @return El operando izquierdo de una expresión binaria.
+     */
+    public static LanguageParser.ExpresionContext izquierda(LanguageParser.ExpresionContext binaria) {
+        return (LanguageParser.ExpresionContext) binaria.getChild(0);
+    }
+
+    /**
+     * @return El operando derecho de una expresión binaria.
+     */
+    public static LanguageParser.ExpresionContext derecha(LanguageParser.ExpresionContext binaria) {
+        return (LanguageParser.ExpresionContext) binaria.getChild(2);
+    }
+
+    /**
+     * @return El token del operador ('+', '-' o el de una comparación) de una expresión binaria.
+     */
+    public static Token operador(LanguageParser.ExpresionContext binaria) {
+        return ((TerminalNode) binaria.getChild(1)).getSymbol();
+    }
+
+    /**
+     * Baja por la rama izquierda mientras encuentre expresiones binarias.
+     *
+     * @return La primera expresión no binaria (o la propia raíz si no es binaria).
+     */
+    public static LanguageParser.ExpresionContext hojaIzquierda(LanguageParser.ExpresionContext raiz) {
+        LanguageParser.ExpresionContext nodo = raiz;
+        while (esBinaria(nodo)) {
+            nodo = izquierda(nodo);
+        }
+        return nodo;
+    }
+
+    /**
+     * Devuelve el texto fuente de la expresión (con sus espacios) sin recorrer
+     * el árbol, recortado a 'maximo' caracteres. Sirve igual para cualquier
+     * otra regla, como una sentencia.
+     */
+    public static String texto(ParserRuleContext expresion, int maximo) {
+        int inicio = expresion.getStart().getStartIndex();
+        int fin = expresion.getStop().getStopIndex();
+        String texto = expresion.getStart().getInputStream()
+                .getText(Interval.of(inicio, Math.min(fin, inicio + maximo - 1)));
+        return fin - inicio + 1 > maximo ? texto + "..." : texto;
+    }
+}
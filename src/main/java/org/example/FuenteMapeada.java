@@ -0,0 +1,144 @@
+package org.example;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Código fuente leído una sola vez mediante un archivo mapeado en memoria
+ * (FileChannel.map), que se entrega al LanguageLexer como CharStream.
+ *
+ * Como el lenguaje es ASCII puro, cada byte es un carácter y el lexer lee
+ * directamente del mapeo: el archivo no se copia al heap (ni como byte[], ni
+ * como String, ni como int[] de code points). Solo se crean Strings para el
+ * texto de los tokens que se piden. Cualquier byte fuera de ASCII se entrega
+ * tal cual (como Latin-1) y el lexer lo reporta como carácter inválido.
+ *
+ * El mismo mapeo sirve para el eco del código con escribir(), sin cargarlo entero.
+ */
+public final class FuenteMapeada implements CharStream {
+
+    private static final int BLOQUE_ECO = 1 << 16;
+
+    private final ByteBuffer datos;
+    private final int tamano;
+    private final String nombre;
+    private int posicion = 0;
+
+    public FuenteMapeada(ByteBuffer datos, String nombre) {
+        this.datos = datos;
+        this.tamano = datos.limit();
+        this.nombre = nombre;
+    }
+
+    /**
+     * Mapea un archivo completo en modo solo lectura. El canal se cierra enseguida;
+     * el mapeo sigue siendo válido hasta que el GC recoja esta fuente.
+     *
+     * @throws IOException Si no se puede leer o si supera los 2 GB que admite un mapeo.
+     */
+    public static FuenteMapeada abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano > Integer.MAX_VALUE) {
+                throw new IOException("El archivo " + ruta + " supera los 2 GB.");
+            }
+            return new FuenteMapeada(canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano), ruta.toString());
+        }
+    }
+
+    /**
+     * @return Los bytes del código fuente, en un buffer de solo lectura independiente de esta fuente.
+     */
+    public ByteBuffer getDatos() {
+        return datos.asReadOnlyBuffer().position(0);
+    }
+
+    /**
+     * Escribe el código fuente completo en 'destino', por bloques.
+     */
+    public void escribir(OutputStream destino) throws IOException {
+        byte[] bloque = new byte[Math.min(BLOQUE_ECO, Math.max(tamano, 1))];
+        for (int inicio = 0; inicio < tamano; inicio += bloque.length) {
+            int longitud = Math.min(bloque.length, tamano - inicio);
+            datos.get(inicio, bloque, 0, longitud);
+            destino.write(bloque, 0, longitud);
+        }
+    }
+
+    // --- CharStream ---
+
+    @Override
+    public void consume() {
+        if (posicion >= tamano) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        posicion++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            return 0; // Indefinido.
+        }
+        int indice = i > 0 ? posicion + i - 1 : posicion + i;
+        if (indice < 0 || indice >= tamano) {
+            return IntStream.EOF;
+        }
+        return datos.get(indice) & 0xFF;
+    }
+
+    @Override
+    public int mark() {
+        return -1; // Todo el archivo está siempre disponible.
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return posicion;
+    }
+
+    @Override
+    public void seek(int index) {
+        posicion = index;
+    }
+
+    @Override
+    public int size() {
+        return tamano;
+    }
+
+    @Override
+    public String getSourceName() {
+        return nombre == null || nombre.isEmpty() ? IntStream.UNKNOWN_SOURCE_NAME : nombre;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int inicio = Math.max(interval.a, 0);
+        int fin = Math.min(interval.b, tamano - 1);
+        if (inicio > fin) {
+            return "";
+        }
+        byte[] texto = new byte[fin - inicio + 1];
+        datos.get(inicio, texto);
+        return new String(texto, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, tamano - 1));
+    }
+}
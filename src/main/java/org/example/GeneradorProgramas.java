@@ -0,0 +1,174 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genera programas sintéticos válidos (sin errores semánticos) para medir el
+ * rendimiento del compilador con tamaños controlados.
+ *
+ * Los parámetros son la cantidad total de sentencias, la profundidad máxima de
+ * los bloques 'if' anidados, las variables declaradas al inicio de cada ámbito
+ * y la cantidad de operandos de cada cadena de sumas y restas. Con la misma
+ * semilla se genera siempre el mismo programa.
+ *
+ * Uso: GeneradorProgramas [--sentencias=N] [--profundidad=N] [--variables=N]
+ *                         [--cadena=N] [--semilla=N] [archivo]
+ *
+ * Sin archivo, el programa se escribe en la salida estándar.
+ */
+public class GeneradorProgramas {
+
+    private static final int SENTENCIAS_POR_BLOQUE = 10; // Además de las declaraciones.
+
+    private final int sentencias;
+    private final int profundidad;
+    private final int variablesPorAmbito;
+    private final int largoCadena;
+    private final long semilla;
+
+    private SplittableRandom aleatorio;
+    private StringBuilder texto;
+    private List<String> visibles;
+    private int restantes;
+    private int declaradas;
+
+    public GeneradorProgramas(int sentencias, int profundidad, int variablesPorAmbito, int largoCadena, long semilla) {
+        if (sentencias < 0 || profundidad < 0 || variablesPorAmbito < 1 || largoCadena < 1) {
+            throw new IllegalArgumentException("Parámetros inválidos para el generador");
+        }
+        this.sentencias = sentencias;
+        this.profundidad = profundidad;
+        this.variablesPorAmbito = variablesPorAmbito;
+        this.largoCadena = largoCadena;
+        this.semilla = semilla;
+    }
+
+    /**
+     * @return El texto del programa generado.
+     */
+    public String generar() {
+        aleatorio = new SplittableRandom(semilla);
+        texto = new StringBuilder(sentencias * (16 + 6 * largoCadena));
+        visibles = new ArrayList<>();
+        restantes = sentencias;
+        declaradas = 0;
+        generarAmbito(0, Integer.MAX_VALUE);
+        return texto.toString();
+    }
+
+    /**
+     * Genera las sentencias de un ámbito: primero sus declaraciones y luego
+     * asignaciones, prints y bloques 'if' hasta agotar la cuota del ámbito.
+     */
+    private void generarAmbito(int nivel, int cuota) {
+        int visiblesAlEntrar = visibles.size();
+        int generadas = 0;
+        for (int i = 0; i < variablesPorAmbito && restantes > 0; i++, generadas++) {
+            String nombre = nombre(declaradas++);
+            sangria(nivel).append("int ").append(nombre).append(" = ");
+            expresion();
+            texto.append(";\n");
+            visibles.add(nombre);
+            restantes--;
+        }
+        while (restantes > 0 && generadas < cuota) {
+            restantes--;
+            generadas++;
+            int eleccion = aleatorio.nextInt(10);
+            if (nivel < profundidad && eleccion == 0) {
+                // Casi siempre verdadero, para que la ejecución recorra el bloque.
+                sangria(nivel).append(aleatorio.nextInt(5) == 0 ? "if (false) {\n" : "if (true) {\n");
+                generarAmbito(nivel + 1, variablesPorAmbito + SENTENCIAS_POR_BLOQUE);
+                sangria(nivel).append("}\n");
+            } else if (eleccion == 1) {
+                sangria(nivel).append("print(");
+                expresion();
+                texto.append(");\n");
+            } else {
+                sangria(nivel).append(visibles.get(aleatorio.nextInt(visibles.size()))).append(" = ");
+                expresion();
+                texto.append(";\n");
+            }
+        }
+        visibles.subList(visiblesAlEntrar, visibles.size()).clear();
+    }
+
+    private void expresion() {
+        operando();
+        for (int i = 1; i < largoCadena; i++) {
+            texto.append(aleatorio.nextBoolean() ? " + " : " - ");
+            operando();
+        }
+    }
+
+    private void operando() {
+        if (visibles.isEmpty() || aleatorio.nextInt(3) == 0) {
+            texto.append(aleatorio.nextInt(100));
+        } else {
+            texto.append(visibles.get(aleatorio.nextInt(visibles.size())));
+        }
+    }
+
+    private StringBuilder sangria(int nivel) {
+        for (int i = 0; i < nivel; i++) {
+            texto.append("  ");
+        }
+        return texto;
+    }
+
+    /**
+     * Nombres únicos en todo el programa: 'v' seguido del número en base 26 con
+     * letras, así nunca coinciden con una palabra reservada.
+     */
+    private static String nombre(int numero) {
+        StringBuilder nombre = new StringBuilder("v");
+        do {
+            nombre.append((char) ('a' + numero % 26));
+            numero /= 26;
+        } while (numero > 0);
+        return nombre.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int sentencias = 1000;
+        int profundidad = 3;
+        int variables = 4;
+        int cadena = 3;
+        long semilla = 42;
+        String archivo = null;
+        for (String arg : args) {
+            String valor = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--sentencias=")) {
+                sentencias = Integer.parseInt(valor);
+            } else if (arg.startsWith("--profundidad=")) {
+                profundidad = Integer.parseInt(valor);
+            } else if (arg.startsWith("--variables=")) {
+                variables = Integer.parseInt(valor);
+            } else if (arg.startsWith("--cadena=")) {
+                cadena = Integer.parseInt(valor);
+            } else if (arg.startsWith("--semilla=")) {
+                semilla = Long.parseLong(valor);
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Opción desconocida: " + arg);
+            } else {
+                archivo = arg;
+            }
+        }
+
+        String programa = new GeneradorProgramas(sentencias, profundidad, variables, cadena, semilla).generar();
+        if (archivo == null) {
+            PrintStream salida = new PrintStream(System.out, false, StandardCharsets.US_ASCII);
+            salida.print(programa);
+            salida.flush();
+        } else {
+            Files.writeString(Paths.get(archivo), programa, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Corta un canal de bytes en sentencias del nivel superior, sin esperar a
+ * que termine la entrada: cada sentencia se entrega en cuanto llega su último
+ * byte, sin leer nada más allá.
+ *
+ * El corte es exacto porque el lenguaje no tiene cadenas ni comentarios: una
+ * sentencia del nivel superior termina en el primer ';' fuera de toda llave o
+ * en la '}' que cierra su bloque. Lo que haya entre medio (aunque tenga
+ * errores) queda dentro de la sentencia, y el parser los reporta después.
+ *
+ * Solo se guarda la sentencia actual, así que la memoria depende de la
+ * sentencia más larga y no del largo de la entrada. Los bytes se leen como
+ * Latin-1, igual que en FuenteMapeada.
+ */
+public final class LectorSentencias {
+
+    private final ReadableByteChannel canal;
+    private final Runnable antesDeEsperar;
+    private final ByteBuffer lectura = ByteBuffer.allocate(1 << 16);
+
+    private byte[] sentencia = new byte[256];
+    private int largo;
+    private boolean fin = false;
+
+    // Posición (como la cuenta el lexer) del próximo byte y del inicio de la última sentencia.
+    private int linea = 1;
+    private int columna = 0;
+    private int lineaSentencia;
+    private int columnaSentencia;
+
+    /**
+     * @param antesDeEsperar Se ejecuta antes de cada lectura del canal, que puede bloquear (por
+     *                       ejemplo, para vaciar la salida mientras no llega más entrada).
+     */
+    public LectorSentencias(ReadableByteChannel canal, Runnable antesDeEsperar) {
+        this.canal = canal;
+        this.antesDeEsperar = antesDeEsperar;
+        lectura.flip(); // Vacío.
+    }
+
+    /**
+     * @return El texto de la próxima sentencia, o null si la entrada terminó. El
+     *         último texto puede no ser una sentencia completa si la entrada se corta.
+     */
+    public String siguiente() throws IOException {
+        largo = 0;
+        int profundidad = 0;
+        while (true) {
+            if (!lectura.hasRemaining() && !llenar()) {
+                return largo > 0 ? texto() : null;
+            }
+            byte b = lectura.get();
+            if (largo == 0 && (b == ' ' || b == '\t' || b == '\r' || b == '\n')) {
+                avanzar(b);
+                continue;
+            }
+            if (largo == 0) {
+                lineaSentencia = linea;
+                columnaSentencia = columna;
+            }
+            if (largo == sentencia.length) {
+                sentencia = Arrays.copyOf(sentencia, largo * 2);
+            }
+            sentencia[largo++] = b;
+            avanzar(b);
+            if (b == '{') {
+                profundidad++;
+            } else if ((b == '}' && --profundidad <= 0) || (b == ';' && profundidad <= 0)) {
+                return texto();
+            }
+        }
+    }
+
+    /**
+     * @return La línea donde empieza la última sentencia.
+     */
+    public int getLinea() {
+        return lineaSentencia;
+    }
+
+    /**
+     * @return La columna donde empieza la última sentencia.
+     */
+    public int getColumna() {
+        return columnaSentencia;
+    }
+
+    private boolean llenar() throws IOException {
+        if (fin) {
+            return false;
+        }
+        antesDeEsperar.run();
+        lectura.clear();
+        int leidos;
+        do {
+            leidos = canal.read(lectura);
+        } while (leidos == 0);
+        lectura.flip();
+        fin = leidos < 0;
+        return !fin;
+    }
+
+    private void avanzar(byte b) {
+        if (b == '\n') {
+            linea++;
+            columna = 0;
+        } else {
+            columna++;
+        }
+    }
+
+    private String texto() {
+        return new String(sentencia, 0, largo, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,242 @@
+package org.example;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lexer escrito a mano para los tokens de Language.g4, que reemplaza al
+ * LanguageLexer generado: implementa TokenSource y produce los mismos tokens
+ * (tipo, posiciones, línea y columna) y los mismos errores, así que el
+ * LanguageParser no nota la diferencia.
+ *
+ * Los tokens del lenguaje son pocos y fijos (palabras clave, [a-z]+, [0-9]+ y
+ * signos de uno o dos caracteres), así que alcanza con un switch sobre el
+ * carácter actual en lugar del autómata del ATN. Con una FuenteMapeada lee los
+ * bytes directamente del mapeo; con cualquier otro CharStream, con LA().
+ *
+ * Los tokens no guardan su texto: lo leen de la fuente cuando se pide, igual
+ * que los del LanguageLexer. Un carácter que no empieza ningún token se
+ * reporta como "token recognition error" y se salta, como hace ANTLR.
+ *
+ * Se elige con --lexer=rapido (ver AnalizadorSintactico). ComparacionLexers,
+ * en src/test/java, lo compara con el LanguageLexer sobre entradas aleatorias.
+ */
+public final class LexerRapido implements TokenSource {
+
+    private final CharStream entrada;
+    private final ByteBuffer datos; // null si la entrada no es una FuenteMapeada.
+    private final int tamano;
+    private final ANTLRErrorListener errores;
+    private final Pair<TokenSource, CharStream> origen;
+    private TokenFactory<?> fabrica = CommonTokenFactory.DEFAULT;
+
+    private int posicion = 0;
+    private int linea;
+    private int columna;
+
+    /**
+     * @param errores Recibe los caracteres inválidos, con el formato de ANTLR.
+     */
+    public LexerRapido(CharStream entrada, ANTLRErrorListener errores) {
+        this(entrada, errores, 1, 0);
+    }
+
+    /**
+     * @param linea   La línea del primer carácter, si la entrada es un trozo de un fuente más grande.
+     * @param columna Su columna.
+     */
+    public LexerRapido(CharStream entrada, ANTLRErrorListener errores, int linea, int columna) {
+        this.linea = linea;
+        this.columna = columna;
+        this.entrada = entrada;
+        this.datos = entrada instanceof FuenteMapeada ? ((FuenteMapeada) entrada).getDatos() : null;
+        this.tamano = entrada.size();
+        this.errores = errores;
+        this.origen = new Pair<>(this, entrada);
+        entrada.seek(0); // Sin mapeo, el carácter i es LA(i + 1).
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            // Espacios: WS: [ \t\r\n]+ -> skip
+            int c = caracter(posicion);
+            while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                avanzar(c);
+                c = caracter(posicion);
+            }
+            if (c == IntStream.EOF) {
+                return crear(Token.EOF, posicion, posicion - 1, linea, columna);
+            }
+
+            int inicio = posicion;
+            int lineaInicio = linea;
+            int columnaInicio = columna;
+            int tipo = simbolo(c);
+            if (tipo != 0) {
+                posicion++;
+                columna++;
+                if (tipo == LanguageLexer.IGUAL && caracter(posicion) == '=') {
+                    tipo = LanguageLexer.IGUAL_IGUAL;
+                    posicion++;
+                    columna++;
+                }
+            } else if (c >= 'a' && c <= 'z') {
+                do {
+                    posicion++;
+                } while ((c = caracter(posicion)) >= 'a' && c <= 'z');
+                columna += posicion - inicio;
+                tipo = palabraClave(inicio, posicion - inicio);
+            } else if (c >= '0' && c <= '9') {
+                do {
+                    posicion++;
+                } while ((c = caracter(posicion)) >= '0' && c <= '9');
+                columna += posicion - inicio;
+                tipo = LanguageLexer.NUM;
+            } else {
+                reportar(inicio);
+                avanzar(c);
+                continue;
+            }
+            return crear(tipo, inicio, posicion - 1, lineaInicio, columnaInicio);
+        }
+    }
+
+    /**
+     * @return El tipo de un signo de un carácter, o 0 si 'c' no es uno.
+     */
+    private static int simbolo(int c) {
+        switch (c) {
+            case ';':
+                return LanguageLexer.PUNTO_COMA;
+            case '=':
+                return LanguageLexer.IGUAL;
+            case '(':
+                return LanguageLexer.PAREN_ABIERTO;
+            case ')':
+                return LanguageLexer.PAREN_CERRADO;
+            case '{':
+                return LanguageLexer.LLAVE_ABIERTA;
+            case '}':
+                return LanguageLexer.LLAVE_CERRADA;
+            case '+':
+                return LanguageLexer.SUMA;
+            case '-':
+                return LanguageLexer.RESTA;
+            case '<':
+                return LanguageLexer.MENOR;
+            case '>':
+                return LanguageLexer.MAYOR;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Las palabras clave tienen prioridad sobre ID solo si coinciden enteras:
+     * 'int' es INT, pero 'ints' es un ID.
+     */
+    private int palabraClave(int inicio, int largo) {
+        switch (largo) {
+            case 2:
+                return es(inicio, "if") ? LanguageLexer.IF : LanguageLexer.ID;
+            case 3:
+                return es(inicio, "int") ? LanguageLexer.INT : LanguageLexer.ID;
+            case 4:
+                return es(inicio, "true") ? LanguageLexer.TRUE : LanguageLexer.ID;
+            case 5:
+                if (es(inicio, "print")) {
+                    return LanguageLexer.PRINT;
+                }
+                if (es(inicio, "while")) {
+                    return LanguageLexer.WHILE;
+                }
+                return es(inicio, "false") ? LanguageLexer.FALSE : LanguageLexer.ID;
+            default:
+                return LanguageLexer.ID;
+        }
+    }
+
+    private boolean es(int inicio, String palabra) {
+        for (int i = 0; i < palabra.length(); i++) {
+            if (caracter(inicio + i) != palabra.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int caracter(int indice) {
+        if (indice >= tamano) {
+            return IntStream.EOF;
+        }
+        return datos != null ? datos.get(indice) & 0xFF : entrada.LA(indice + 1);
+    }
+
+    /**
+     * Avanza un carácter llevando la línea y la columna como el LexerATNSimulator.
+     */
+    private void avanzar(int c) {
+        posicion++;
+        if (c == '\n') {
+            linea++;
+            columna = 0;
+        } else {
+            columna++;
+        }
+    }
+
+    /**
+     * El mismo mensaje que Lexer.notifyListeners para un carácter que no empieza ningún token.
+     */
+    private void reportar(int indice) {
+        // Los únicos caracteres que ANTLR escapa en el mensaje (\n, \r, \t) son espacios y nunca llegan aquí.
+        String texto = entrada.getText(Interval.of(indice, indice));
+        errores.syntaxError(null, null, linea, columna, "token recognition error at: '" + texto + "'", null);
+    }
+
+    private Token crear(int tipo, int inicio, int fin, int lineaToken, int columnaToken) {
+        return fabrica.create(origen, tipo, null, Token.DEFAULT_CHANNEL, inicio, fin, lineaToken, columnaToken);
+    }
+
+    // --- TokenSource ---
+
+    @Override
+    public int getLine() {
+        return linea;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return columna;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return entrada;
+    }
+
+    @Override
+    public String getSourceName() {
+        return entrada.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.fabrica = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return fabrica;
+    }
+}
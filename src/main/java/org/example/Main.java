@@ -1,56 +1,112 @@
 package org.example;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import org.antlr.v4.gui.TreeViewer;
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-
-import javax.swing.*;
+import org.antlr.v4.runtime.ConsoleErrorListener;
 
 public class Main {
 
     private static final String EXTENSION = "lang";
     private static final String DIRBASE = "src/test/resources/";
 
-    public static void main(String[] args) throws IOException {
-        String files[] = args.length==0? new String[]{ "test." + EXTENSION } : args;
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Opciones opciones = Opciones.parsear(args);
+        List<String> files = opciones.getArchivos().isEmpty() ? Arrays.asList("test." + EXTENSION) : opciones.getArchivos();
+        if (opciones.isListarCache() || opciones.isPurgarCache()) {
+            CacheProgramas cache = opciones.abrirCache();
+            if (opciones.isListarCache()) {
+                cache.listar().forEach(System.out::println);
+                System.out.println(cache.getCantidad() + " entradas, " + cache.getTamanoTotal() + " bytes.");
+            }
+            if (opciones.isPurgarCache()) {
+                System.out.println(cache.purgar() + " entradas borradas.");
+            }
+            return;
+        }
+        if (opciones.isCache() && !opciones.isLote() && !opciones.isDemonio()) {
+            // Los demás modos no buscan ni guardan programas en la caché.
+            throw new IllegalArgumentException("--cache solo vale con --lote o --demonio.");
+        }
+        if (opciones.getArchivoCds() != null) {
+            System.exit(EntrenadorCds.generar(Paths.get(opciones.getArchivoCds())) ? 0 : 1);
+        }
+        if (opciones.getFormatoExportacion() != null) {
+            System.exit(exportar(opciones, files) ? 0 : 1);
+        }
+        if (opciones.isDemonio()) {
+            new Demonio(opciones).atender();
+            return;
+        }
+        if (opciones.isFlujo()) {
+            // Modo en flujo: sin eco ni encabezados, para no mezclarlos con la salida del programa.
+            System.exit(ejecutarFlujo(opciones) ? 0 : 1);
+        }
         System.out.println("Dirbase: " + DIRBASE);
-        for (String file : files){
-            System.out.println("START: " + file);
 
-            System.out.println("\n--- CODIGO ---");
-            System.out.println(new String(Files.readAllBytes(Paths.get(DIRBASE+file))));
-            System.out.println("--------------\n");
+        if (opciones.isLote()) {
+            // Modo por lotes: sin interfaz gráfica y en paralelo.
+            List<Path> rutas = new ArrayList<>();
+            for (String file : files) {
+                rutas.add(Paths.get(DIRBASE).resolve(file));
+            }
+            boolean ok = new ModoLote(opciones).ejecutar(rutas, System.out);
+            System.exit(ok ? 0 : 1);
+        }
+        if (opciones.isIr()) {
+            // El modo interactivo muestra y analiza el árbol: no hay camino por el IR.
+            throw new IllegalArgumentException("--ir y --parser=rapido solo valen con --lote, --demonio o --exportar.");
+        }
 
-            CharStream in = CharStreams.fromFileName(DIRBASE + file);
-            LanguageLexer lexer = new LanguageLexer(in);
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
+        ProcesadorPrograma procesador = new ProcesadorPrograma(opciones);
+        AnalizadorSintactico sintactico = opciones.crearSintactico();
+        SalidaCanal archivoSalida = opciones.getArchivoSalida() == null ? null
+                : SalidaCanal.archivo(Paths.get(opciones.getArchivoSalida()));
+        Salida salida = archivoSalida != null ? archivoSalida : new SalidaBuffer(System.out);
+        for (String file : files){
+            System.out.println("START: " + file);
 
+            // El archivo se mapea una sola vez y sirve tanto para el eco como para el lexer.
+            FuenteMapeada in = FuenteMapeada.abrir(Paths.get(DIRBASE).resolve(file));
+            Metricas metricas = Metricas.crear(file, opciones.isMetricas());
+            if (opciones.isEco()) {
+                System.out.println("\n--- CODIGO ---");
+                in.escribir(System.out);
+                System.out.println();
+                System.out.println("--------------\n");
+            }
 
             //----------------------------------------------------------------
             // Analisis sintactico (entrega 3)
-            LanguageParser parser = new LanguageParser(tokens);
-            LanguageParser.InicioContext tree = parser.inicio();
-            JFrame frame = new JFrame("Arbol Sintactico");
-            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.setSize(1300,1000);
-            List<String> reglas = Arrays.asList(parser.getRuleNames());
-            TreeViewer arbol = new TreeViewer(reglas, tree);
-            arbol.setScale(1.7);
-            frame.add(new JScrollPane(arbol));
-            frame.setVisible(true);
+            LanguageParser.InicioContext tree = sintactico.parsear(in, ConsoleErrorListener.INSTANCE, metricas);
+            if (opciones.isArbol()) {
+                // Swing se carga recién aquí, y solo si se pidió la ventana.
+                VisorArbol.mostrar(Arrays.asList(sintactico.getParser().getRuleNames()), tree);
+            }
             //----------------------------------------------------------------
 
             //----------------------------------------------------------------
             // Análisis Semántico (entrega final)
-            AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor();
+            if (metricas != null) {
+                metricas.iniciar(Metricas.Fase.SEMANTICO);
+            }
+            AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor(metricas, opciones.getPoolAnalisis());
             analizador.visit(tree);
+            if (metricas != null) {
+                metricas.terminar(Metricas.Fase.SEMANTICO);
+            }
 
             //  Comprobación de Errores
             if (analizador.hayErrores()) {
@@ -60,13 +116,123 @@ public class Main {
                 }
             } else {
                 // Pasada de Ejecución
+                if (metricas != null) {
+                    metricas.iniciar(Metricas.Fase.OPTIMIZACION);
+                }
+                List<AdvertenciaSemantica> advertencias = new ArrayList<>();
+                List<String> cambios = procesador.optimizar(tree, analizador.getResolucion(), advertencias);
+                if (metricas != null) {
+                    metricas.terminar(Metricas.Fase.OPTIMIZACION);
+                }
+                for (AdvertenciaSemantica advertencia : advertencias) {
+                    System.err.println(advertencia);
+                }
+                for (String cambio : cambios) {
+                    System.err.println("Optimización: " + cambio);
+                }
                 System.out.println("Análisis semántico exitoso. Ejecutando el programa...");
-                EjecutorVisitor ejecutor = new EjecutorVisitor();
-                ejecutor.visit(tree);
+                try {
+                    procesador.ejecutar(tree, analizador.getResolucion(), salida, metricas);
+                } catch (Presupuesto.Agotado e) {
+                    System.err.println("Presupuesto agotado: " + e.getMessage());
+                }
             }
             //----------------------------------------------------------------
 
+            if (metricas != null) {
+                metricas.publicar();
+                if (opciones.isMetricas()) {
+                    System.err.print("--- METRICAS ---" + System.lineSeparator() + metricas.getInforme());
+                }
+            }
             System.out.println("FINISH: " + file);
         }
+        if (archivoSalida != null) {
+            archivoSalida.getCanal().close();
+        }
+    }
+
+    /**
+     * Exporta el árbol (o el ProgramaIR) de cada archivo con el ExportadorArbol, uno tras otro.
+     *
+     * @return true si se exportaron todos los archivos.
+     */
+    private static boolean exportar(Opciones opciones, List<String> files) throws IOException {
+        AnalizadorSintactico sintactico = opciones.crearSintactico();
+        ExportadorArbol exportador = opciones.crearExportador();
+        OutputStream destino = opciones.getArchivoSalida() == null ? System.out
+                : Files.newOutputStream(Paths.get(opciones.getArchivoSalida()));
+        Writer salida = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 1 << 16);
+        boolean ok = true;
+        try {
+            for (String file : files) {
+                FuenteMapeada in = FuenteMapeada.abrir(Paths.get(DIRBASE).resolve(file));
+                if (opciones.getParser() == AnalizadorSintactico.Parser.RAPIDO) {
+                    ProgramaIR ir = sintactico.parsearIR(in, ConsoleErrorListener.INSTANCE, null);
+                    ok &= ir != null && exportar(exportador, ExportadorArbol.nodos(ir), ir.getRaiz(), file,
+                            opciones.getLineaExportacion(), salida);
+                    continue;
+                }
+                LanguageParser.InicioContext tree = sintactico.parsear(in, ConsoleErrorListener.INSTANCE, null);
+                if (!opciones.isExportarIr()) {
+                    ok &= exportar(exportador, ExportadorArbol.ARBOL, tree, file, opciones.getLineaExportacion(),
+                            salida);
+                } else if (sintactico.getParser().getNumberOfSyntaxErrors() > 0) {
+                    ok = false; // El ConstructorIR necesita un árbol sin errores.
+                } else {
+                    ProgramaIR ir = ConstructorIR.construir(tree);
+                    tree = null;
+                    sintactico.liberar();
+                    ok &= exportar(exportador, ExportadorArbol.nodos(ir), ir.getRaiz(), file,
+                            opciones.getLineaExportacion(), salida);
+                }
+            }
+        } finally {
+            salida.flush();
+            if (destino != System.out) {
+                destino.close();
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * @param linea La línea de la sentencia a exportar, o 0 para exportar todo.
+     */
+    private static <N> boolean exportar(ExportadorArbol exportador, ExportadorArbol.Nodos<N> nodos, N raiz,
+                                        String file, int linea, Writer salida) throws IOException {
+        if (linea > 0) {
+            raiz = ExportadorArbol.buscarSentencia(nodos, raiz, linea);
+            if (raiz == null) {
+                System.err.println(file + ": no hay ninguna sentencia en la línea " + linea);
+                return false;
+            }
+        }
+        long escritos = exportador.exportar(nodos, raiz, file, salida);
+        System.err.println(file + ": " + escritos + " nodos exportados");
+        return true;
+    }
+
+    private static boolean ejecutarFlujo(Opciones opciones) throws IOException {
+        SalidaCanal archivoSalida = opciones.getArchivoSalida() == null ? null
+                : SalidaCanal.archivo(Paths.get(opciones.getArchivoSalida()));
+        Salida salida = archivoSalida != null ? archivoSalida : new SalidaBuffer(System.out);
+        ModoFlujo flujo = new ModoFlujo(opciones);
+        boolean ok = true;
+        try {
+            if (opciones.getArchivos().isEmpty()) {
+                ok = flujo.ejecutar(Channels.newChannel(System.in), "<stdin>", salida, System.err);
+            }
+            for (String file : opciones.getArchivos()) {
+                try (FileChannel canal = FileChannel.open(Paths.get(DIRBASE).resolve(file))) {
+                    ok = ok && flujo.ejecutar(canal, file, salida, System.err);
+                }
+            }
+        } finally {
+            if (archivoSalida != null) {
+                archivoSalida.getCanal().close();
+            }
+        }
+        return ok;
     }
 }
@@ -0,0 +1,130 @@
+package org.example;
+
+/**
+ * Máquina virtual de pila que ejecuta el Bytecode generado por el
+ * CompiladorBytecode.
+ *
+ * Es una alternativa al EjecutorVisitor: en lugar de recorrer el árbol con
+ * llamadas a 'accept' y valores Integer, ejecuta un bucle con un switch sobre
+ * int[] y guarda todas las variables en un único frame int[].
+ *
+ * Los pasos del Presupuesto se descuentan en cada JUMP (la vuelta de un
+ * 'while') sobre una variable local.
+ */
+public class MaquinaVirtual {
+
+    private final Salida salida;
+    private final Presupuesto.Control control;
+    private long sentencias = 0; // Para las Metricas.
+
+    public MaquinaVirtual(Salida salida) {
+        this(salida, Presupuesto.SIN_LIMITE.iniciar());
+    }
+
+    /**
+     * @param control La cuenta del Presupuesto de esta ejecución. La Salida ya debe estar limitada.
+     */
+    public MaquinaVirtual(Salida salida, Presupuesto.Control control) {
+        this.salida = salida;
+        this.control = control;
+    }
+
+    /**
+     * Ejecuta el programa de principio a fin.
+     *
+     * @param programa El bytecode a ejecutar.
+     * @throws Presupuesto.Agotado Si se supera un límite del Presupuesto.
+     */
+    public void ejecutar(Bytecode programa) {
+        try {
+            sentencias += bucle(programa);
+        } finally {
+            salida.vaciar(); // Lo ya impreso sale aunque el programa falle.
+        }
+    }
+
+    /**
+     * @return Cuántas sentencias se ejecutaron hasta el HALT.
+     */
+    public long getSentenciasEjecutadas() {
+        return sentencias;
+    }
+
+    /**
+     * Cada sentencia termina en un STORE (declaración o asignación), un PRINT o
+     * un JUMP_IF_FALSE (if, o cada evaluación de la condición de un while), así que contándolos en una variable local se saben
+     * las sentencias ejecutadas sin costo apreciable en el bucle.
+     */
+    private long bucle(Bytecode programa) {
+        final int[] codigo = programa.getCodigo();
+        final int[] frame = new int[programa.getTamanoFrame()];
+        final int[] pila = new int[programa.getTamanoPila()];
+        int sp = 0; // Primera posición libre de la pila.
+        int pc = 0;
+        long sentencias = 0;
+        long restante = control.recargar(0);
+
+        while (true) {
+            switch (codigo[pc]) {
+                case Bytecode.PUSH:
+                    pila[sp++] = codigo[pc + 1];
+                    pc += 2;
+                    break;
+                case Bytecode.LOAD:
+                    pila[sp++] = frame[codigo[pc + 1]];
+                    pc += 2;
+                    break;
+                case Bytecode.STORE:
+                    frame[codigo[pc + 1]] = pila[--sp];
+                    pc += 2;
+                    sentencias++;
+                    break;
+                case Bytecode.ADD:
+                    sp--;
+                    pila[sp - 1] += pila[sp];
+                    pc++;
+                    break;
+                case Bytecode.SUB:
+                    sp--;
+                    pila[sp - 1] -= pila[sp];
+                    pc++;
+                    break;
+                case Bytecode.LT:
+                    sp--;
+                    pila[sp - 1] = pila[sp - 1] < pila[sp] ? 1 : 0;
+                    pc++;
+                    break;
+                case Bytecode.GT:
+                    sp--;
+                    pila[sp - 1] = pila[sp - 1] > pila[sp] ? 1 : 0;
+                    pc++;
+                    break;
+                case Bytecode.EQ:
+                    sp--;
+                    pila[sp - 1] = pila[sp - 1] == pila[sp] ? 1 : 0;
+                    pc++;
+                    break;
+                case Bytecode.JUMP:
+                    restante -= codigo[pc + 2];
+                    if (restante < 0) {
+                        restante = control.recargar(restante);
+                    }
+                    pc = codigo[pc + 1];
+                    break;
+                case Bytecode.JUMP_IF_FALSE:
+                    pc = pila[--sp] == 0 ? codigo[pc + 1] : pc + 2;
+                    sentencias++;
+                    break;
+                case Bytecode.PRINT:
+                    salida.imprimir(pila[--sp]);
+                    pc++;
+                    sentencias++;
+                    break;
+                case Bytecode.HALT:
+                    return sentencias;
+                default:
+                    throw new IllegalStateException("Código de operación desconocido " + codigo[pc] + " en " + pc);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.example;
+
+import jdk.jfr.EventType;
+
+/**
+ * Métricas de un programa: el tiempo de cada fase del pipeline y contadores de
+ * lo que hizo cada una (tokens, nodos del árbol, búsquedas en la TablaSimbolos,
+ * profundidad máxima de ámbitos, sentencias ejecutadas y prints).
+ *
+ * Cada fase y el programa completo se publican además como eventos de JDK
+ * Flight Recorder (EventoFase y EventoPrograma) cuando hay una grabación activa.
+ *
+ * Para que el costo sea casi nulo cuando no se usan, los componentes reciben
+ * la instancia como parámetro opcional y, si es null, no miden nada: crear()
+ * solo devuelve una instancia si se pidieron métricas (--metricas) o si JFR
+ * está grabando alguno de los dos eventos.
+ *
+ * Consultar un EventType (o crear un evento) pone en marcha JFR, que carga
+ * un centenar de clases. Por eso los EventType están en la clase Jfr, que se
+ * inicializa recién cuando hay alguna grabación: JFR define la propiedad
+ * "jdk.jfr.repository" al empezar la primera, sea por -XX:StartFlightRecording,
+ * por jcmd o desde código. Sin grabación no se carga ninguna clase de jdk.jfr.
+ *
+ * Una instancia pertenece a un solo programa y se usa desde un solo hilo.
+ */
+public final class Metricas {
+
+    public enum Fase { LEXICO, SINTACTICO, SEMANTICO, OPTIMIZACION, COMPILACION, EJECUCION }
+
+    private final String programa;
+    private final long[] nanos = new long[Fase.values().length];
+    private final long[] inicios = new long[Fase.values().length];
+    private EventoFase[] eventos; // Se crea con el primer EventoFase, para no cargar JFR sin grabación.
+
+    private long tokens = -1;
+    private long nodos = -1;
+    private long busquedas = 0;
+    private long fallosBusqueda = 0;
+    private int profundidadMaxima = 0;
+    private long sentenciasEjecutadas = -1;
+    private long prints = 0;
+
+    public Metricas(String programa) {
+        this.programa = programa;
+    }
+
+    /**
+     * @param programa Nombre del programa, para el informe y los eventos.
+     * @param pedidas true si se pidieron las métricas explícitamente.
+     * @return Las métricas del programa, o null si no las quiere nadie.
+     */
+    public static Metricas crear(String programa, boolean pedidas) {
+        if (pedidas || faseActiva() || programaActivo()) {
+            return new Metricas(programa);
+        }
+        return null;
+    }
+
+    public void iniciar(Fase fase) {
+        if (faseActiva()) {
+            EventoFase evento = new EventoFase();
+            evento.begin();
+            if (eventos == null) {
+                eventos = new EventoFase[Fase.values().length];
+            }
+            eventos[fase.ordinal()] = evento;
+        }
+        inicios[fase.ordinal()] = System.nanoTime();
+    }
+
+    public void terminar(Fase fase) {
+        nanos[fase.ordinal()] += System.nanoTime() - inicios[fase.ordinal()];
+        EventoFase evento = eventos != null ? eventos[fase.ordinal()] : null;
+        if (evento != null) {
+            eventos[fase.ordinal()] = null;
+            evento.programa = programa;
+            evento.fase = fase.name();
+            evento.commit();
+        }
+    }
+
+    /**
+     * Publica el EventoPrograma con los contadores. Se llama una vez, al final.
+     */
+    public void publicar() {
+        if (!programaActivo()) {
+            return;
+        }
+        EventoPrograma evento = new EventoPrograma();
+        if (evento.shouldCommit()) {
+            evento.programa = programa;
+            evento.tokens = tokens;
+            evento.nodos = nodos;
+            evento.busquedas = busquedas;
+            evento.fallosBusqueda = fallosBusqueda;
+            evento.profundidadMaxima = profundidadMaxima;
+            evento.sentenciasEjecutadas = sentenciasEjecutadas;
+            evento.prints = prints;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Envuelve una Salida para contar los prints, sea cual sea el motor.
+     */
+    public Salida contar(Salida salida) {
+        return new Salida() {
+            @Override
+            public void imprimir(int valor) {
+                prints++;
+                salida.imprimir(valor);
+            }
+
+            @Override
+            public void vaciar() {
+                salida.vaciar();
+            }
+        };
+    }
+
+    void setTokens(long tokens) {
+        this.tokens = tokens;
+    }
+
+    void setNodos(long nodos) {
+        this.nodos = nodos;
+    }
+
+    void contarBusqueda(boolean encontrada) {
+        busquedas++;
+        if (!encontrada) {
+            fallosBusqueda++;
+        }
+    }
+
+    void registrarProfundidad(int profundidad) {
+        profundidadMaxima = Math.max(profundidadMaxima, profundidad);
+    }
+
+    /**
+     * Suma los contadores de la TablaSimbolos que usó una tarea del análisis en paralelo.
+     */
+    void incorporarAnalisis(Metricas otra) {
+        busquedas += otra.busquedas;
+        fallosBusqueda += otra.fallosBusqueda;
+        profundidadMaxima = Math.max(profundidadMaxima, otra.profundidadMaxima);
+    }
+
+    void sumarSentencias(long sentencias) {
+        sentenciasEjecutadas = Math.max(sentenciasEjecutadas, 0) + sentencias;
+    }
+
+    public String getPrograma() {
+        return programa;
+    }
+
+    public long getNanos(Fase fase) {
+        return nanos[fase.ordinal()];
+    }
+
+    /**
+     * @return Tokens leídos por el lexer, o -1 si no se pasó por el front end (por ejemplo, por la caché).
+     */
+    public long getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return Nodos del árbol sintáctico, o -1 si no se pasó por el front end.
+     */
+    public long getNodos() {
+        return nodos;
+    }
+
+    public long getBusquedas() {
+        return busquedas;
+    }
+
+    public long getFallosBusqueda() {
+        return fallosBusqueda;
+    }
+
+    /**
+     * @return La profundidad máxima de ámbitos abiertos (0 si solo se usó el global).
+     */
+    public int getProfundidadMaxima() {
+        return profundidadMaxima;
+    }
+
+    /**
+     * Se cuentan las declaraciones, asignaciones, prints e if cuya condición se
+     * evaluó. El código que genera el JIT no lleva la cuenta.
+     *
+     * @return Sentencias ejecutadas, o -1 si el motor no las cuenta.
+     */
+    public long getSentenciasEjecutadas() {
+        return sentenciasEjecutadas;
+    }
+
+    public long getPrints() {
+        return prints;
+    }
+
+    /**
+     * @return Un informe de una línea por fase más una con los contadores.
+     */
+    public String getInforme() {
+        StringBuilder informe = new StringBuilder();
+        for (Fase fase : Fase.values()) {
+            informe.append(String.format("  %-13s %10.3f ms%n", fase, nanos[fase.ordinal()] / 1_000_000.0));
+        }
+        informe.append("  tokens=").append(n(tokens))
+                .append(" nodos=").append(n(nodos))
+                .append(" busquedas=").append(busquedas)
+                .append(" fallos=").append(fallosBusqueda)
+                .append(" profundidad=").append(profundidadMaxima)
+                .append(" sentencias=").append(n(sentenciasEjecutadas))
+                .append(" prints=").append(prints)
+                .append(System.lineSeparator());
+        return informe.toString();
+    }
+
+    private static String n(long valor) {
+        return valor < 0 ? "n/d" : Long.toString(valor);
+    }
+
+    private static boolean hayGrabacion() {
+        return System.getProperty("jdk.jfr.repository") != null;
+    }
+
+    private static boolean faseActiva() {
+        return hayGrabacion() && Jfr.FASE.isEnabled();
+    }
+
+    private static boolean programaActivo() {
+        return hayGrabacion() && Jfr.PROGRAMA.isEnabled();
+    }
+
+    /**
+     * Los EventType de JFR. La clase se inicializa la primera vez que se usa,
+     * y solo se usa si hay una grabación.
+     */
+    private static final class Jfr {
+        static final EventType FASE = EventType.getEventType(EventoFase.class);
+        static final EventType PROGRAMA = EventType.getEventType(EventoPrograma.class);
+    }
+}
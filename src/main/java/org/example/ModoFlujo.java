@@ -0,0 +1,105 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+/**
+ * Modo en flujo de Main: ejecuta un programa de largo ilimitado (por ejemplo,
+ * generado sobre la marcha y recibido por la entrada estándar) de a una
+ * sentencia del nivel superior por vez, sin esperar a que termine la entrada.
+ *
+ * Cada sentencia se corta con el LectorSentencias, se parsea con la regla
+ * 'sentencia', se analiza contra el ámbito global que dejaron las anteriores,
+ * se ejecuta con el EjecutorVisitor y se descarta junto con sus anotaciones
+ * de la Resolucion. Lo único que crece con la entrada son las variables
+ * globales declaradas; la memoria de cada sentencia depende solo de su largo.
+ *
+ * La salida se vacía cada vez que el lector va a esperar más entrada, así
+ * que lo impreso aparece en cuanto se ejecuta la última sentencia recibida.
+ *
+ * Solo usa el EjecutorVisitor, sin Optimizador. El primer error de sintaxis,
+ * semántico o de ejecución (o el Presupuesto agotado) termina el flujo: lo ya
+ * ejecutado no se deshace, pero nada de lo que sigue se ejecuta.
+ */
+public class ModoFlujo {
+
+    private final Opciones opciones;
+
+    public ModoFlujo(Opciones opciones) {
+        this.opciones = opciones;
+    }
+
+    /**
+     * @param nombre  Nombre de la entrada, para los mensajes.
+     * @param salida  Destino de los 'print'.
+     * @param errores Donde se informan los errores.
+     * @return true si se ejecutó toda la entrada sin errores.
+     */
+    public boolean ejecutar(ReadableByteChannel canal, String nombre, Salida salida, PrintStream errores)
+            throws IOException {
+        AnalizadorSintactico sintactico = opciones.crearSintactico();
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor();
+        Resolucion resolucion = analizador.getResolucion();
+        Presupuesto.Control control = opciones.getPresupuesto().iniciar();
+        Salida limitada = control.limitar(salida);
+        EjecutorVisitor ejecutor = new EjecutorVisitor(resolucion, limitada, control);
+        LectorSentencias lector = new LectorSentencias(canal, limitada::vaciar);
+        ErroresSintacticos erroresSintacticos = new ErroresSintacticos(errores);
+        try {
+            String texto;
+            while ((texto = lector.siguiente()) != null) {
+                LanguageParser.SentenciaContext sentencia = sintactico.parsearSentencia(
+                        CharStreams.fromString(texto, nombre), erroresSintacticos, lector.getLinea(),
+                        lector.getColumna());
+                if (erroresSintacticos.cantidad > 0) {
+                    return false;
+                }
+                int nuevos = analizador.analizarSentencia(sentencia);
+                if (nuevos > 0) {
+                    List<ErrorSemantico> todos = analizador.getErrores();
+                    for (ErrorSemantico error : todos.subList(todos.size() - nuevos, todos.size())) {
+                        errores.println(error);
+                    }
+                    return false;
+                }
+                ejecutor.ejecutarSentencia(sentencia);
+                resolucion.limpiar();
+            }
+            return true;
+        } catch (Presupuesto.Agotado e) {
+            errores.println("Presupuesto agotado: " + e.getMessage());
+            return false;
+        } catch (RuntimeException | StackOverflowError e) {
+            errores.println("Fallo: " + e);
+            return false;
+        } finally {
+            limitada.vaciar(); // Lo ya impreso sale aunque el flujo se corte.
+        }
+    }
+
+    /**
+     * Escribe los errores de sintaxis con el mismo formato que el ConsoleErrorListener de ANTLR.
+     */
+    private static final class ErroresSintacticos extends BaseErrorListener {
+        private final PrintStream errores;
+        private int cantidad = 0;
+
+        ErroresSintacticos(PrintStream errores) {
+            this.errores = errores;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            errores.println("line " + line + ":" + charPositionInLine + " " + msg);
+            cantidad++;
+        }
+    }
+}
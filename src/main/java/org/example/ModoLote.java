@@ -0,0 +1,130 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Modo por lotes de Main: procesa muchos archivos en paralelo, sin interfaz
+ * gráfica, y escribe la salida de cada uno en el mismo orden en que se recibieron.
+ *
+ * Cada archivo se lee una sola vez, mapeado en memoria (ver FuenteMapeada). La salida de un archivo se escribe en cuanto
+ * terminaron él y todos los anteriores, seguida de las advertencias y del
+ * informe de --optimizar si los hay, y al final se imprime un resumen con el estado y los tiempos
+ * de cada archivo.
+ */
+public class ModoLote {
+
+    private final ProcesadorPrograma procesador;
+    private final int hilos;
+    private final boolean metricas;
+
+    public ModoLote(Opciones opciones) {
+        this.procesador = new ProcesadorPrograma(opciones);
+        this.hilos = opciones.getHilos();
+        this.metricas = opciones.isMetricas();
+    }
+
+    /**
+     * Procesa todos los archivos y escribe los resultados en la salida.
+     *
+     * @param archivos Rutas de los archivos, en el orden en que se deben mostrar.
+     * @return true si todos los programas se ejecutaron sin errores.
+     */
+    public boolean ejecutar(List<Path> archivos, PrintStream salida) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<ResultadoPrograma> resultados = new ArrayList<>();
+        long inicio = System.nanoTime();
+        try {
+            List<Future<ResultadoPrograma>> pendientes = new ArrayList<>();
+            for (Path archivo : archivos) {
+                pendientes.add(pool.submit(() -> procesar(archivo)));
+            }
+            for (Future<ResultadoPrograma> pendiente : pendientes) {
+                ResultadoPrograma resultado = esperar(pendiente);
+                resultados.add(resultado);
+                salida.println("START: " + resultado.getNombre());
+                salida.print(resultado.getSalida());
+                for (AdvertenciaSemantica advertencia : resultado.getAdvertencias()) {
+                    salida.println(advertencia);
+                }
+                if (!resultado.getOptimizaciones().isEmpty()) {
+                    salida.println("--- OPTIMIZACIONES ---");
+                    for (String cambio : resultado.getOptimizaciones()) {
+                        salida.println(cambio);
+                    }
+                }
+                if (metricas && resultado.getMetricas() != null) {
+                    salida.println("--- METRICAS ---");
+                    salida.print(resultado.getMetricas().getInforme());
+                }
+                salida.println("FINISH: " + resultado.getNombre());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return imprimirResumen(resultados, System.nanoTime() - inicio, salida);
+    }
+
+    private ResultadoPrograma procesar(Path archivo) {
+        String nombre = archivo.toString();
+        FuenteMapeada fuente;
+        try {
+            fuente = FuenteMapeada.abrir(archivo);
+        } catch (IOException e) {
+            return new ResultadoPrograma(nombre, ResultadoPrograma.Estado.FALLO,
+                    "Fallo: no se pudo leer el archivo: " + e.getMessage() + System.lineSeparator(),
+                    new ArrayList<>(), 0, 0, 0);
+        }
+        return procesador.procesar(nombre, fuente);
+    }
+
+    private static ResultadoPrograma esperar(Future<ResultadoPrograma> pendiente) throws InterruptedException {
+        try {
+            return pendiente.get();
+        } catch (ExecutionException e) {
+            // procesar() atrapa todo lo esperable; esto solo puede ser un Error grave.
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static boolean imprimirResumen(List<ResultadoPrograma> resultados, long nanosTotal, PrintStream salida) {
+        int ok = 0;
+        int conErrores = 0;
+        int fallidos = 0;
+        salida.println();
+        salida.println("--- RESUMEN ---");
+        salida.printf("%-26s %8s %8s %8s %8s  %s%n", "ESTADO", "PARSEO", "SEMANT.", "EJEC.", "TOTAL", "ARCHIVO");
+        for (ResultadoPrograma r : resultados) {
+            switch (r.getEstado()) {
+                case OK:
+                    ok++;
+                    break;
+                case ERRORES_SEMANTICOS:
+                case ERRORES_SINTACTICOS:
+                    conErrores++;
+                    break;
+                default:
+                    fallidos++;
+                    break;
+            }
+            String estado = r.getEstado() + (r.isDesdeCache() ? " (cache)" : "");
+            salida.printf("%-26s %8s %8s %8s %8s  %s%n", estado, ms(r.getNanosParseo()),
+                    ms(r.getNanosAnalisis()), ms(r.getNanosEjecucion()), ms(r.getNanosTotal()), r.getNombre());
+        }
+        salida.println("---------------");
+        salida.println(resultados.size() + " archivos: " + ok + " OK, " + conErrores + " con errores, "
+                + fallidos + " fallidos. Tiempo total: " + ms(nanosTotal) + " ms");
+        return ok == resultados.size();
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,179 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * API para incrustar el lenguaje en un servidor: compila cada fuente una sola
+ * vez a un ProgramaCompilado inmutable y lo ejecuta tantas veces como haga
+ * falta, desde cualquier cantidad de hilos a la vez.
+ *
+ *   MotorLenguaje motor = new MotorLenguaje(opciones);
+ *   ProgramaCompilado programa = motor.compilar("script", fuente);
+ *   if (programa.isEjecutable()) {
+ *       ResultadoPrograma resultado = motor.ejecutar(programa, salida);
+ *   }
+ *
+ * El AnalizadorSemanticoVisitor y el EjecutorVisitor guardan su estado en
+ * campos y no se pueden compartir, así que el motor crea uno nuevo por cada
+ * compilación y por cada ejecución; lo único compartido es el ProgramaCompilado,
+ * que solo se lee. Cada ejecución tiene su propia Salida y su propio
+ * Presupuesto.Control. Una instancia del motor es segura entre hilos.
+ *
+ * crearEjecutor() devuelve un ejecutor de hilos virtuales si la JVM los tiene
+ * (Java 21 o posterior), para atender miles de ejecuciones concurrentes con
+ * pocos hilos del sistema.
+ */
+public class MotorLenguaje {
+
+    private final Opciones opciones;
+    private final ProcesadorPrograma procesador;
+    // Un lexer y un parser por hilo, reutilizados entre compilaciones.
+    private final ThreadLocal<AnalizadorSintactico> sintacticos;
+
+    public MotorLenguaje(Opciones opciones) {
+        this.opciones = opciones;
+        this.procesador = new ProcesadorPrograma(opciones);
+        this.sintacticos = ThreadLocal.withInitial(opciones::crearSintactico);
+    }
+
+    /**
+     * Compila un programa con el motor, el modo de parseo y la optimización de las opciones.
+     *
+     * @return El programa, que puede tener errores (ver ProgramaCompilado.isEjecutable()).
+     */
+    public ProgramaCompilado compilar(String nombre, String fuente) {
+        return compilar(nombre, CharStreams.fromString(fuente, nombre));
+    }
+
+    /**
+     * @see #compilar(String, String)
+     */
+    public ProgramaCompilado compilar(String nombre, CharStream fuente) {
+        List<String> erroresSintacticos = new ArrayList<>();
+        BaseErrorListener errores = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                erroresSintacticos.add("line " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        if (opciones.isParserRapido()) {
+            ProgramaIR ir = sintacticos.get().parsearIR(fuente, errores, null);
+            if (!erroresSintacticos.isEmpty()) {
+                return ProgramaCompilado.conErrores(nombre, erroresSintacticos, Collections.emptyList());
+            }
+            return compilar(nombre, ir);
+        }
+        LanguageParser.InicioContext tree = sintacticos.get().parsear(fuente, errores);
+        // Un árbol con errores de sintaxis puede estar incompleto: no se analiza.
+        if (!erroresSintacticos.isEmpty()) {
+            return ProgramaCompilado.conErrores(nombre, erroresSintacticos, Collections.emptyList());
+        }
+        if (opciones.isIr()) {
+            ProgramaIR ir = ConstructorIR.construir(tree);
+            tree = null; // Desde aquí solo queda el IR.
+            sintacticos.get().liberar();
+            return compilar(nombre, ir);
+        }
+
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor(null, opciones.getPoolAnalisis());
+        analizador.visit(tree);
+        if (analizador.hayErrores()) {
+            return ProgramaCompilado.conErrores(nombre, Collections.emptyList(), analizador.getErrores());
+        }
+
+        Resolucion resolucion = analizador.getResolucion();
+        procesador.optimizar(tree, resolucion);
+        if (opciones.getMotor() == Opciones.Motor.VISITOR) {
+            return ProgramaCompilado.paraVisitor(nombre, tree, resolucion);
+        }
+        // El árbol ya no hace falta: solo se guarda el Bytecode.
+        return ProgramaCompilado.paraBytecode(nombre, new CompiladorBytecode(resolucion).compilar(tree));
+    }
+
+    private static ProgramaCompilado compilar(String nombre, ProgramaIR ir) {
+        AnalizadorIR analizador = new AnalizadorIR(ir);
+        analizador.analizar();
+        if (analizador.hayErrores()) {
+            return ProgramaCompilado.conErrores(nombre, Collections.emptyList(), analizador.getErrores());
+        }
+        return ProgramaCompilado.paraBytecode(nombre, new CompiladorIR(ir, analizador).compilar());
+    }
+
+    /**
+     * Ejecuta un programa con el Presupuesto de las opciones. Nunca lanza
+     * excepciones por fallos del programa: quedan en el resultado.
+     *
+     * @param salida Destino de los 'print' de esta ejecución; se vacía al terminar.
+     * @return El resultado, con el estado y el tiempo de ejecución. Su salida solo
+     *         tiene el mensaje del fallo o del límite superado, si lo hubo: lo
+     *         impreso por el programa va a 'salida'.
+     * @throws IllegalArgumentException Si el programa tiene errores.
+     */
+    public ResultadoPrograma ejecutar(ProgramaCompilado programa, Salida salida) {
+        if (!programa.isEjecutable()) {
+            throw new IllegalArgumentException("El programa '" + programa.getNombre()
+                    + "' tiene errores y no se puede ejecutar");
+        }
+        ResultadoPrograma.Estado estado = ResultadoPrograma.Estado.OK;
+        String mensaje = "";
+        Presupuesto.Limite limite = null;
+        long inicio = System.nanoTime();
+        try {
+            if (programa.getBytecode() != null) {
+                procesador.ejecutar(programa.getBytecode(), salida, null);
+            } else {
+                procesador.ejecutar(programa.getArbol(), programa.getResolucion(), salida, null);
+            }
+        } catch (Presupuesto.Agotado e) {
+            estado = ResultadoPrograma.Estado.PRESUPUESTO_AGOTADO;
+            mensaje = "Presupuesto agotado: " + e.getMessage() + System.lineSeparator();
+            limite = e.getLimite();
+        } catch (RuntimeException | StackOverflowError e) {
+            estado = ResultadoPrograma.Estado.FALLO;
+            mensaje = "Fallo: " + e + System.lineSeparator();
+        }
+        return new ResultadoPrograma(programa.getNombre(), estado, mensaje, Collections.emptyList(),
+                0, 0, System.nanoTime() - inicio, false, null, limite);
+    }
+
+    /**
+     * Crea un ejecutor con un hilo virtual por tarea si la JVM los tiene. Se
+     * busca por reflexión para seguir compilando con Java 17; si no existen
+     * (o son una vista previa sin habilitar), se usa un pool fijo.
+     *
+     * @param hilos Tamaño del pool fijo que se usa si no hay hilos virtuales.
+     */
+    public static ExecutorService crearEjecutor(int hilos) {
+        try {
+            Method virtuales = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtuales.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newFixedThreadPool(hilos);
+        }
+    }
+
+    /**
+     * @return true si crearEjecutor() usa hilos virtuales en esta JVM.
+     */
+    public static boolean hayHilosVirtuales() {
+        try {
+            Method virtuales = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ((ExecutorService) virtuales.invoke(null)).shutdown();
+            return true;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Opciones de línea de comandos de Main.
+ *
+ * Los argumentos que empiezan con "--" son opciones; el resto son nombres de
+ * archivos relativos al directorio base.
+ *
+ *   --motor=visitor   Ejecuta con el EjecutorVisitor (por defecto).
+ *   --motor=vm        Compila a Bytecode y ejecuta con la MaquinaVirtual.
+ *   --motor=jit       Como 'vm', pero los programas que ya se ejecutaron
+ *                     --jit-umbral veces (0 por defecto) se compilan a una clase de la JVM.
+ *   --jit-umbral=N    Ejecuciones con la MaquinaVirtual antes de pasar al CompiladorJit.
+ *   --jit-programas=N Programas distintos que recuerda el EjecutorAdaptativo (1024 por defecto);
+ *                     al superarlos olvida el usado hace más tiempo y su clase generada.
+ *   --parseo=sll      Parseo en dos etapas, SLL y si falla LL completo (por defecto).
+ *   --parseo=ll       Parseo directo con LL completo.
+ *   --lexer=antlr     Usa el LanguageLexer generado por ANTLR (por defecto).
+ *   --lexer=rapido    Usa el LexerRapido escrito a mano, que da los mismos tokens.
+ *   --parser=antlr    Parsea con el LanguageParser generado por ANTLR (por defecto).
+ *   --parser=rapido   Parsea con el ParserRapido, que construye el ProgramaIR sin árbol (implica
+ *                     --ir). Mismas restricciones que --ir.
+ *   --optimizar       Ejecuta el Optimizador y el AnalizadorVivas antes de la ejecución e informa los
+ *                     cambios y las variables que nunca se leen por System.err.
+ *   --ir              Baja el árbol a un ProgramaIR compacto y suelta el árbol y los tokens antes
+ *                     del análisis. Solo con los motores vm y jit, sin --optimizar ni --flujo, y
+ *                     en el modo por lotes, el Demonio o --exportar: el resto trabaja sobre el
+ *                     árbol, y en lugar de ignorarla se rechaza la combinación.
+ *   --sin-eco         No muestra el código de cada archivo antes de procesarlo.
+ *   --arbol           Muestra el árbol sintáctico de cada archivo en una ventana (ver VisorArbol).
+ *                     Sin esta opción no se carga la interfaz gráfica ni hace falta pantalla.
+ *   --exportar=dot    Escribe el árbol sintáctico de cada archivo en Graphviz DOT por la salida (o en
+ *   --exportar=json   --salida) y termina, sin ejecutar nada (ver ExportadorArbol). Con --ir o
+ *                     --parser=rapido exporta el ProgramaIR, que ocupa mucho menos.
+ *   --exportar-profundidad=N
+ *                     No exporta los nodos a más de N niveles de la raíz.
+ *   --exportar-nodos=N
+ *                     Exporta como mucho N nodos por archivo.
+ *   --exportar-linea=N
+ *                     Exporta solo la sentencia que empieza en la línea N.
+ *   --entrenar-cds=ARCHIVO
+ *                     Genera un archivo de Class Data Sharing para arrancar más rápido y termina
+ *                     (ver EntrenadorCds).
+ *   --salida=RUTA     Escribe la salida de los programas en un archivo (ver SalidaCanal).
+ *   --demonio         Arranca el Demonio y atiende programas por un socket local. Si no se dan
+ *                     --max-pasos, --max-tiempo-ms ni --max-salida, cada uno toma el valor del
+ *                     Demonio: 1000 millones de pasos, 10 segundos y 16 MB.
+ *   --demonio-plazo-ms=N
+ *                     Tiempo que tiene un cliente del Demonio para enviar un pedido completo y
+ *                     para recibir la respuesta (30000 por defecto); si no, se cierra la conexión.
+ *   --puerto=N        Puerto TCP (en loopback) del Demonio y su cliente (7070 por defecto).
+ *   --socket=RUTA     Usa un socket Unix en lugar de TCP para el Demonio y su cliente.
+ *   --cache[=DIR]     Usa la CacheProgramas (por defecto en ~/.cache/testcomp1) en el modo por
+ *                     lotes y en el Demonio; en los otros modos se rechaza. Solo con los
+ *                     motores vm y jit.
+ *   --cache-max-mb=N  Tamaño máximo de la caché (256 MB por defecto).
+ *   --cache-listar    Muestra las entradas de la caché y termina.
+ *   --cache-purgar    Borra todas las entradas de la caché y termina.
+ *   --analisis-paralelo
+ *                     Analiza en paralelo los bloques 'if' grandes del nivel superior.
+ *   --metricas        Mide cada fase y cuenta tokens, nodos, búsquedas de símbolos,
+ *                     sentencias y prints, y muestra el informe de cada programa.
+ *   --max-pasos=N     Corta los programas que ejecutan más de N sentencias dentro de bucles.
+ *   --max-tiempo-ms=N Corta los programas cuya ejecución dura más de N milisegundos.
+ *   --max-salida=N    Corta los programas que imprimen más de N bytes (ver Presupuesto).
+ *                     Sin estas opciones no hay límites, salvo en el Demonio.
+ *   --lote            Procesa los archivos en paralelo, sin interfaz gráfica (ver ModoLote).
+ *   --flujo           Ejecuta de a una sentencia por vez a medida que llega la entrada, sin
+ *                     interfaz gráfica (ver ModoFlujo). Lee la entrada estándar, o los archivos
+ *                     dados uno tras otro. Siempre con el EjecutorVisitor.
+ *   --hilos=N         Hilos del modo por lotes y conexiones simultáneas del Demonio (por
+ *                     defecto, uno por núcleo).
+ */
+public class Opciones {
+
+    public enum Motor { VISITOR, VM, JIT }
+
+    private Motor motor = Motor.VISITOR;
+    private int umbralJit = 0;
+    private int programasJit = EjecutorAdaptativo.MAXIMO_POR_DEFECTO;
+    private AnalizadorSintactico.Modo modoParseo = AnalizadorSintactico.Modo.SLL;
+    private AnalizadorSintactico.Lexer lexer = AnalizadorSintactico.Lexer.ANTLR;
+    private AnalizadorSintactico.Parser parser = AnalizadorSintactico.Parser.ANTLR;
+    private boolean optimizar = false;
+    private boolean ir = false;
+    private boolean eco = true;
+    private boolean arbol = false;
+    private ExportadorArbol.Formato formatoExportacion = null;
+    private int profundidadExportacion = Integer.MAX_VALUE;
+    private long nodosExportacion = Long.MAX_VALUE;
+    private int lineaExportacion = 0;
+    private String archivoCds = null;
+    private String archivoSalida = null;
+    private boolean demonio = false;
+    private int puertoDemonio = ProtocoloDemonio.PUERTO_POR_DEFECTO;
+    private String socketDemonio = null;
+    private long plazoDemonioMs = 30_000;
+    private Path directorioCache = null;
+    private long tamanoMaximoCache = CacheProgramas.TAMANO_MAXIMO_POR_DEFECTO;
+    private boolean listarCache = false;
+    private boolean purgarCache = false;
+    private boolean analisisParalelo = false;
+    private boolean metricas = false;
+    // -1 si no se dio la opción (ver getPresupuesto()).
+    private long maximoPasos = -1;
+    private long maximoNanos = -1;
+    private long maximoBytesSalida = -1;
+    private boolean lote = false;
+    private boolean flujo = false;
+    private int hilos = Runtime.getRuntime().availableProcessors();
+    private final List<String> archivos = new ArrayList<>();
+
+    public static Opciones parsear(String[] args) {
+        Opciones opciones = new Opciones();
+        for (String arg : args) {
+            if (arg.startsWith("--motor=")) {
+                opciones.motor = Motor.valueOf(valor(arg).toUpperCase());
+            } else if (arg.startsWith("--jit-umbral=")) {
+                opciones.umbralJit = Integer.parseInt(valor(arg));
+            } else if (arg.startsWith("--jit-programas=")) {
+                opciones.programasJit = Integer.parseInt(valor(arg));
+            } else if (arg.startsWith("--parseo=")) {
+                opciones.modoParseo = AnalizadorSintactico.Modo.valueOf(valor(arg).toUpperCase());
+            } else if (arg.startsWith("--lexer=")) {
+                opciones.lexer = AnalizadorSintactico.Lexer.valueOf(valor(arg).toUpperCase());
+            } else if (arg.startsWith("--parser=")) {
+                opciones.parser = AnalizadorSintactico.Parser.valueOf(valor(arg).toUpperCase());
+            } else if (arg.equals("--optimizar")) {
+                opciones.optimizar = true;
+            } else if (arg.equals("--ir")) {
+                opciones.ir = true;
+            } else if (arg.equals("--sin-eco")) {
+                opciones.eco = false;
+            } else if (arg.equals("--arbol")) {
+                opciones.arbol = true;
+            } else if (arg.startsWith("--exportar=")) {
+                opciones.formatoExportacion = ExportadorArbol.Formato.valueOf(valor(arg).toUpperCase());
+            } else if (arg.startsWith("--exportar-profundidad=")) {
+                opciones.profundidadExportacion = Integer.parseInt(valor(arg));
+            } else if (arg.startsWith("--exportar-nodos=")) {
+                opciones.nodosExportacion = Long.parseLong(valor(arg));
+            } else if (arg.startsWith("--exportar-linea=")) {
+                opciones.lineaExportacion = Integer.parseInt(valor(arg));
+            } else if (arg.startsWith("--entrenar-cds=")) {
+                opciones.archivoCds = valor(arg);
+            } else if (arg.startsWith("--salida=")) {
+                opciones.archivoSalida = valor(arg);
+            } else if (arg.equals("--demonio")) {
+                opciones.demonio = true;
+            } else if (arg.startsWith("--demonio-plazo-ms=")) {
+                opciones.plazoDemonioMs = Long.parseLong(valor(arg));
+            } else if (arg.startsWith("--puerto=")) {
+                opciones.puertoDemonio = Integer.parseInt(valor(arg));
+            } else if (arg.startsWith("--socket=")) {
+                opciones.socketDemonio = valor(arg);
+            } else if (arg.equals("--cache")) {
+                opciones.directorioCache = directorioCachePorDefecto();
+            } else if (arg.startsWith("--cache=")) {
+                opciones.directorioCache = Paths.get(valor(arg));
+            } else if (arg.startsWith("--cache-max-mb=")) {
+                opciones.tamanoMaximoCache = Long.parseLong(valor(arg)) << 20;
+            } else if (arg.equals("--cache-listar")) {
+                opciones.listarCache = true;
+            } else if (arg.equals("--cache-purgar")) {
+                opciones.purgarCache = true;
+            } else if (arg.equals("--analisis-paralelo")) {
+                opciones.analisisParalelo = true;
+            } else if (arg.equals("--metricas")) {
+                opciones.metricas = true;
+            } else if (arg.startsWith("--max-pasos=")) {
+                opciones.maximoPasos = Long.parseLong(valor(arg));
+            } else if (arg.startsWith("--max-tiempo-ms=")) {
+                opciones.maximoNanos = Long.parseLong(valor(arg)) * 1_000_000;
+            } else if (arg.startsWith("--max-salida=")) {
+                opciones.maximoBytesSalida = Long.parseLong(valor(arg));
+            } else if (arg.equals("--lote")) {
+                opciones.lote = true;
+            } else if (arg.equals("--flujo")) {
+                opciones.flujo = true;
+            } else if (arg.startsWith("--hilos=")) {
+                opciones.hilos = Integer.parseInt(valor(arg));
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Opción desconocida: " + arg);
+            } else {
+                opciones.archivos.add(arg);
+            }
+        }
+        opciones.validar();
+        return opciones;
+    }
+
+    /**
+     * Rechaza --ir y --parser=rapido con lo que solo funciona sobre el árbol. Al
+     * exportar no hay ejecución, así que ahí valen con cualquier motor.
+     *
+     * @throws IllegalArgumentException Si la combinación no se puede cumplir.
+     */
+    private void validar() {
+        if (!isIr() || formatoExportacion != null) {
+            return;
+        }
+        String pedido = parser == AnalizadorSintactico.Parser.RAPIDO ? "--parser=rapido" : "--ir";
+        if (motor == Motor.VISITOR) {
+            throw new IllegalArgumentException(pedido + " necesita --motor=vm o --motor=jit: "
+                    + "el EjecutorVisitor trabaja sobre el árbol.");
+        }
+        if (optimizar) {
+            throw new IllegalArgumentException(pedido + " no se puede combinar con --optimizar: "
+                    + "el Optimizador trabaja sobre el árbol.");
+        }
+        if (flujo) {
+            throw new IllegalArgumentException(pedido + " no se puede combinar con --flujo: "
+                    + "el ModoFlujo ejecuta cada sentencia sobre el árbol.");
+        }
+    }
+
+    private static Path directorioCachePorDefecto() {
+        return Paths.get(System.getProperty("user.home"), ".cache", "testcomp1");
+    }
+
+    private static String valor(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    public Motor getMotor() {
+        return motor;
+    }
+
+    public int getUmbralJit() {
+        return umbralJit;
+    }
+
+    public int getProgramasJit() {
+        return programasJit;
+    }
+
+    public AnalizadorSintactico.Modo getModoParseo() {
+        return modoParseo;
+    }
+
+    public AnalizadorSintactico.Lexer getLexer() {
+        return lexer;
+    }
+
+    public AnalizadorSintactico.Parser getParser() {
+        return parser;
+    }
+
+    /**
+     * @return Un AnalizadorSintactico con el modo de parseo y el lexer de las opciones.
+     */
+    public AnalizadorSintactico crearSintactico() {
+        return new AnalizadorSintactico(modoParseo, lexer);
+    }
+
+    public boolean isOptimizar() {
+        return optimizar;
+    }
+
+    /**
+     * @return true si los programas se analizan y compilan desde un ProgramaIR (--ir o
+     *         --parser=rapido). parsear ya rechazó las combinaciones que necesitan el árbol.
+     */
+    public boolean isIr() {
+        return ir || parser == AnalizadorSintactico.Parser.RAPIDO;
+    }
+
+    /**
+     * @return true si los programas se parsean con el ParserRapido directamente a un ProgramaIR.
+     */
+    public boolean isParserRapido() {
+        return parser == AnalizadorSintactico.Parser.RAPIDO;
+    }
+
+    public boolean isEco() {
+        return eco;
+    }
+
+    public boolean isArbol() {
+        return arbol;
+    }
+
+    /**
+     * @return El formato de --exportar, o null si no se pidió exportar.
+     */
+    public ExportadorArbol.Formato getFormatoExportacion() {
+        return formatoExportacion;
+    }
+
+    /**
+     * @return Un ExportadorArbol con el formato y los límites de las opciones.
+     */
+    public ExportadorArbol crearExportador() {
+        return new ExportadorArbol(formatoExportacion, profundidadExportacion, nodosExportacion);
+    }
+
+    /**
+     * @return La línea de la sentencia a exportar, o 0 para exportar el programa completo.
+     */
+    public int getLineaExportacion() {
+        return lineaExportacion;
+    }
+
+    /**
+     * @return true si se exporta el ProgramaIR en lugar del árbol (--ir o --parser=rapido, con cualquier motor).
+     */
+    public boolean isExportarIr() {
+        return isIr();
+    }
+
+    /**
+     * @return La ruta del archivo CDS a generar, o null si no se pidió el entrenamiento.
+     */
+    public String getArchivoCds() {
+        return archivoCds;
+    }
+
+    /**
+     * @return La ruta del archivo para la salida de los programas, o null para usar System.out.
+     */
+    public String getArchivoSalida() {
+        return archivoSalida;
+    }
+
+    public boolean isDemonio() {
+        return demonio;
+    }
+
+    public int getPuertoDemonio() {
+        return puertoDemonio;
+    }
+
+    /**
+     * @return La ruta del socket Unix del Demonio, o null para usar TCP.
+     */
+    public String getSocketDemonio() {
+        return socketDemonio;
+    }
+
+    /**
+     * @return Los nanosegundos que tiene un cliente del Demonio para enviar un pedido o recibir una respuesta.
+     */
+    public long getPlazoDemonioNanos() {
+        return plazoDemonioMs * 1_000_000;
+    }
+
+    /**
+     * @return true si se pidió --cache (no cuenta --cache-listar ni --cache-purgar).
+     */
+    public boolean isCache() {
+        return directorioCache != null;
+    }
+
+    /**
+     * Abre la caché configurada (la por defecto si solo se pidió listarla o purgarla).
+     *
+     * @return La caché, o null si no se configuró ninguna.
+     * @throws UncheckedIOException Si no se puede crear o leer el directorio.
+     */
+    public CacheProgramas abrirCache() {
+        Path directorio = directorioCache;
+        if (directorio == null && (listarCache || purgarCache)) {
+            directorio = directorioCachePorDefecto();
+        }
+        if (directorio == null) {
+            return null;
+        }
+        try {
+            return new CacheProgramas(directorio, tamanoMaximoCache);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean isListarCache() {
+        return listarCache;
+    }
+
+    public boolean isPurgarCache() {
+        return purgarCache;
+    }
+
+    /**
+     * @return El pool para el análisis semántico en paralelo, o null si es secuencial.
+     */
+    public ForkJoinPool getPoolAnalisis() {
+        return analisisParalelo ? ForkJoinPool.commonPool() : null;
+    }
+
+    public boolean isMetricas() {
+        return metricas;
+    }
+
+    /**
+     * @return Los límites de ejecución de cada programa. Los que no se dieron
+     *         no tienen límite, salvo en el Demonio, que atiende programas de
+     *         cualquier cliente y usa los de Presupuesto.DEMONIO.
+     */
+    public Presupuesto getPresupuesto() {
+        Presupuesto omision = demonio ? Presupuesto.DEMONIO : Presupuesto.SIN_LIMITE;
+        long pasos = maximoPasos >= 0 ? maximoPasos : omision.getMaximoPasos();
+        long nanos = maximoNanos >= 0 ? maximoNanos : omision.getMaximoNanos();
+        long bytes = maximoBytesSalida >= 0 ? maximoBytesSalida : omision.getMaximoBytesSalida();
+        if (pasos == Long.MAX_VALUE && nanos == Long.MAX_VALUE && bytes == Long.MAX_VALUE) {
+            return Presupuesto.SIN_LIMITE;
+        }
+        return new Presupuesto(pasos, nanos, bytes);
+    }
+
+    public boolean isLote() {
+        return lote;
+    }
+
+    public boolean isFlujo() {
+        return flujo;
+    }
+
+    public int getHilos() {
+        return hilos;
+    }
+
+    public List<String> getArchivos() {
+        return archivos;
+    }
+}
@@ -0,0 +1,322 @@
+package org.example;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Pasada de optimización que se ejecuta entre el análisis semántico y la ejecución.
+ *
+ * - Pliega las sumas y restas cuyos operandos son constantes.
+ * - Propaga el valor de las variables mientras se conozca (por ejemplo, después
+ *   de 'int x = 5;' y hasta que se le asigne algo desconocido).
+ * - Elimina los bloques 'if (false)' y convierte los 'if (true)' en un bloque simple.
+ * - Pliega las comparaciones constantes y elimina los 'while' cuya condición
+ *   ya es falsa al llegar al bucle.
+ *
+ * Los bloques que pueden no ejecutarse (el de un 'if' desconocido o el de un
+ * 'while') se visitan sobre el mismo mapa de valores conocidos: cada cambio
+ * hecho dentro se anota en un registro de deshacer y al salir se revierte,
+ * olvidando solo las variables cuyo valor pudo cambiar. Así no se copia el
+ * mapa completo por cada bloque anidado.
+ *
+ * El árbol no se modifica: los valores calculados se anotan en la Resolucion y
+ * los motores de ejecución los usan en lugar de recorrer la expresión. Cada
+ * cambio queda registrado en un informe legible.
+ *
+ * El tipo de retorno genérico es <Integer>: el valor de la expresión si es
+ * constante, o null si solo se conoce al ejecutar.
+ */
+public class Optimizador extends LanguageBaseVisitor<Integer> {
+
+    // Largo máximo del texto de una expresión en el informe.
+    private static final int LARGO_INFORME = 60;
+
+    private final Resolucion resolucion;
+    private final List<String> informe = new ArrayList<>();
+
+    // Valor conocido de cada variable en el punto actual del programa.
+    private final Map<Simbolo, Integer> conocidos = new HashMap<>();
+
+    // Registro de deshacer: el símbolo cambiado y su valor anterior (null si no se conocía).
+    private final List<Simbolo> simbolosCambiados = new ArrayList<>();
+    private final List<Integer> valoresAnteriores = new ArrayList<>();
+    // Cantidad de bloques inciertos abiertos; fuera de ellos no hace falta registrar nada.
+    private int inciertos;
+
+    public Optimizador(Resolucion resolucion) {
+        this.resolucion = resolucion;
+    }
+
+    /**
+     * Optimiza el programa anotando la Resolucion.
+     *
+     * @param tree Árbol sin errores semánticos, ya resuelto por el AnalizadorSemanticoVisitor.
+     */
+    public void optimizar(LanguageParser.InicioContext tree) {
+        visit(tree);
+    }
+
+    /**
+     * @return Una línea por cada expresión plegada y cada 'if' o 'while' eliminado o simplificado.
+     */
+    public List<String> getInforme() {
+        return informe;
+    }
+
+    // --- Sentencias ---
+
+    @Override
+    public Integer visitDeclaracion(LanguageParser.DeclaracionContext ctx) {
+        recordar(resolucion.getSimbolo(ctx), evaluar(ctx.expresion()));
+        return null;
+    }
+
+    @Override
+    public Integer visitAsignacion(LanguageParser.AsignacionContext ctx) {
+        recordar(resolucion.getSimbolo(ctx), evaluar(ctx.expresion()));
+        return null;
+    }
+
+    @Override
+    public Integer visitPrint(LanguageParser.PrintContext ctx) {
+        evaluar(ctx.expresion());
+        return null;
+    }
+
+    @Override
+    public Integer visitIf(LanguageParser.IfContext ctx) {
+        Integer condicion = evaluar(ctx.expresion());
+        if (condicion != null) {
+            // También los literales: así los motores saben que el 'if' ya está resuelto.
+            resolucion.setConstante(ctx.expresion(), condicion);
+        }
+        int linea = ctx.IF().getSymbol().getLine();
+
+        if (condicion == null) {
+            visitarIncierto(ctx.bloque());
+        } else if (condicion == 0) {
+            int sentencias = contarSentencias(ctx.bloque());
+            informe.add("línea " + linea + ": eliminado 'if' con condición falsa (" + sentencias + " sentencias)");
+        } else {
+            informe.add("línea " + linea + ": 'if' con condición verdadera convertido en bloque");
+            visit(ctx.bloque());
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visitWhile(LanguageParser.WhileContext ctx) {
+        // Desde la segunda vuelta las variables asignadas en el cuerpo pueden
+        // valer otra cosa, así que ni la condición ni el cuerpo pueden usar su
+        // valor de antes del bucle.
+        for (Simbolo simbolo : asignadas(ctx.bloque())) {
+            recordar(simbolo, null);
+        }
+        Integer condicion = evaluar(ctx.expresion());
+        if (condicion != null) {
+            resolucion.setConstante(ctx.expresion(), condicion);
+        }
+        if (condicion != null && condicion == 0) {
+            int linea = ctx.WHILE().getSymbol().getLine();
+            int sentencias = contarSentencias(ctx.bloque());
+            informe.add("línea " + linea + ": eliminado 'while' con condición falsa (" + sentencias + " sentencias)");
+        } else {
+            visitarIncierto(ctx.bloque());
+        }
+        return null;
+    }
+
+    /**
+     * Visita un bloque que puede no ejecutarse (o ejecutarse varias veces):
+     * después de él solo se siguen conociendo las variables que el bloque no
+     * pudo cambiar.
+     */
+    private void visitarIncierto(LanguageParser.BloqueContext bloque) {
+        int marca = simbolosCambiados.size();
+        inciertos++;
+        visit(bloque);
+        inciertos--;
+
+        // Valores al final del bloque de cada variable que se tocó dentro.
+        Map<Simbolo, Integer> despues = new HashMap<>();
+        for (int i = marca; i < simbolosCambiados.size(); i++) {
+            Simbolo simbolo = simbolosCambiados.get(i);
+            despues.put(simbolo, conocidos.get(simbolo));
+        }
+        // Deshacer en orden inverso deja el mapa como estaba antes del bloque.
+        for (int i = simbolosCambiados.size() - 1; i >= marca; i--) {
+            Simbolo simbolo = simbolosCambiados.get(i);
+            Integer anterior = valoresAnteriores.get(i);
+            if (anterior != null) {
+                conocidos.put(simbolo, anterior);
+            } else {
+                conocidos.remove(simbolo);
+            }
+        }
+        simbolosCambiados.subList(marca, simbolosCambiados.size()).clear();
+        valoresAnteriores.subList(marca, valoresAnteriores.size()).clear();
+
+        for (Map.Entry<Simbolo, Integer> e : despues.entrySet()) {
+            if (!Objects.equals(conocidos.get(e.getKey()), e.getValue())) {
+                recordar(e.getKey(), null);
+            }
+        }
+    }
+
+    // --- Expresiones ---
+
+    @Override
+    public Integer visitExpSuma(LanguageParser.ExpSumaContext ctx) {
+        return visitCadena(ctx);
+    }
+
+    @Override
+    public Integer visitExpResta(LanguageParser.ExpRestaContext ctx) {
+        return visitCadena(ctx);
+    }
+
+    /**
+     * Pliega una cadena de sumas y restas sin recursión (ver Expresiones).
+     * Cuando un operador no se puede plegar, se anotan sus operandos constantes.
+     */
+    private Integer visitCadena(LanguageParser.ExpresionContext raiz) {
+        LanguageParser.ExpresionContext nodo = Expresiones.hojaIzquierda(raiz);
+        Integer valor = visit(nodo);
+        while (nodo != raiz) {
+            LanguageParser.ExpresionContext izquierda = nodo;
+            nodo = (LanguageParser.ExpresionContext) nodo.getParent();
+            Integer der = visit(Expresiones.derecha(nodo));
+            if (valor != null && der != null) {
+                valor = Expresiones.esSuma(nodo) ? valor + der : valor - der;
+            } else {
+                marcar(izquierda, valor);
+                marcar(Expresiones.derecha(nodo), der);
+                valor = null;
+            }
+        }
+        return valor;
+    }
+
+    @Override
+    public Integer visitExpComparacion(LanguageParser.ExpComparacionContext ctx) {
+        Integer izquierda = visit(Expresiones.izquierda(ctx));
+        Integer derecha = visit(Expresiones.derecha(ctx));
+        if (izquierda != null && derecha != null) {
+            return Expresiones.comparar(ctx, izquierda, derecha);
+        }
+        marcar(Expresiones.izquierda(ctx), izquierda);
+        marcar(Expresiones.derecha(ctx), derecha);
+        return null;
+    }
+
+    @Override
+    public Integer visitExpId(LanguageParser.ExpIdContext ctx) {
+        return conocidos.get(resolucion.getSimbolo(ctx));
+    }
+
+    @Override
+    public Integer visitExpNum(LanguageParser.ExpNumContext ctx) {
+        try {
+            return Integer.parseInt(ctx.NUM().getText());
+        } catch (NumberFormatException e) {
+            return null; // Se deja que falle al ejecutar, como sin optimizar.
+        }
+    }
+
+    @Override
+    public Integer visitExpBoolean(LanguageParser.ExpBooleanContext ctx) {
+        return ctx.TRUE() != null ? 1 : 0;
+    }
+
+    // --- Utilidades ---
+
+    /**
+     * Calcula una expresión completa y, si es constante, la anota en la Resolucion.
+     */
+    private Integer evaluar(LanguageParser.ExpresionContext expresion) {
+        Integer valor = visit(expresion);
+        marcar(expresion, valor);
+        return valor;
+    }
+
+    /**
+     * Anota una subexpresión constante. Los literales no hace falta anotarlos.
+     */
+    private void marcar(LanguageParser.ExpresionContext expresion, Integer valor) {
+        if (valor == null
+                || expresion instanceof LanguageParser.ExpNumContext
+                || expresion instanceof LanguageParser.ExpBooleanContext) {
+            return;
+        }
+        resolucion.setConstante(expresion, valor);
+        if (expresion instanceof LanguageParser.ExpIdContext) {
+            informe.add(posicion(expresion) + ": variable '" + expresion.getText() + "' reemplazada por " + valor);
+        } else {
+            informe.add(posicion(expresion) + ": expresión '" + Expresiones.texto(expresion, LARGO_INFORME)
+                    + "' plegada a " + valor);
+        }
+    }
+
+    private void recordar(Simbolo simbolo, Integer valor) {
+        if (inciertos > 0) {
+            simbolosCambiados.add(simbolo);
+            valoresAnteriores.add(conocidos.get(simbolo));
+        }
+        if (valor != null) {
+            conocidos.put(simbolo, valor);
+        } else {
+            conocidos.remove(simbolo);
+        }
+    }
+
+    /**
+     * Cuenta las sentencias de un bloque, incluidas las de bloques anidados, sin recursión.
+     */
+    private static int contarSentencias(LanguageParser.BloqueContext bloque) {
+        int sentencias = 0;
+        ArrayDeque<ParseTree> pendientes = new ArrayDeque<>();
+        pendientes.push(bloque);
+        while (!pendientes.isEmpty()) {
+            ParseTree nodo = pendientes.pop();
+            if (nodo instanceof LanguageParser.SentenciaContext) {
+                sentencias++;
+            }
+            if (!(nodo instanceof LanguageParser.ExpresionContext)) {
+                for (int i = 0; i < nodo.getChildCount(); i++) {
+                    pendientes.push(nodo.getChild(i));
+                }
+            }
+        }
+        return sentencias;
+    }
+
+    /**
+     * @return Los símbolos asignados en un bloque, incluidos sus bloques anidados, sin recursión.
+     */
+    private List<Simbolo> asignadas(LanguageParser.BloqueContext bloque) {
+        List<Simbolo> simbolos = new ArrayList<>();
+        ArrayDeque<ParseTree> pendientes = new ArrayDeque<>();
+        pendientes.push(bloque);
+        while (!pendientes.isEmpty()) {
+            ParseTree nodo = pendientes.pop();
+            if (nodo instanceof LanguageParser.AsignacionContext) {
+                simbolos.add(resolucion.getSimbolo(nodo));
+            } else if (!(nodo instanceof LanguageParser.ExpresionContext)) {
+                for (int i = 0; i < nodo.getChildCount(); i++) {
+                    pendientes.push(nodo.getChild(i));
+                }
+            }
+        }
+        return simbolos;
+    }
+
+    private static String posicion(LanguageParser.ExpresionContext expresion) {
+        return "línea " + expresion.getStart().getLine() + ":" + expresion.getStart().getCharPositionInLine();
+    }
+}
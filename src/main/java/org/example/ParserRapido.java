@@ -0,0 +1,269 @@
+package org.example;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+
+import java.util.Arrays;
+
+/**
+ * Parser escrito a mano para Language.g4 que construye el ProgramaIR
+ * directamente desde los tokens, sin LanguageParser ni árbol de contextos.
+ *
+ * Las sentencias se parsean por descenso recursivo: el primer token decide
+ * la regla, así que no hace falta predicción. Las expresiones se parsean por
+ * precedencia ("precedence climbing") con los mismos niveles que ANTLR da a
+ * las alternativas recursivas por izquierda de 'expresion', en el orden en
+ * que aparecen: SUMA (la más fuerte), RESTA y las comparaciones, todas
+ * asociativas por izquierda. Por eso 'a - b + c' es 'a - (b + c)', igual que
+ * con el LanguageParser. Como el lenguaje no tiene paréntesis en las
+ * expresiones, la recursión nunca pasa de un nivel por precedencia, aunque
+ * la cadena de sumas sea muy larga.
+ *
+ * Los nodos se agregan en el mismo orden y con las mismas posiciones que
+ * ConstructorIR, así que el ProgramaIR resultante es idéntico al que sale de
+ * bajar el árbol de ANTLR.
+ *
+ * Al primer error de sintaxis lo informa al ANTLRErrorListener (con la línea
+ * y columna del token, como ErrorSemantico, y el mensaje "mismatched input"
+ * de ANTLR) y deja de parsear: no intenta recuperarse como la estrategia por
+ * defecto de ANTLR, así que solo se informa ese error.
+ */
+public final class ParserRapido {
+
+    // Precedencia de cada operador binario; 0 si el token no es un operador.
+    private static final int PRECEDENCIA_SUMA = 3;
+    private static final int PRECEDENCIA_RESTA = 2;
+    private static final int PRECEDENCIA_COMPARACION = 1;
+
+    private final TokenSource tokens;
+    private final ANTLRErrorListener errores;
+    private final ProgramaIR ir = new ProgramaIR();
+    private Token actual;
+
+    // Sentencias de los bloques abiertos, una lista encima de otra.
+    private int[] sentencias = new int[64];
+    private int cantidadSentencias = 0;
+    private int cantidadLista = 0; // Cuántas sentencias tenía la última lista.
+
+    private ParserRapido(TokenSource tokens, ANTLRErrorListener errores) {
+        this.tokens = tokens;
+        this.errores = errores;
+        this.actual = tokens.nextToken();
+    }
+
+    /**
+     * @param tokens  Los tokens del programa, de un LexerRapido o un LanguageLexer.
+     * @param errores Recibe el primer error de sintaxis, si lo hay.
+     * @return El programa, o null si tiene un error de sintaxis.
+     */
+    public static ProgramaIR parsear(TokenSource tokens, ANTLRErrorListener errores) {
+        ParserRapido parser = new ParserRapido(tokens, errores);
+        try {
+            int lista = parser.lista(Token.EOF);
+            parser.ir.terminar(parser.ir.agregar(ProgramaIR.PROGRAMA, lista, parser.cantidadLista, 1, 0));
+            return parser.ir;
+        } catch (ErrorSintaxis e) {
+            return null;
+        }
+    }
+
+    // --- Sentencias ---
+
+    /**
+     * Parsea sentencias hasta encontrar 'fin' (EOF o '}'), que consume, y las copia a las listas del IR.
+     *
+     * @return El inicio de la lista; su largo queda en cantidadLista.
+     */
+    private int lista(int fin) {
+        int inicio = cantidadSentencias;
+        while (actual.getType() != fin) {
+            int nodo = sentencia();
+            if (cantidadSentencias == sentencias.length) {
+                sentencias = Arrays.copyOf(sentencias, cantidadSentencias * 2);
+            }
+            sentencias[cantidadSentencias++] = nodo;
+        }
+        consumir();
+        int lista = ir.agregarLista(sentencias, inicio, cantidadSentencias);
+        cantidadLista = cantidadSentencias - inicio;
+        cantidadSentencias = inicio;
+        return lista;
+    }
+
+    private int sentencia() {
+        switch (actual.getType()) {
+            case LanguageLexer.INT: {
+                consumir();
+                int nombre = nombre(esperar(LanguageLexer.ID));
+                Token igual = esperar(LanguageLexer.IGUAL);
+                int valor = expresion(PRECEDENCIA_COMPARACION);
+                esperar(LanguageLexer.PUNTO_COMA);
+                return agregar(ProgramaIR.DECLARACION, nombre, valor, igual);
+            }
+            case LanguageLexer.ID: {
+                int nombre = nombre(consumir());
+                Token igual = esperar(LanguageLexer.IGUAL);
+                int valor = expresion(PRECEDENCIA_COMPARACION);
+                esperar(LanguageLexer.PUNTO_COMA);
+                return agregar(ProgramaIR.ASIGNACION, nombre, valor, igual);
+            }
+            case LanguageLexer.PRINT: {
+                Token print = consumir();
+                esperar(LanguageLexer.PAREN_ABIERTO);
+                int valor = expresion(PRECEDENCIA_COMPARACION);
+                esperar(LanguageLexer.PAREN_CERRADO);
+                esperar(LanguageLexer.PUNTO_COMA);
+                return agregar(ProgramaIR.PRINT, valor, 0, print);
+            }
+            case LanguageLexer.IF:
+            case LanguageLexer.WHILE: {
+                byte clase = actual.getType() == LanguageLexer.IF ? ProgramaIR.IF : ProgramaIR.WHILE;
+                consumir();
+                Token paren = esperar(LanguageLexer.PAREN_ABIERTO);
+                int condicion = expresion(PRECEDENCIA_COMPARACION);
+                esperar(LanguageLexer.PAREN_CERRADO);
+                return agregar(clase, condicion, bloque(), paren);
+            }
+            default:
+                throw error("{'int', 'print', 'if', 'while', ID}");
+        }
+    }
+
+    private int bloque() {
+        Token llave = esperar(LanguageLexer.LLAVE_ABIERTA);
+        int lista = lista(LanguageLexer.LLAVE_CERRADA);
+        return agregar(ProgramaIR.BLOQUE, lista, cantidadLista, llave);
+    }
+
+    private int nombre(Token id) {
+        return agregar(ProgramaIR.NOMBRE, ir.internar(id.getText()), 0, id);
+    }
+
+    // --- Expresiones ---
+
+    /**
+     * Parsea una expresión cuyos operadores tienen al menos la precedencia 'minima'.
+     * Cada operador se agrega después de sus dos operandos, como en ConstructorIR.
+     */
+    private int expresion(int minima) {
+        int izquierda = primaria();
+        while (true) {
+            int precedencia = precedencia(actual.getType());
+            if (precedencia < minima) {
+                return izquierda;
+            }
+            Token operador = consumir();
+            // El operando derecho no puede tener operadores del mismo nivel: asociatividad por izquierda.
+            int derecha = expresion(precedencia + 1);
+            izquierda = agregar(claseBinaria(operador), izquierda, derecha, operador);
+        }
+    }
+
+    private int primaria() {
+        switch (actual.getType()) {
+            case LanguageLexer.ID: {
+                Token id = consumir();
+                return agregar(ProgramaIR.ID, ir.internar(id.getText()), 0, id);
+            }
+            case LanguageLexer.NUM: {
+                Token num = consumir();
+                String texto = num.getText();
+                try {
+                    return agregar(ProgramaIR.NUM, Integer.parseInt(texto), 0, num);
+                } catch (NumberFormatException e) {
+                    // Se guarda el texto, como en ConstructorIR.
+                    return agregar(ProgramaIR.NUM, ir.internar(texto), 1, num);
+                }
+            }
+            case LanguageLexer.TRUE:
+            case LanguageLexer.FALSE: {
+                Token booleano = consumir();
+                return agregar(ProgramaIR.BOOLEAN, booleano.getType() == LanguageLexer.TRUE ? 1 : 0, 0, booleano);
+            }
+            default:
+                throw error("{'true', 'false', ID, NUM}");
+        }
+    }
+
+    private static int precedencia(int tipo) {
+        switch (tipo) {
+            case LanguageLexer.SUMA:
+                return PRECEDENCIA_SUMA;
+            case LanguageLexer.RESTA:
+                return PRECEDENCIA_RESTA;
+            case LanguageLexer.MENOR:
+            case LanguageLexer.MAYOR:
+            case LanguageLexer.IGUAL_IGUAL:
+                return PRECEDENCIA_COMPARACION;
+            default:
+                return 0;
+        }
+    }
+
+    private static byte claseBinaria(Token operador) {
+        switch (operador.getType()) {
+            case LanguageLexer.SUMA:
+                return ProgramaIR.SUMA;
+            case LanguageLexer.RESTA:
+                return ProgramaIR.RESTA;
+            case LanguageLexer.MENOR:
+                return ProgramaIR.MENOR;
+            case LanguageLexer.MAYOR:
+                return ProgramaIR.MAYOR;
+            default:
+                return ProgramaIR.IGUAL;
+        }
+    }
+
+    // --- Tokens ---
+
+    private Token consumir() {
+        Token token = actual;
+        actual = tokens.nextToken();
+        return token;
+    }
+
+    private Token esperar(int tipo) {
+        if (actual.getType() != tipo) {
+            throw error(LanguageParser.VOCABULARY.getDisplayName(tipo));
+        }
+        return consumir();
+    }
+
+    /**
+     * Informa un error en el token actual con el formato del DefaultErrorStrategy de ANTLR.
+     *
+     * @param esperado Lo que se esperaba, como lo escribe ANTLR ("';'" o "{'true', 'false', ID, NUM}").
+     */
+    private ErrorSintaxis error(String esperado) {
+        errores.syntaxError(null, actual, actual.getLine(), actual.getCharPositionInLine(),
+                "mismatched input " + mostrar(actual) + " expecting " + esperado, null);
+        return new ErrorSintaxis();
+    }
+
+    /**
+     * El texto de un token como lo muestra ANTLR en los mensajes de error.
+     */
+    private static String mostrar(Token token) {
+        if (token.getType() == Token.EOF) {
+            return "'<EOF>'";
+        }
+        return "'" + token.getText().replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "'";
+    }
+
+    private int agregar(byte clase, int a, int b, Token token) {
+        return ir.agregar(clase, a, b, token.getLine(), token.getCharPositionInLine());
+    }
+
+    /**
+     * Corta el parseo en el primer error. Sin traza, porque no indica un fallo del programa Java.
+     */
+    private static final class ErrorSintaxis extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ErrorSintaxis() {
+            super(null, null, false, false);
+        }
+    }
+}
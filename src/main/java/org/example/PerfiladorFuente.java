@@ -0,0 +1,74 @@
+package org.example;
+
+import org.antlr.v4.runtime.ConsoleErrorListener;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Ejecuta un programa con el EjecutorPerfilado y muestra qué líneas y qué
+ * bloques 'if' dominan el tiempo, sin necesidad de un profiler de la JVM.
+ *
+ * Uso: PerfiladorFuente [--top=N] [--pilas=ARCHIVO] [--optimizar] archivo
+ *
+ * La salida del programa va a la salida estándar y el informe a la salida de
+ * errores. Con --pilas se escriben además las pilas colapsadas para generar
+ * un flame graph (por ejemplo, flamegraph.pl ARCHIVO > perfil.svg).
+ */
+public class PerfiladorFuente {
+
+    public static void main(String[] args) throws IOException {
+        int top = 20;
+        String archivoPilas = null;
+        boolean optimizar = false;
+        String archivo = null;
+        for (String arg : args) {
+            if (arg.startsWith("--top=")) {
+                top = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--pilas=")) {
+                archivoPilas = arg.substring(arg.indexOf('=') + 1);
+            } else if (arg.equals("--optimizar")) {
+                optimizar = true;
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Opción desconocida: " + arg);
+            } else {
+                archivo = arg;
+            }
+        }
+        if (archivo == null) {
+            System.err.println("Uso: PerfiladorFuente [--top=N] [--pilas=ARCHIVO] [--optimizar] archivo");
+            System.exit(2);
+        }
+
+        FuenteMapeada fuente = FuenteMapeada.abrir(Paths.get(archivo));
+        AnalizadorSintactico sintactico = new AnalizadorSintactico(AnalizadorSintactico.Modo.SLL);
+        LanguageParser.InicioContext tree = sintactico.parsear(fuente, ConsoleErrorListener.INSTANCE);
+        AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor();
+        analizador.visit(tree);
+        if (analizador.hayErrores()) {
+            for (ErrorSemantico error : analizador.getErrores()) {
+                System.err.println(error);
+            }
+            System.exit(1);
+        }
+        if (optimizar) {
+            new Optimizador(analizador.getResolucion()).optimizar(tree);
+            new AnalizadorVivas(analizador.getResolucion()).analizar(tree);
+        }
+
+        EjecutorPerfilado ejecutor = new EjecutorPerfilado(analizador.getResolucion(),
+                new SalidaBuffer(System.out), Paths.get(archivo).getFileName().toString());
+        ejecutor.visit(tree);
+        ejecutor.imprimirInforme(System.err, top);
+
+        if (archivoPilas != null) {
+            try (PrintStream pilas = new PrintStream(Files.newOutputStream(Paths.get(archivoPilas)), false,
+                    StandardCharsets.UTF_8)) {
+                ejecutor.imprimirPilas(pilas);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.example;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+
+/**
+ * Límites de ejecución de un programa: pasos, tiempo de reloj y bytes de salida.
+ * Sirve para ejecutar programas de terceros sin que un bucle infinito ocupe
+ * un núcleo para siempre.
+ *
+ * Un paso es una sentencia ejecutada dentro de un bucle. Para que contar sea
+ * barato, los motores no cuentan sentencia por sentencia: en cada vuelta de un
+ * 'while' descuentan de una vez el peso del bucle (ver peso()), así que un 'if'
+ * del cuerpo cuenta aunque no se entre. El código fuera de los bucles no se
+ * cuenta porque su largo ya está acotado por el del programa.
+ *
+ * Los motores piden los pasos por tramos a un Control y los descuentan de una
+ * variable local; solo al agotar un tramo vuelven al Control, que comprueba el
+ * total y el reloj. Así el costo por vuelta es una resta y una comparación.
+ *
+ * Al superar un límite el motor lanza Agotado, el ProcesadorPrograma la
+ * atrapa y el resultado queda con estado PRESUPUESTO_AGOTADO y el Limite que
+ * se superó. Lo impreso hasta ese momento se conserva.
+ *
+ * Las instancias son inmutables; cada ejecución usa su propio Control.
+ */
+public final class Presupuesto {
+
+    public enum Limite { PASOS, TIEMPO, SALIDA }
+
+    /** Sin ningún límite: el valor por defecto. */
+    public static final Presupuesto SIN_LIMITE = new Presupuesto(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /** Los límites del Demonio para los que no se dieron en las opciones. */
+    public static final Presupuesto DEMONIO = new Presupuesto(1_000_000_000L, 10_000_000_000L, 16L << 20);
+
+    // Pasos entre dos consultas al reloj. Unas 64 mil sentencias tardan menos
+    // de un milisegundo incluso en el EjecutorVisitor.
+    private static final long TRAMO = 1 << 16;
+
+    private final long maximoPasos;
+    private final long maximoNanos;
+    private final long maximoBytesSalida;
+
+    /**
+     * @param maximoPasos Sentencias ejecutadas dentro de bucles, o Long.MAX_VALUE.
+     * @param maximoNanos Tiempo de reloj desde que empieza la ejecución, o Long.MAX_VALUE.
+     * @param maximoBytesSalida Bytes que pueden escribir los 'print', o Long.MAX_VALUE.
+     */
+    public Presupuesto(long maximoPasos, long maximoNanos, long maximoBytesSalida) {
+        if (maximoPasos < 0 || maximoNanos < 0 || maximoBytesSalida < 0) {
+            throw new IllegalArgumentException("Los límites del presupuesto no pueden ser negativos");
+        }
+        this.maximoPasos = maximoPasos;
+        this.maximoNanos = maximoNanos;
+        this.maximoBytesSalida = maximoBytesSalida;
+    }
+
+    public long getMaximoPasos() {
+        return maximoPasos;
+    }
+
+    public long getMaximoNanos() {
+        return maximoNanos;
+    }
+
+    public long getMaximoBytesSalida() {
+        return maximoBytesSalida;
+    }
+
+    /**
+     * Empieza a contar una ejecución: el plazo de tiempo corre desde ahora.
+     */
+    public Control iniciar() {
+        return new Control(this);
+    }
+
+    /**
+     * Pasos que cuesta una vuelta del bucle: la condición más las sentencias
+     * del cuerpo, incluidas las de los 'if' anidados. Un 'while' anidado cuenta
+     * como una sentencia, porque sus vueltas se cobran en su propio salto.
+     */
+    public static int peso(LanguageParser.WhileContext bucle) {
+        int peso = 1;
+        ArrayDeque<ParseTree> pendientes = new ArrayDeque<>();
+        pendientes.push(bucle.bloque());
+        while (!pendientes.isEmpty()) {
+            ParseTree nodo = pendientes.pop();
+            if (nodo instanceof LanguageParser.SentenciaContext) {
+                peso++;
+            }
+            if (!(nodo instanceof LanguageParser.ExpresionContext) && !(nodo instanceof LanguageParser.WhileContext)) {
+                for (int i = 0; i < nodo.getChildCount(); i++) {
+                    pendientes.push(nodo.getChild(i));
+                }
+            }
+        }
+        return peso;
+    }
+
+    /**
+     * El mismo peso para un nodo WHILE de un ProgramaIR.
+     */
+    public static int peso(ProgramaIR ir, int bucle) {
+        int peso = 1;
+        ArrayDeque<Integer> bloques = new ArrayDeque<>();
+        bloques.push(ir.b(bucle));
+        while (!bloques.isEmpty()) {
+            int bloque = bloques.pop();
+            for (int i = 0; i < ir.b(bloque); i++) {
+                int sentencia = ir.sentencia(bloque, i);
+                peso++;
+                if (ir.clase(sentencia) == ProgramaIR.IF) {
+                    bloques.push(ir.b(sentencia));
+                }
+            }
+        }
+        return peso;
+    }
+
+    /**
+     * La cuenta de una ejecución. No es seguro entre hilos: cada ejecución tiene el suyo.
+     *
+     * Uso en un motor, con 'restante' en una variable local:
+     *
+     *   long restante = control.recargar(0);
+     *   ...en cada vuelta:
+     *   restante -= peso;
+     *   if (restante < 0) restante = control.recargar(restante);
+     */
+    public static final class Control {
+        private final Presupuesto presupuesto;
+        private final long inicio;
+        private long entregados; // Pasos entregados en todos los tramos, incluido el actual.
+        private long bytesSalida;
+
+        private Control(Presupuesto presupuesto) {
+            this.presupuesto = presupuesto;
+            this.inicio = System.nanoTime();
+        }
+
+        /**
+         * Cierra el tramo actual y entrega el siguiente.
+         *
+         * @param restante Lo que quedaba del tramo actual (negativo si se pasó), o 0 al empezar.
+         * @return Los pasos del tramo siguiente.
+         * @throws Agotado Si ya se superó el máximo de pasos o el plazo.
+         */
+        public long recargar(long restante) {
+            long consumidos = entregados - restante;
+            if (consumidos > presupuesto.maximoPasos) {
+                entregados = consumidos;
+                throw new Agotado(Limite.PASOS, "se superó el límite de " + presupuesto.maximoPasos + " pasos");
+            }
+            if (presupuesto.maximoNanos != Long.MAX_VALUE && System.nanoTime() - inicio > presupuesto.maximoNanos) {
+                entregados = consumidos;
+                throw new Agotado(Limite.TIEMPO,
+                        "se superó el límite de " + presupuesto.maximoNanos / 1_000_000 + " ms");
+            }
+            long tramo = Math.min(TRAMO, presupuesto.maximoPasos - consumidos);
+            entregados = consumidos + tramo;
+            return tramo;
+        }
+
+        /**
+         * Envuelve la Salida para cortar el programa antes del 'print' que supere
+         * el máximo de bytes. Sin ese límite devuelve la misma Salida.
+         */
+        public Salida limitar(Salida salida) {
+            if (presupuesto.maximoBytesSalida == Long.MAX_VALUE) {
+                return salida;
+            }
+            return new Salida() {
+                @Override
+                public void imprimir(int valor) {
+                    bytesSalida += SalidaBuffer.largoLinea(valor);
+                    if (bytesSalida > presupuesto.maximoBytesSalida) {
+                        throw new Agotado(Limite.SALIDA, "se superó el límite de "
+                                + presupuesto.maximoBytesSalida + " bytes de salida");
+                    }
+                    salida.imprimir(valor);
+                }
+
+                @Override
+                public void vaciar() {
+                    salida.vaciar();
+                }
+            };
+        }
+    }
+
+    /**
+     * Se superó un límite. Los motores la dejan pasar (después de vaciar la
+     * Salida) y el ProcesadorPrograma la convierte en un resultado.
+     */
+    public static final class Agotado extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final Limite limite;
+
+        Agotado(Limite limite, String mensaje) {
+            super(mensaje, null, false, false); // Sin pila: es un final esperado, no un error.
+            this.limite = limite;
+        }
+
+        public Limite getLimite() {
+            return limite;
+        }
+    }
+}
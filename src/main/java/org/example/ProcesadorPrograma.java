@@ -0,0 +1,420 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ejecuta el pipeline completo (léxico, sintáctico, semántico y ejecución)
+ * sobre un programa, sin interfaz gráfica y capturando toda su salida.
+ *
+ * No guarda estado entre programas salvo el EjecutorAdaptativo y la
+ * CacheProgramas, que son seguros entre hilos, así que una misma instancia se
+ * puede usar desde varios hilos.
+ *
+ * Si hay una caché configurada y el motor ejecuta Bytecode (vm o jit), los
+ * programas que ya están en la caché se ejecutan sin lexer, parser ni análisis.
+ *
+ * Con --ir, el árbol se baja a un ProgramaIR apenas se parsea y desde ahí
+ * se analiza y se compila; el árbol y los tokens se sueltan antes del
+ * análisis, así que durante el resto del proceso solo ocupa memoria el IR.
+ * Con --parser=rapido ni siquiera hay árbol: el ParserRapido construye el IR
+ * desde los tokens.
+ *
+ * Un programa con errores de sintaxis no se analiza ni se ejecuta, con
+ * cualquiera de los dos parsers: el árbol que deja la recuperación de errores
+ * del LanguageParser puede estar incompleto (igual que en MotorLenguaje). El
+ * resultado queda con estado ERRORES_SINTACTICOS y no se guarda en la caché.
+ *
+ * Con --metricas, o si JFR está grabando los eventos del compilador, cada
+ * resultado lleva sus Metricas.
+ *
+ * Cada ejecución tiene su propio Presupuesto.Control con los límites de las
+ * opciones. Si el programa supera uno, lo impreso hasta ese momento se
+ * conserva y el resultado queda con estado PRESUPUESTO_AGOTADO.
+ */
+public class ProcesadorPrograma {
+
+    private final Opciones opciones;
+    private final EjecutorAdaptativo adaptativo;
+    // Un lexer y un parser por hilo, reutilizados entre programas.
+    private final ThreadLocal<AnalizadorSintactico> sintacticos;
+    private final CacheProgramas cache; // null si no hay caché o si el motor es el visitor.
+
+    public ProcesadorPrograma(Opciones opciones) {
+        this.opciones = opciones;
+        this.adaptativo = new EjecutorAdaptativo(opciones.getUmbralJit(), opciones.getProgramasJit());
+        this.sintacticos = ThreadLocal.withInitial(opciones::crearSintactico);
+        this.cache = opciones.getMotor() != Opciones.Motor.VISITOR ? opciones.abrirCache() : null;
+    }
+
+    /**
+     * Procesa un programa y devuelve su resultado. Nunca lanza excepciones:
+     * cualquier fallo queda registrado en el resultado con estado FALLO.
+     *
+     * @param nombre Nombre del programa, para los mensajes.
+     * @param fuente Código fuente completo.
+     */
+    public ResultadoPrograma procesar(String nombre, String fuente) {
+        return procesar(nombre, CharStreams.fromString(fuente, nombre));
+    }
+
+    /**
+     * Procesa un programa leído de cualquier CharStream (por ejemplo, una FuenteMapeada).
+     *
+     * @see #procesar(String, String)
+     */
+    public ResultadoPrograma procesar(String nombre, CharStream fuente) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream salida = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        Metricas metricas = Metricas.crear(nombre, opciones.isMetricas());
+        long nanosParseo = 0;
+        long nanosAnalisis = 0;
+        long nanosEjecucion = 0;
+        try {
+            String clave = null;
+            if (cache != null) {
+                long inicio = System.nanoTime();
+                clave = CacheProgramas.clave(fuente, opciones.isOptimizar());
+                CacheProgramas.Entrada entrada = cache.buscar(clave);
+                nanosParseo = System.nanoTime() - inicio;
+                if (entrada != null) {
+                    return ejecutarDesdeCache(nombre, entrada, salida, bytes, nanosParseo, metricas);
+                }
+            }
+
+            long inicio = System.nanoTime();
+            // Los errores de sintaxis van a la salida capturada, no a System.err.
+            ErroresSintacticos erroresSintacticos = new ErroresSintacticos(salida);
+            if (opciones.isParserRapido()) {
+                ProgramaIR ir = sintacticos.get().parsearIR(fuente, erroresSintacticos, metricas);
+                nanosParseo += System.nanoTime() - inicio;
+                if (erroresSintacticos.cantidad > 0) {
+                    return resultado(nombre, ResultadoPrograma.Estado.ERRORES_SINTACTICOS, salida, bytes,
+                            Collections.<ErrorSemantico>emptyList(), nanosParseo, 0, 0, false, metricas);
+                }
+                return procesarIR(nombre, ir, clave, salida, bytes, nanosParseo, 0, metricas);
+            }
+            LanguageParser.InicioContext tree = sintacticos.get().parsear(fuente, erroresSintacticos, metricas);
+            nanosParseo += System.nanoTime() - inicio;
+            if (erroresSintacticos.cantidad > 0) {
+                // La recuperación de errores deja un árbol que puede estar incompleto.
+                return resultado(nombre, ResultadoPrograma.Estado.ERRORES_SINTACTICOS, salida, bytes,
+                        Collections.<ErrorSemantico>emptyList(), nanosParseo, 0, 0, false, metricas);
+            }
+            if (opciones.isIr()) {
+                inicio = System.nanoTime();
+                ProgramaIR ir = bajar(tree, metricas);
+                tree = null; // Desde aquí solo queda el IR.
+                return procesarIR(nombre, ir, clave, salida, bytes, nanosParseo, System.nanoTime() - inicio,
+                        metricas);
+            }
+
+            inicio = System.nanoTime();
+            iniciar(metricas, Metricas.Fase.SEMANTICO);
+            AnalizadorSemanticoVisitor analizador = new AnalizadorSemanticoVisitor(metricas, opciones.getPoolAnalisis());
+            analizador.visit(tree);
+            terminar(metricas, Metricas.Fase.SEMANTICO);
+            nanosAnalisis = System.nanoTime() - inicio;
+
+            if (analizador.hayErrores()) {
+                if (clave != null) {
+                    cache.guardarErrores(clave, analizador.getErrores());
+                }
+                for (ErrorSemantico error : analizador.getErrores()) {
+                    salida.println(error);
+                }
+                return resultado(nombre, ResultadoPrograma.Estado.ERRORES_SEMANTICOS, salida, bytes,
+                        analizador.getErrores(), nanosParseo, nanosAnalisis, 0, false, metricas);
+            }
+
+            inicio = System.nanoTime();
+            iniciar(metricas, Metricas.Fase.OPTIMIZACION);
+            List<AdvertenciaSemantica> advertencias = new ArrayList<>();
+            List<String> cambios = optimizar(tree, analizador.getResolucion(), advertencias);
+            terminar(metricas, Metricas.Fase.OPTIMIZACION);
+            Bytecode programa = null;
+            if (opciones.getMotor() != Opciones.Motor.VISITOR) {
+                iniciar(metricas, Metricas.Fase.COMPILACION);
+                programa = new CompiladorBytecode(analizador.getResolucion()).compilar(tree);
+                terminar(metricas, Metricas.Fase.COMPILACION);
+                if (clave != null) {
+                    cache.guardarPrograma(clave, programa, cambios, advertencias);
+                }
+            }
+            nanosAnalisis += System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            salida.flush(); // La salida del programa va después de lo ya escrito.
+            try {
+                if (programa != null) {
+                    ejecutar(programa, new SalidaBuffer(bytes), metricas);
+                } else {
+                    ejecutar(tree, analizador.getResolucion(), new SalidaBuffer(bytes), metricas);
+                }
+            } catch (Presupuesto.Agotado e) {
+                return agotado(nombre, e, salida, bytes, nanosParseo, nanosAnalisis, System.nanoTime() - inicio,
+                        false, metricas, cambios, advertencias);
+            }
+            nanosEjecucion = System.nanoTime() - inicio;
+            return resultado(nombre, ResultadoPrograma.Estado.OK, salida, bytes,
+                    Collections.<ErrorSemantico>emptyList(), nanosParseo, nanosAnalisis, nanosEjecucion, false,
+                    metricas, null, cambios, advertencias);
+        } catch (RuntimeException | StackOverflowError e) {
+            salida.println("Fallo: " + e);
+            return resultado(nombre, ResultadoPrograma.Estado.FALLO, salida, bytes,
+                    Collections.<ErrorSemantico>emptyList(), nanosParseo, nanosAnalisis, nanosEjecucion, false,
+                    metricas);
+        }
+    }
+
+    /**
+     * Baja el árbol a un ProgramaIR y suelta los tokens que guarda el parser de este hilo.
+     */
+    private ProgramaIR bajar(LanguageParser.InicioContext tree, Metricas metricas) {
+        iniciar(metricas, Metricas.Fase.SEMANTICO);
+        ProgramaIR ir = ConstructorIR.construir(tree);
+        sintacticos.get().liberar();
+        terminar(metricas, Metricas.Fase.SEMANTICO);
+        return ir;
+    }
+
+    /**
+     * El resto del pipeline con un ProgramaIR: análisis, compilación a Bytecode y ejecución.
+     *
+     * @param nanosBajada Lo que tardó bajar el árbol, que se suma al tiempo de análisis.
+     */
+    private ResultadoPrograma procesarIR(String nombre, ProgramaIR ir, String clave, PrintStream salida,
+                                         ByteArrayOutputStream bytes, long nanosParseo, long nanosBajada,
+                                         Metricas metricas) {
+        long inicio = System.nanoTime() - nanosBajada;
+        iniciar(metricas, Metricas.Fase.SEMANTICO);
+        AnalizadorIR analizador = new AnalizadorIR(ir);
+        analizador.analizar();
+        terminar(metricas, Metricas.Fase.SEMANTICO);
+        if (analizador.hayErrores()) {
+            if (clave != null) {
+                cache.guardarErrores(clave, analizador.getErrores());
+            }
+            for (ErrorSemantico error : analizador.getErrores()) {
+                salida.println(error);
+            }
+            return resultado(nombre, ResultadoPrograma.Estado.ERRORES_SEMANTICOS, salida, bytes,
+                    analizador.getErrores(), nanosParseo, System.nanoTime() - inicio, 0, false, metricas);
+        }
+
+        iniciar(metricas, Metricas.Fase.COMPILACION);
+        Bytecode programa = new CompiladorIR(ir, analizador).compilar();
+        terminar(metricas, Metricas.Fase.COMPILACION);
+        if (clave != null) {
+            cache.guardarPrograma(clave, programa);
+        }
+        long nanosAnalisis = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        salida.flush();
+        try {
+            ejecutar(programa, new SalidaBuffer(bytes), metricas);
+        } catch (Presupuesto.Agotado e) {
+            return agotado(nombre, e, salida, bytes, nanosParseo, nanosAnalisis, System.nanoTime() - inicio,
+                    false, metricas, Collections.<String>emptyList(), Collections.<AdvertenciaSemantica>emptyList());
+        }
+        return resultado(nombre, ResultadoPrograma.Estado.OK, salida, bytes,
+                Collections.<ErrorSemantico>emptyList(), nanosParseo, nanosAnalisis, System.nanoTime() - inicio,
+                false, metricas);
+    }
+
+    private ResultadoPrograma ejecutarDesdeCache(String nombre, CacheProgramas.Entrada entrada, PrintStream salida,
+                                                 ByteArrayOutputStream bytes, long nanosBusqueda,
+                                                 Metricas metricas) {
+        if (entrada.getErrores() != null) {
+            for (ErrorSemantico error : entrada.getErrores()) {
+                salida.println(error);
+            }
+            return resultado(nombre, ResultadoPrograma.Estado.ERRORES_SEMANTICOS, salida, bytes,
+                    entrada.getErrores(), nanosBusqueda, 0, 0, true, metricas);
+        }
+        long inicio = System.nanoTime();
+        try {
+            ejecutar(entrada.getPrograma(), new SalidaBuffer(bytes), metricas);
+        } catch (Presupuesto.Agotado e) {
+            return agotado(nombre, e, salida, bytes, nanosBusqueda, 0, System.nanoTime() - inicio, true, metricas,
+                    entrada.getOptimizaciones(), entrada.getAdvertencias());
+        }
+        return resultado(nombre, ResultadoPrograma.Estado.OK, salida, bytes,
+                Collections.<ErrorSemantico>emptyList(), nanosBusqueda, 0, System.nanoTime() - inicio, true,
+                metricas, null, entrada.getOptimizaciones(), entrada.getAdvertencias());
+    }
+
+    /**
+     * Ejecuta el Optimizador y el AnalizadorVivas si están activados en las opciones.
+     *
+     * @return El informe de cambios de ambos (vacío si no están activados).
+     */
+    public List<String> optimizar(LanguageParser.InicioContext tree, Resolucion resolucion) {
+        return optimizar(tree, resolucion, new ArrayList<>());
+    }
+
+    /**
+     * @param advertencias Donde se agregan las variables que nunca se leen.
+     */
+    public List<String> optimizar(LanguageParser.InicioContext tree, Resolucion resolucion,
+                                  List<AdvertenciaSemantica> advertencias) {
+        if (!opciones.isOptimizar()) {
+            return Collections.emptyList();
+        }
+        Optimizador optimizador = new Optimizador(resolucion);
+        optimizador.optimizar(tree);
+        AnalizadorVivas vivas = new AnalizadorVivas(resolucion);
+        vivas.analizar(tree);
+        advertencias.addAll(vivas.getAdvertencias());
+        List<String> informe = new ArrayList<>(optimizador.getInforme());
+        informe.addAll(vivas.getInforme());
+        return informe;
+    }
+
+    /**
+     * Ejecuta un árbol ya comprobado con el motor elegido en las opciones.
+     */
+    public void ejecutar(LanguageParser.InicioContext tree, Resolucion resolucion, Salida salida) {
+        ejecutar(tree, resolucion, salida, null);
+    }
+
+    /**
+     * @param metricas Donde se registran el tiempo de ejecución, las sentencias y los prints, o null.
+     * @throws Presupuesto.Agotado Si el programa supera un límite de las opciones.
+     * @see #ejecutar(LanguageParser.InicioContext, Resolucion, Salida)
+     */
+    public void ejecutar(LanguageParser.InicioContext tree, Resolucion resolucion, Salida salida,
+                         Metricas metricas) {
+        if (opciones.getMotor() != Opciones.Motor.VISITOR) {
+            iniciar(metricas, Metricas.Fase.COMPILACION);
+            Bytecode programa = new CompiladorBytecode(resolucion).compilar(tree);
+            terminar(metricas, Metricas.Fase.COMPILACION);
+            ejecutar(programa, salida, metricas);
+            return;
+        }
+        Presupuesto.Control control = opciones.getPresupuesto().iniciar();
+        salida = control.limitar(salida);
+        EjecutorVisitor ejecutor = new EjecutorVisitor(resolucion, metricas != null ? metricas.contar(salida) : salida,
+                control);
+        iniciar(metricas, Metricas.Fase.EJECUCION);
+        try {
+            ejecutor.visit(tree);
+        } finally {
+            terminar(metricas, Metricas.Fase.EJECUCION);
+            if (metricas != null) {
+                metricas.sumarSentencias(ejecutor.getSentenciasEjecutadas());
+            }
+        }
+    }
+
+    /**
+     * Ejecuta un programa ya traducido con la MaquinaVirtual o, con el motor jit, con el EjecutorAdaptativo.
+     * También lo usa el MotorLenguaje.
+     */
+    void ejecutar(Bytecode programa, Salida salida, Metricas metricas) {
+        Presupuesto.Control control = opciones.getPresupuesto().iniciar();
+        salida = control.limitar(salida);
+        if (metricas != null) {
+            salida = metricas.contar(salida);
+        }
+        iniciar(metricas, Metricas.Fase.EJECUCION);
+        if (opciones.getMotor() == Opciones.Motor.JIT) {
+            try {
+                adaptativo.ejecutar(programa, salida, control);
+            } finally {
+                terminar(metricas, Metricas.Fase.EJECUCION);
+            }
+            return;
+        }
+        MaquinaVirtual maquina = new MaquinaVirtual(salida, control);
+        try {
+            maquina.ejecutar(programa);
+        } finally {
+            terminar(metricas, Metricas.Fase.EJECUCION);
+            if (metricas != null) {
+                metricas.sumarSentencias(maquina.getSentenciasEjecutadas());
+            }
+        }
+    }
+
+    private static void iniciar(Metricas metricas, Metricas.Fase fase) {
+        if (metricas != null) {
+            metricas.iniciar(fase);
+        }
+    }
+
+    private static void terminar(Metricas metricas, Metricas.Fase fase) {
+        if (metricas != null) {
+            metricas.terminar(fase);
+        }
+    }
+
+    private static ResultadoPrograma resultado(String nombre, ResultadoPrograma.Estado estado, PrintStream salida,
+                                               ByteArrayOutputStream bytes, List<ErrorSemantico> errores,
+                                               long nanosParseo, long nanosAnalisis, long nanosEjecucion,
+                                               boolean desdeCache, Metricas metricas) {
+        return resultado(nombre, estado, salida, bytes, errores, nanosParseo, nanosAnalisis, nanosEjecucion,
+                desdeCache, metricas, null, Collections.<String>emptyList(),
+                Collections.<AdvertenciaSemantica>emptyList());
+    }
+
+    private static ResultadoPrograma resultado(String nombre, ResultadoPrograma.Estado estado, PrintStream salida,
+                                               ByteArrayOutputStream bytes, List<ErrorSemantico> errores,
+                                               long nanosParseo, long nanosAnalisis, long nanosEjecucion,
+                                               boolean desdeCache, Metricas metricas,
+                                               Presupuesto.Limite limiteAgotado, List<String> optimizaciones,
+                                               List<AdvertenciaSemantica> advertencias) {
+        salida.flush();
+        if (metricas != null) {
+            metricas.publicar();
+        }
+        return new ResultadoPrograma(nombre, estado, bytes.toString(StandardCharsets.UTF_8), errores,
+                nanosParseo, nanosAnalisis, nanosEjecucion, desdeCache, metricas, limiteAgotado, optimizaciones,
+                advertencias);
+    }
+
+    /**
+     * El resultado de un programa cortado por el Presupuesto: su salida hasta
+     * el corte seguida de una línea con el límite superado.
+     */
+    private static ResultadoPrograma agotado(String nombre, Presupuesto.Agotado e, PrintStream salida,
+                                             ByteArrayOutputStream bytes, long nanosParseo, long nanosAnalisis,
+                                             long nanosEjecucion, boolean desdeCache, Metricas metricas,
+                                             List<String> optimizaciones,
+                                             List<AdvertenciaSemantica> advertencias) {
+        salida.println("Presupuesto agotado: " + e.getMessage());
+        return resultado(nombre, ResultadoPrograma.Estado.PRESUPUESTO_AGOTADO, salida, bytes,
+                Collections.<ErrorSemantico>emptyList(), nanosParseo, nanosAnalisis, nanosEjecucion, desdeCache,
+                metricas, e.getLimite(), optimizaciones, advertencias);
+    }
+
+    /**
+     * Escribe los errores de sintaxis con el mismo formato que el ConsoleErrorListener de ANTLR.
+     */
+    private static final class ErroresSintacticos extends BaseErrorListener {
+        private final PrintStream salida;
+        private int cantidad = 0;
+
+        ErroresSintacticos(PrintStream salida) {
+            this.salida = salida;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            salida.println("line " + line + ":" + charPositionInLine + " " + msg);
+            cantidad++;
+        }
+    }
+}
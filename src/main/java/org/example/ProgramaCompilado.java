@@ -0,0 +1,87 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Un programa ya comprobado por el MotorLenguaje, listo para ejecutarse
+ * tantas veces como se quiera y desde cualquier cantidad de hilos a la vez.
+ *
+ * Es inmutable: guarda el Bytecode (motores vm y jit) o el árbol con su
+ * Resolucion (motor visitor), que después del análisis y la optimización
+ * solo se leen. Todo el estado de una ejecución (frames, pila, contadores y
+ * Salida) vive en el motor que la ejecuta, nunca aquí.
+ *
+ * Si el programa tiene errores de sintaxis o semánticos no se puede ejecutar;
+ * los errores quedan disponibles para mostrarlos.
+ */
+public final class ProgramaCompilado {
+
+    private final String nombre;
+    private final List<String> erroresSintacticos;
+    private final List<ErrorSemantico> erroresSemanticos;
+    private final LanguageParser.InicioContext arbol;
+    private final Resolucion resolucion;
+    private final Bytecode bytecode;
+
+    private ProgramaCompilado(String nombre, List<String> erroresSintacticos,
+                              List<ErrorSemantico> erroresSemanticos, LanguageParser.InicioContext arbol,
+                              Resolucion resolucion, Bytecode bytecode) {
+        this.nombre = nombre;
+        this.erroresSintacticos = Collections.unmodifiableList(erroresSintacticos);
+        this.erroresSemanticos = Collections.unmodifiableList(erroresSemanticos);
+        this.arbol = arbol;
+        this.resolucion = resolucion;
+        this.bytecode = bytecode;
+    }
+
+    static ProgramaCompilado conErrores(String nombre, List<String> erroresSintacticos,
+                                        List<ErrorSemantico> erroresSemanticos) {
+        return new ProgramaCompilado(nombre, erroresSintacticos, erroresSemanticos, null, null, null);
+    }
+
+    static ProgramaCompilado paraVisitor(String nombre, LanguageParser.InicioContext arbol, Resolucion resolucion) {
+        return new ProgramaCompilado(nombre, Collections.emptyList(), Collections.emptyList(), arbol, resolucion, null);
+    }
+
+    static ProgramaCompilado paraBytecode(String nombre, Bytecode bytecode) {
+        return new ProgramaCompilado(nombre, Collections.emptyList(), Collections.emptyList(), null, null, bytecode);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return true si no tiene errores y se puede ejecutar.
+     */
+    public boolean isEjecutable() {
+        return arbol != null || bytecode != null;
+    }
+
+    /**
+     * @return Los errores de sintaxis, con el formato de ANTLR ("line L:C mensaje").
+     */
+    public List<String> getErroresSintacticos() {
+        return erroresSintacticos;
+    }
+
+    public List<ErrorSemantico> getErroresSemanticos() {
+        return erroresSemanticos;
+    }
+
+    /**
+     * @return El bytecode, o null si el programa se ejecuta con el EjecutorVisitor o tiene errores.
+     */
+    Bytecode getBytecode() {
+        return bytecode;
+    }
+
+    LanguageParser.InicioContext getArbol() {
+        return arbol;
+    }
+
+    Resolucion getResolucion() {
+        return resolucion;
+    }
+}
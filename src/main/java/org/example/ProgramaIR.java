@@ -0,0 +1,197 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Representación intermedia compacta de un programa: todos los nodos viven en
+ * arreglos primitivos paralelos (una "arena") en lugar de ser objetos.
+ *
+ * Cada nodo es un índice y tiene una clase, dos operandos enteros (a y b) y
+ * la posición de su token principal empaquetada en un long (línea en los 32
+ * bits altos, columna en los bajos). Las listas de sentencias de los bloques
+ * están en otro arreglo de índices, y los nombres de las variables se guardan
+ * una sola vez (internados) y se referencian por número.
+ *
+ * Los hijos siempre se agregan antes que su padre, así que todo índice que
+ * aparece como operando es menor que el del nodo que lo usa.
+ *
+ * Se construye desde el árbol de ANTLR con ConstructorIR; después el árbol y
+ * los tokens ya no hacen falta. Una vez terminado es inmutable.
+ */
+public final class ProgramaIR {
+
+    // --- Clases de nodo y el significado de sus operandos ---
+    public static final byte PROGRAMA = 0;      // a: inicio en las listas, b: cantidad de sentencias
+    public static final byte BLOQUE = 1;        // a: inicio en las listas, b: cantidad. Posición: '{'
+    public static final byte DECLARACION = 2;   // a: nodo NOMBRE, b: expresión. Posición: '='
+    public static final byte ASIGNACION = 3;    // a: nodo NOMBRE, b: expresión. Posición: '='
+    public static final byte PRINT = 4;         // a: expresión. Posición: 'print'
+    public static final byte IF = 5;            // a: condición, b: bloque. Posición: '('
+    public static final byte WHILE = 6;         // a: condición, b: bloque. Posición: '('
+    public static final byte NOMBRE = 7;        // a: nombre. La variable que se declara o asigna
+    public static final byte SUMA = 8;          // a, b: operandos. Posición: el operador
+    public static final byte RESTA = 9;
+    public static final byte MENOR = 10;
+    public static final byte MAYOR = 11;
+    public static final byte IGUAL = 12;
+    public static final byte ID = 13;           // a: nombre
+    public static final byte NUM = 14;          // a: valor; si no cabe en un int, b = 1 y a es su texto como nombre
+    public static final byte BOOLEAN = 15;      // a: 1 (true) o 0 (false)
+
+    private static final String[] OPERADORES = {
+            null, null, null, null, null, null, null, null, "+", "-", "<", ">", "==", null, null, null
+    };
+
+    private byte[] clases = new byte[256];
+    private int[] a = new int[256];
+    private int[] b = new int[256];
+    private long[] posiciones = new long[256];
+    private int cantidad = 0;
+
+    private int[] listas = new int[64];
+    private int tamanoListas = 0;
+
+    private String[] nombres = new String[32];
+    private int cantidadNombres = 0;
+    private Map<String, Integer> indiceNombres = new HashMap<>(); // Solo mientras se construye.
+
+    private int raiz = -1;
+
+    // --- Construcción ---
+
+    /**
+     * Agrega un nodo al final de la arena.
+     *
+     * @return Su índice.
+     */
+    int agregar(byte clase, int operandoA, int operandoB, int linea, int columna) {
+        if (cantidad == clases.length) {
+            int nuevo = cantidad * 2;
+            clases = Arrays.copyOf(clases, nuevo);
+            a = Arrays.copyOf(a, nuevo);
+            b = Arrays.copyOf(b, nuevo);
+            posiciones = Arrays.copyOf(posiciones, nuevo);
+        }
+        clases[cantidad] = clase;
+        a[cantidad] = operandoA;
+        b[cantidad] = operandoB;
+        posiciones[cantidad] = (long) linea << 32 | (columna & 0xFFFFFFFFL);
+        return cantidad++;
+    }
+
+    /**
+     * Copia una lista de nodos (las sentencias de un bloque) a la arena de listas.
+     *
+     * @return El inicio de la lista, para usar como operando 'a' del bloque.
+     */
+    int agregarLista(int[] nodos, int desde, int hasta) {
+        int largo = hasta - desde;
+        if (tamanoListas + largo > listas.length) {
+            listas = Arrays.copyOf(listas, Math.max(listas.length * 2, tamanoListas + largo));
+        }
+        System.arraycopy(nodos, desde, listas, tamanoListas, largo);
+        int inicio = tamanoListas;
+        tamanoListas += largo;
+        return inicio;
+    }
+
+    /**
+     * @return El número del nombre, el mismo para todas las apariciones del mismo texto.
+     */
+    int internar(String nombre) {
+        Integer indice = indiceNombres.get(nombre);
+        if (indice != null) {
+            return indice;
+        }
+        if (cantidadNombres == nombres.length) {
+            nombres = Arrays.copyOf(nombres, cantidadNombres * 2);
+        }
+        nombres[cantidadNombres] = nombre;
+        indiceNombres.put(nombre, cantidadNombres);
+        return cantidadNombres++;
+    }
+
+    /**
+     * Fija la raíz (el nodo PROGRAMA), recorta los arreglos a su tamaño justo y
+     * descarta el índice de nombres. Después no se pueden agregar nodos.
+     */
+    void terminar(int programa) {
+        raiz = programa;
+        clases = Arrays.copyOf(clases, cantidad);
+        a = Arrays.copyOf(a, cantidad);
+        b = Arrays.copyOf(b, cantidad);
+        posiciones = Arrays.copyOf(posiciones, cantidad);
+        listas = Arrays.copyOf(listas, tamanoListas);
+        nombres = Arrays.copyOf(nombres, cantidadNombres);
+        indiceNombres = null;
+    }
+
+    // --- Consulta ---
+
+    public int getRaiz() {
+        return raiz;
+    }
+
+    public int getCantidadNodos() {
+        return cantidad;
+    }
+
+    public int getCantidadNombres() {
+        return cantidadNombres;
+    }
+
+    public byte clase(int nodo) {
+        return clases[nodo];
+    }
+
+    public int a(int nodo) {
+        return a[nodo];
+    }
+
+    public int b(int nodo) {
+        return b[nodo];
+    }
+
+    public int linea(int nodo) {
+        return (int) (posiciones[nodo] >>> 32);
+    }
+
+    public int columna(int nodo) {
+        return (int) posiciones[nodo];
+    }
+
+    public String nombre(int numero) {
+        return nombres[numero];
+    }
+
+    /**
+     * @return La i-ésima sentencia de un nodo PROGRAMA o BLOQUE.
+     */
+    public int sentencia(int bloque, int i) {
+        return listas[a[bloque] + i];
+    }
+
+    /**
+     * @return true para SUMA, RESTA y las comparaciones.
+     */
+    public static boolean esBinaria(byte clase) {
+        return clase >= SUMA && clase <= IGUAL;
+    }
+
+    /**
+     * @return El texto del operador de un nodo binario ("+", "-", "<", ">" o "==").
+     */
+    public static String operador(byte clase) {
+        return OPERADORES[clase];
+    }
+
+    /**
+     * @return Los bytes que ocupan los arreglos, sin contar los encabezados ni los nombres.
+     */
+    public long getBytesArreglos() {
+        return (long) clases.length + 4L * a.length + 4L * b.length + 8L * posiciones.length + 4L * listas.length
+                + 4L * nombres.length;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example;
+
+/**
+ * Programa compilado por el CompiladorJit a una clase de la JVM.
+ *
+ * La clase generada implementa esta interfaz con un único método (el que
+ * recibe el Presupuesto.Control) cuyo cuerpo es el programa completo, con las variables en locales de la JVM.
+ */
+public interface ProgramaJit {
+
+    /**
+     * Ejecuta el programa sin límites.
+     *
+     * @param salida Destino de las sentencias 'print'. Quien llama se encarga de vaciarla.
+     */
+    default void ejecutar(Salida salida) {
+        ejecutar(salida, Presupuesto.SIN_LIMITE.iniciar());
+    }
+
+    /**
+     * Ejecuta el programa descontando sus pasos del Presupuesto.
+     *
+     * @param salida Destino de las sentencias 'print', ya limitada. Quien llama se encarga de vaciarla.
+     * @param control La cuenta del Presupuesto de esta ejecución.
+     * @throws Presupuesto.Agotado Si se supera un límite.
+     */
+    void ejecutar(Salida salida, Presupuesto.Control control);
+}
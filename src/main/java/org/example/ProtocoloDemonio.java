@@ -0,0 +1,157 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato de los mensajes entre el Demonio y el ClienteDemonio.
+ *
+ * Una conexión lleva cualquier cantidad de pedidos, uno detrás de otro:
+ *
+ *   pedido    := int operacion (EJECUTAR | DETENER)
+ *                [si EJECUTAR: utf nombre, int longitud, byte[longitud] fuente]
+ *                [si DETENER: utf clave]
+ *   respuesta := int estado (ordinal de ResultadoPrograma.Estado),
+ *                int longitud, byte[longitud] salida (UTF-8),
+ *                int errores, utf error...,
+ *                int advertencias, utf advertencia...,
+ *                int optimizaciones, utf optimizacion...,
+ *                long nanosParseo, long nanosAnalisis, long nanosEjecucion, long nanosServidor
+ *
+ * La longitud de la fuente va de 0 a FUENTE_MAXIMA; con otra, el demonio
+ * cierra la conexión sin leer nada más.
+ *
+ * DETENER no tiene respuesta: si la clave coincide, el demonio deja de
+ * aceptar conexiones y termina; si no, cierra la conexión. La clave la genera
+ * el demonio al arrancar y la deja en archivoClave(), que solo puede leer el
+ * usuario que lo arrancó: cualquier proceso local puede conectarse al puerto,
+ * pero solo ese usuario puede detenerlo.
+ */
+final class ProtocoloDemonio {
+
+    static final int EJECUTAR = 1;
+    static final int DETENER = 2;
+
+    static final int PUERTO_POR_DEFECTO = 7070;
+
+    static final int FUENTE_MAXIMA = 64 << 20;
+
+    private ProtocoloDemonio() {
+    }
+
+    /**
+     * @return La dirección del socket Unix si se indicó una ruta, o si no el puerto TCP en la interfaz loopback.
+     */
+    static SocketAddress direccion(Opciones opciones) {
+        if (opciones.getSocketDemonio() != null) {
+            return UnixDomainSocketAddress.of(Paths.get(opciones.getSocketDemonio()));
+        }
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), opciones.getPuertoDemonio());
+    }
+
+    /**
+     * @return El archivo con la clave de DETENER: junto al socket Unix, o en ~/.cache/testcomp1 para TCP.
+     */
+    static Path archivoClave(SocketAddress direccion) {
+        if (direccion instanceof UnixDomainSocketAddress) {
+            Path socket = ((UnixDomainSocketAddress) direccion).getPath();
+            return socket.resolveSibling(socket.getFileName() + ".clave");
+        }
+        return Paths.get(System.getProperty("user.home"), ".cache", "testcomp1",
+                "demonio-" + ((InetSocketAddress) direccion).getPort() + ".clave");
+    }
+
+    static StandardProtocolFamily familia(SocketAddress direccion) {
+        return direccion instanceof UnixDomainSocketAddress ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+    }
+
+    static void escribirPedido(DataOutputStream salida, String nombre, byte[] fuente) throws IOException {
+        salida.writeInt(EJECUTAR);
+        salida.writeUTF(nombre);
+        salida.writeInt(fuente.length);
+        salida.write(fuente);
+        salida.flush();
+    }
+
+    static void escribirDetener(DataOutputStream salida, String clave) throws IOException {
+        salida.writeInt(DETENER);
+        salida.writeUTF(clave);
+        salida.flush();
+    }
+
+    static void escribirRespuesta(DataOutputStream salida, ResultadoPrograma resultado, long nanosServidor)
+            throws IOException {
+        byte[] texto = resultado.getSalida().getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(resultado.getEstado().ordinal());
+        salida.writeInt(texto.length);
+        salida.write(texto);
+        salida.writeInt(resultado.getErrores().size());
+        for (ErrorSemantico error : resultado.getErrores()) {
+            salida.writeUTF(error.toString());
+        }
+        salida.writeInt(resultado.getAdvertencias().size());
+        for (AdvertenciaSemantica advertencia : resultado.getAdvertencias()) {
+            salida.writeUTF(advertencia.toString());
+        }
+        salida.writeInt(resultado.getOptimizaciones().size());
+        for (String cambio : resultado.getOptimizaciones()) {
+            salida.writeUTF(cambio);
+        }
+        salida.writeLong(resultado.getNanosParseo());
+        salida.writeLong(resultado.getNanosAnalisis());
+        salida.writeLong(resultado.getNanosEjecucion());
+        salida.writeLong(nanosServidor);
+        salida.flush();
+    }
+
+    /**
+     * Respuesta tal como la recibe el cliente.
+     */
+    static final class Respuesta {
+        ResultadoPrograma.Estado estado;
+        String salida;
+        List<String> errores = new ArrayList<>();
+        List<String> advertencias = new ArrayList<>();
+        List<String> optimizaciones = new ArrayList<>();
+        long nanosParseo;
+        long nanosAnalisis;
+        long nanosEjecucion;
+        long nanosServidor;
+    }
+
+    static Respuesta leerRespuesta(DataInputStream entrada) throws IOException {
+        Respuesta respuesta = new Respuesta();
+        respuesta.estado = ResultadoPrograma.Estado.values()[entrada.readInt()];
+        byte[] texto = new byte[entrada.readInt()];
+        entrada.readFully(texto);
+        respuesta.salida = new String(texto, StandardCharsets.UTF_8);
+        int errores = entrada.readInt();
+        for (int i = 0; i < errores; i++) {
+            respuesta.errores.add(entrada.readUTF());
+        }
+        int advertencias = entrada.readInt();
+        for (int i = 0; i < advertencias; i++) {
+            respuesta.advertencias.add(entrada.readUTF());
+        }
+        int optimizaciones = entrada.readInt();
+        for (int i = 0; i < optimizaciones; i++) {
+            respuesta.optimizaciones.add(entrada.readUTF());
+        }
+        respuesta.nanosParseo = entrada.readLong();
+        respuesta.nanosAnalisis = entrada.readLong();
+        respuesta.nanosEjecucion = entrada.readLong();
+        respuesta.nanosServidor = entrada.readLong();
+        return respuesta;
+    }
+}
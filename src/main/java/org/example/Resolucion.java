@@ -0,0 +1,115 @@
+package org.example;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resultado de la resolución de nombres hecha durante el análisis semántico.
+ *
+ * El AnalizadorSemanticoVisitor resuelve cada identificador una única vez y
+ * anota el nodo del árbol con el Simbolo correspondiente, que ya conoce su
+ * par (profundidad de ámbito, índice de slot). También guarda cuántas
+ * variables declara cada ámbito, para que la ejecución pueda reservar un
+ * frame int[] del tamaño justo sin buscar nada por nombre.
+ *
+ * Si se ejecuta el Optimizador, también guarda el valor de las expresiones
+ * que se pueden calcular antes de ejecutar el programa, y el AnalizadorVivas
+ * marca las sentencias que no hace falta ejecutar y renumera los slots.
+ *
+ * Las anotaciones se guardan por identidad del nodo, igual que en un
+ * ParseTreeProperty, pero en mapas propios para poder juntar las Resoluciones
+ * que el análisis en paralelo produce por separado (ver incorporar()).
+ */
+public class Resolucion {
+
+    // Símbolo resuelto para cada nodo que usa un ID (declaracion, asignacion, ExpId).
+    private final Map<ParseTree, Simbolo> simbolos = new IdentityHashMap<>();
+    // Cantidad de variables declaradas en cada nodo 'bloque'.
+    private final Map<ParseTree, Integer> tamanosBloque = new IdentityHashMap<>();
+    // Valor ya conocido de las expresiones constantes (lo completa el Optimizador).
+    private final Map<ParseTree, Integer> constantes = new IdentityHashMap<>();
+    // Declaraciones y asignaciones muertas (las marca el AnalizadorVivas).
+    private final Set<ParseTree> eliminadas = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int tamanoGlobal;
+
+    public void asociar(ParseTree nodo, Simbolo simbolo) {
+        simbolos.put(nodo, simbolo);
+    }
+
+    public Simbolo getSimbolo(ParseTree nodo) {
+        return simbolos.get(nodo);
+    }
+
+    public void setTamanoBloque(ParseTree bloque, int tamano) {
+        tamanosBloque.put(bloque, tamano);
+    }
+
+    public int getTamanoBloque(ParseTree bloque) {
+        return tamanosBloque.get(bloque);
+    }
+
+    public void setConstante(ParseTree expresion, int valor) {
+        constantes.put(expresion, valor);
+    }
+
+    /**
+     * @return El valor de la expresión si es constante, o null si hay que calcularlo al ejecutar.
+     */
+    public Integer getConstante(ParseTree expresion) {
+        return constantes.get(expresion);
+    }
+
+    public void eliminar(ParseTree sentencia) {
+        eliminadas.add(sentencia);
+    }
+
+    /**
+     * @return true si la declaración o asignación no se tiene que ejecutar.
+     */
+    public boolean isEliminada(ParseTree sentencia) {
+        return eliminadas.contains(sentencia);
+    }
+
+    /**
+     * Reemplaza en todas las anotaciones cada Simbolo que es clave de 'nuevos'
+     * por su valor. Los demás quedan como estaban.
+     */
+    public void reasignar(Map<Simbolo, Simbolo> nuevos) {
+        simbolos.replaceAll((nodo, simbolo) -> nuevos.getOrDefault(simbolo, simbolo));
+    }
+
+    /**
+     * Copia en esta Resolucion todas las anotaciones de otra, hecha sobre una
+     * parte distinta del mismo árbol. El tamaño global no se copia.
+     */
+    public void incorporar(Resolucion otra) {
+        simbolos.putAll(otra.simbolos);
+        tamanosBloque.putAll(otra.tamanosBloque);
+        constantes.putAll(otra.constantes);
+        eliminadas.addAll(otra.eliminadas);
+    }
+
+    /**
+     * Olvida las anotaciones de todos los nodos, pero no el tamaño global. Lo
+     * usa el ModoFlujo después de ejecutar cada sentencia, que ya no se vuelve
+     * a visitar, para que los mapas no crezcan con la entrada.
+     */
+    public void limpiar() {
+        simbolos.clear();
+        tamanosBloque.clear();
+        constantes.clear();
+        eliminadas.clear();
+    }
+
+    public void setTamanoGlobal(int tamano) {
+        this.tamanoGlobal = tamano;
+    }
+
+    public int getTamanoGlobal() {
+        return tamanoGlobal;
+    }
+}
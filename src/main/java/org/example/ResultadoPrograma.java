@@ -0,0 +1,154 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de procesar un programa completo con el ProcesadorPrograma:
+ * estado final, salida capturada, errores y advertencias semánticas y
+ * tiempos de cada fase.
+ */
+public class ResultadoPrograma {
+
+    public enum Estado {
+        OK,                  // Se ejecutó sin problemas.
+        ERRORES_SEMANTICOS,  // No se ejecutó porque el análisis semántico encontró errores.
+        FALLO,               // Se produjo una excepción durante el proceso.
+        PRESUPUESTO_AGOTADO, // La ejecución se cortó al superar un límite del Presupuesto.
+        ERRORES_SINTACTICOS  // No se analizó porque el parser encontró un error de sintaxis.
+    }
+
+    private final String nombre;
+    private final Estado estado;
+    private final String salida;
+    private final List<ErrorSemantico> errores;
+    private final long nanosParseo;
+    private final long nanosAnalisis;
+    private final long nanosEjecucion;
+    private final boolean desdeCache;
+    private final Metricas metricas;
+    private final Presupuesto.Limite limiteAgotado;
+    private final List<String> optimizaciones;
+    private final List<AdvertenciaSemantica> advertencias;
+
+    public ResultadoPrograma(String nombre, Estado estado, String salida, List<ErrorSemantico> errores,
+                             long nanosParseo, long nanosAnalisis, long nanosEjecucion) {
+        this(nombre, estado, salida, errores, nanosParseo, nanosAnalisis, nanosEjecucion, false);
+    }
+
+    public ResultadoPrograma(String nombre, Estado estado, String salida, List<ErrorSemantico> errores,
+                             long nanosParseo, long nanosAnalisis, long nanosEjecucion, boolean desdeCache) {
+        this(nombre, estado, salida, errores, nanosParseo, nanosAnalisis, nanosEjecucion, desdeCache, null);
+    }
+
+    public ResultadoPrograma(String nombre, Estado estado, String salida, List<ErrorSemantico> errores,
+                             long nanosParseo, long nanosAnalisis, long nanosEjecucion, boolean desdeCache,
+                             Metricas metricas) {
+        this(nombre, estado, salida, errores, nanosParseo, nanosAnalisis, nanosEjecucion, desdeCache, metricas, null);
+    }
+
+    public ResultadoPrograma(String nombre, Estado estado, String salida, List<ErrorSemantico> errores,
+                             long nanosParseo, long nanosAnalisis, long nanosEjecucion, boolean desdeCache,
+                             Metricas metricas, Presupuesto.Limite limiteAgotado) {
+        this(nombre, estado, salida, errores, nanosParseo, nanosAnalisis, nanosEjecucion, desdeCache, metricas,
+                limiteAgotado, Collections.<String>emptyList());
+    }
+
+    public ResultadoPrograma(String nombre, Estado estado, String salida, List<ErrorSemantico> errores,
+                             long nanosParseo, long nanosAnalisis, long nanosEjecucion, boolean desdeCache,
+                             Metricas metricas, Presupuesto.Limite limiteAgotado, List<String> optimizaciones) {
+        this(nombre, estado, salida, errores, nanosParseo, nanosAnalisis, nanosEjecucion, desdeCache, metricas,
+                limiteAgotado, optimizaciones, Collections.<AdvertenciaSemantica>emptyList());
+    }
+
+    public ResultadoPrograma(String nombre, Estado estado, String salida, List<ErrorSemantico> errores,
+                             long nanosParseo, long nanosAnalisis, long nanosEjecucion, boolean desdeCache,
+                             Metricas metricas, Presupuesto.Limite limiteAgotado, List<String> optimizaciones,
+                             List<AdvertenciaSemantica> advertencias) {
+        this.nombre = nombre;
+        this.estado = estado;
+        this.salida = salida;
+        this.errores = errores;
+        this.nanosParseo = nanosParseo;
+        this.nanosAnalisis = nanosAnalisis;
+        this.nanosEjecucion = nanosEjecucion;
+        this.desdeCache = desdeCache;
+        this.metricas = metricas;
+        this.limiteAgotado = limiteAgotado;
+        this.optimizaciones = optimizaciones;
+        this.advertencias = advertencias;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * @return Todo lo que escribió el programa, más los errores de sintaxis o el fallo si los hubo.
+     */
+    public String getSalida() {
+        return salida;
+    }
+
+    public List<ErrorSemantico> getErrores() {
+        return errores;
+    }
+
+    /**
+     * @return Las advertencias del AnalizadorVivas (variables que nunca se leen), en el orden del
+     *         código. Solo se calculan con --optimizar.
+     */
+    public List<AdvertenciaSemantica> getAdvertencias() {
+        return advertencias;
+    }
+
+    public long getNanosParseo() {
+        return nanosParseo;
+    }
+
+    public long getNanosAnalisis() {
+        return nanosAnalisis;
+    }
+
+    public long getNanosEjecucion() {
+        return nanosEjecucion;
+    }
+
+    /**
+     * @return true si el programa (o sus errores) salió de la CacheProgramas, sin pasar por el front end.
+     *         En ese caso el tiempo de parseo es el de la búsqueda en la caché.
+     */
+    public boolean isDesdeCache() {
+        return desdeCache;
+    }
+
+    /**
+     * @return Las métricas detalladas del programa, o null si no se midieron.
+     */
+    public Metricas getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * @return El límite que cortó la ejecución si el estado es PRESUPUESTO_AGOTADO, o null.
+     */
+    public Presupuesto.Limite getLimiteAgotado() {
+        return limiteAgotado;
+    }
+
+    /**
+     * @return El informe del Optimizador y del AnalizadorVivas con --optimizar, una línea por
+     *         cambio; vacío sin --optimizar o si el programa no llegó a optimizarse.
+     */
+    public List<String> getOptimizaciones() {
+        return optimizaciones;
+    }
+
+    public long getNanosTotal() {
+        return nanosParseo + nanosAnalisis + nanosEjecucion;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+/**
+ * Destino de las sentencias 'print' de un programa en ejecución.
+ *
+ * Todos los motores (EjecutorVisitor, MaquinaVirtual y las clases del
+ * CompiladorJit) escriben aquí en lugar de llamar a System.out.println, que
+ * está sincronizado y vacía su buffer en cada línea. Las implementaciones
+ * pueden acumular la salida; los motores llaman a vaciar() al terminar el
+ * programa, también si termina con una excepción.
+ *
+ * Implementaciones: SalidaBuffer (un OutputStream), SalidaCanal (un archivo o
+ * canal) y SalidaMemoria (en memoria, para pruebas).
+ */
+public interface Salida {
+
+    /**
+     * Escribe el valor seguido de un fin de línea, como PrintStream.println(int).
+     */
+    void imprimir(int valor);
+
+    /**
+     * Escribe todo lo acumulado en el destino final.
+     */
+    void vaciar();
+}
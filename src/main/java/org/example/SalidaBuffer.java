@@ -0,0 +1,120 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Salida que acumula las líneas en un buffer de bytes y las escribe en un
+ * OutputStream por bloques.
+ *
+ * Los enteros se convierten a dígitos ASCII directamente dentro del buffer,
+ * sin crear Strings. El fin de línea es el del sistema, igual que println.
+ */
+public class SalidaBuffer implements Salida {
+
+    public static final int TAMANO_POR_DEFECTO = 1 << 16;
+
+    // Lo máximo que ocupa una línea: signo, 10 dígitos y el fin de línea.
+    private static final byte[] FIN_LINEA = System.lineSeparator().getBytes();
+    private static final int MAXIMO_LINEA = 11 + FIN_LINEA.length;
+    // -2147483648 no tiene opuesto positivo en un int, así que se escribe tal cual.
+    private static final byte[] MINIMO = String.valueOf(Integer.MIN_VALUE).getBytes();
+
+    private final OutputStream destino;
+    private final byte[] buffer;
+    private int posicion = 0;
+
+    public SalidaBuffer(OutputStream destino) {
+        this(destino, TAMANO_POR_DEFECTO);
+    }
+
+    public SalidaBuffer(OutputStream destino, int tamano) {
+        this.destino = destino;
+        this.buffer = new byte[Math.max(tamano, MAXIMO_LINEA)];
+    }
+
+    @Override
+    public void imprimir(int valor) {
+        if (posicion + MAXIMO_LINEA > buffer.length) {
+            volcar();
+        }
+        posicion = escribirEntero(buffer, posicion, valor);
+        for (byte b : FIN_LINEA) {
+            buffer[posicion++] = b;
+        }
+    }
+
+    @Override
+    public void vaciar() {
+        volcar();
+        try {
+            if (destino != null) {
+                destino.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void volcar() {
+        if (posicion == 0) {
+            return;
+        }
+        try {
+            escribirBloque(buffer, posicion);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            posicion = 0;
+        }
+    }
+
+    /**
+     * Escribe un bloque completo en el destino. Las subclases lo redefinen para
+     * escribir en otros destinos.
+     */
+    protected void escribirBloque(byte[] datos, int longitud) throws IOException {
+        destino.write(datos, 0, longitud);
+    }
+
+    /**
+     * @return Cuántos bytes ocupa imprimir 'valor': signo, dígitos y fin de línea.
+     */
+    static int largoLinea(int valor) {
+        if (valor == Integer.MIN_VALUE) {
+            return MINIMO.length + FIN_LINEA.length;
+        }
+        int largo = valor < 0 ? 2 : 1;
+        for (int resto = Math.abs(valor) / 10; resto != 0; resto /= 10) {
+            largo++;
+        }
+        return largo + FIN_LINEA.length;
+    }
+
+    /**
+     * Escribe los dígitos decimales de 'valor' en 'destino' a partir de 'posicion'.
+     *
+     * @return La posición siguiente al último dígito.
+     */
+    static int escribirEntero(byte[] destino, int posicion, int valor) {
+        if (valor == Integer.MIN_VALUE) {
+            System.arraycopy(MINIMO, 0, destino, posicion, MINIMO.length);
+            return posicion + MINIMO.length;
+        }
+        if (valor < 0) {
+            destino[posicion++] = '-';
+            valor = -valor;
+        }
+        int digitos = 1;
+        for (int resto = valor / 10; resto != 0; resto /= 10) {
+            digitos++;
+        }
+        int fin = posicion + digitos;
+        for (int i = fin - 1; i >= posicion; i--) {
+            destino[i] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return fin;
+    }
+}
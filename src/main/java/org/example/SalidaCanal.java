@@ -0,0 +1,51 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Salida que escribe en un canal (por ejemplo, un archivo) en bloques grandes.
+ *
+ * Es una SalidaBuffer con un buffer de 1 MB por defecto y que escribe cada
+ * bloque directamente en el canal, sin pasar por un OutputStream.
+ */
+public class SalidaCanal extends SalidaBuffer {
+
+    public static final int TAMANO_POR_DEFECTO = 1 << 20;
+
+    private final WritableByteChannel canal;
+
+    public SalidaCanal(WritableByteChannel canal) {
+        this(canal, TAMANO_POR_DEFECTO);
+    }
+
+    public SalidaCanal(WritableByteChannel canal, int tamano) {
+        super(null, tamano);
+        this.canal = canal;
+    }
+
+    /**
+     * Abre (o crea y vacía) un archivo para escribir la salida del programa.
+     * Quien la usa debe cerrar el canal después de vaciar().
+     */
+    public static SalidaCanal archivo(Path ruta) throws IOException {
+        return new SalidaCanal(FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public WritableByteChannel getCanal() {
+        return canal;
+    }
+
+    @Override
+    protected void escribirBloque(byte[] datos, int longitud) throws IOException {
+        ByteBuffer bloque = ByteBuffer.wrap(datos, 0, longitud);
+        while (bloque.hasRemaining()) {
+            canal.write(bloque);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Salida que guarda en memoria los valores impresos, en orden.
+ * Pensada para pruebas y para comparar la salida de distintos motores.
+ */
+public class SalidaMemoria implements Salida {
+
+    private int[] valores = new int[16];
+    private int cantidad = 0;
+
+    @Override
+    public void imprimir(int valor) {
+        if (cantidad == valores.length) {
+            valores = Arrays.copyOf(valores, cantidad * 2);
+        }
+        valores[cantidad++] = valor;
+    }
+
+    @Override
+    public void vaciar() {
+        // Todo está ya en memoria.
+    }
+
+    /**
+     * @return Una copia de los valores impresos, en orden.
+     */
+    public int[] getValores() {
+        return Arrays.copyOf(valores, cantidad);
+    }
+
+    /**
+     * @return Lo impreso, una línea por valor, tal como lo mostraría System.out.
+     */
+    public String getTexto() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cantidad; i++) {
+            sb.append(valores[i]).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -9,6 +9,8 @@ import org.antlr.v4.runtime.Token;
  * - Nombre: El identificador de la variable (ej: "x").
  * - Tipo: El tipo de dato (ej: "int").
  * - Valor: El valor actual de la variable durante la ejecución. Es null durante el análisis.
+ * - Profundidad e índice: La posición (ámbito, slot) resuelta durante el análisis,
+ *   que permite a la ejecución leer la variable de un frame int[] sin buscarla por nombre.
  * - Token de Definición: El token exacto donde fue declarado. Esencial para
  *   reportar errores precisos (línea y columna).
  */
@@ -17,13 +19,22 @@ public class Simbolo {
     private final String nombre;
     private final String tipo;
     private final Token tokenDefinicion; // Guarda el contexto de la declaración.
+    private final int profundidad; // Profundidad del ámbito donde se declaró (0 = global).
+    private final int indice;      // Slot dentro del frame de ese ámbito.
     private Integer valor;
 
     // Constructor para la fase de analisis semantico
     public Simbolo(String nombre, String tipo, Token tokenDefinicion) {
+        this(nombre, tipo, tokenDefinicion, -1, -1);
+    }
+
+    // Constructor para la fase de analisis semantico con la posición ya resuelta
+    public Simbolo(String nombre, String tipo, Token tokenDefinicion, int profundidad, int indice) {
         this.nombre = nombre;
         this.tipo = tipo;
         this.tokenDefinicion = tokenDefinicion;
+        this.profundidad = profundidad;
+        this.indice = indice;
         this.valor = null; // El valor se asigna durante la declaración o asignación.
     }
 
@@ -32,6 +43,8 @@ public class Simbolo {
         this.nombre = nombre;
         this.tipo = tipo;
         this.tokenDefinicion = tokenDefinicion;
+        this.profundidad = -1;
+        this.indice = -1;
         this.valor = valor;
     }
 
@@ -53,6 +66,14 @@ public class Simbolo {
         return tokenDefinicion;
     }
 
+    public int getProfundidad() {
+        return profundidad;
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
     // --- Setter ---
 
     public void setValor(Integer valor) {
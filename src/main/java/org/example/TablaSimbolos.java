@@ -1,8 +1,10 @@
 package org.example;
 import org.antlr.v4.runtime.Token;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
 /**
  * Implementa la Tabla de Símbolos para el compilador.
@@ -11,22 +13,48 @@ import java.util.Stack;
  * Utiliza una pila de mapas para manejar los ámbitos anidados, permitiendo
  * el sombreado de variables (variable shadowing) y asegurando que las variables
  * locales se destruyan al salir de su ámbito.
+ *
+ * La pila es un ArrayList (no java.util.Stack, que está sincronizada) porque
+ * la tabla nunca se comparte entre hilos.
+ *
+ * Si recibe Metricas, cuenta las búsquedas (y las que fallan) y registra la
+ * profundidad máxima de ámbitos; sin ellas no hay ningún costo adicional.
  */
 public class TablaSimbolos {
 
-    private final Stack<Map<String, Simbolo>> ambitos;
+    private final List<Map<String, Simbolo>> ambitos;
+    private final Metricas metricas; // null si no se mide.
 
     public TablaSimbolos() {
-        this.ambitos = new Stack<>();
+        this(null);
+    }
+
+    public TablaSimbolos(Metricas metricas) {
+        this.ambitos = new ArrayList<>();
+        this.metricas = metricas;
         abrirAmbito(); // Abrimos el ámbito global al iniciar.
     }
 
+    /**
+     * Crea una tabla cuyo ámbito global es una instantánea inmutable tomada con
+     * instantanea(). Varias tablas pueden compartir la misma instantánea desde
+     * distintos hilos, siempre que ninguna inserte en el ámbito global.
+     */
+    public TablaSimbolos(Map<String, Simbolo> global, Metricas metricas) {
+        this.ambitos = new ArrayList<>();
+        this.metricas = metricas;
+        ambitos.add(global);
+    }
+
     /**
      * Inicia un nuevo ámbito anidado (ej: al entrar a un bloque 'if').
      * Empuja un nuevo mapa a la cima de la pila.
      */
     public void abrirAmbito() {
-        ambitos.push(new HashMap<>());
+        ambitos.add(new HashMap<>());
+        if (metricas != null) {
+            metricas.registrarProfundidad(getProfundidad());
+        }
     }
 
     /**
@@ -35,7 +63,7 @@ public class TablaSimbolos {
      */
     public void cerrarAmbito() {
         if (!ambitos.isEmpty()) {
-            ambitos.pop();
+            ambitos.remove(ambitos.size() - 1);
         }
     }
 
@@ -45,6 +73,8 @@ public class TablaSimbolos {
      *
      * Crea un nuevo símbolo y lo inserta, pero ANTES comprueba si ya existe
      * uno con el mismo nombre en el ámbito actual para detectar errores de redeclaración.
+     * El símbolo recibe como posición la profundidad del ámbito actual y el
+     * siguiente slot libre dentro de él.
      *
      * @param nombre El nombre del símbolo a declarar.
      * @param tipo El tipo del símbolo.
@@ -53,16 +83,16 @@ public class TablaSimbolos {
      * @throws ErrorSemanticoException Si el símbolo ya está definido en el ámbito actual.
      */
     public Simbolo insertar(String nombre, String tipo, Token token) {
-        Map<String, Simbolo> ambitoActual = ambitos.peek();
+        Map<String, Simbolo> ambitoActual = ambitoActual();
 
-        if (ambitoActual.containsKey(nombre)) {
-            Simbolo existente = ambitoActual.get(nombre);
+        Simbolo existente = ambitoActual.get(nombre);
+        if (existente != null) {
             String mensaje = "La variable '" + nombre + "' ya fue declarada en este ámbito en la línea "
                     + existente.getTokenDefinicion().getLine();
             throw new ErrorSemanticoException(mensaje, token);
         }
 
-        Simbolo nuevoSimbolo = new Simbolo(nombre, tipo, token);
+        Simbolo nuevoSimbolo = new Simbolo(nombre, tipo, token, getProfundidad(), ambitoActual.size());
         ambitoActual.put(nombre, nuevoSimbolo);
         return nuevoSimbolo;
     }
@@ -78,8 +108,7 @@ public class TablaSimbolos {
      * @param simbolo El objeto Simbolo a insertar.
      */
     public void insertar(Simbolo simbolo) {
-        Map<String, Simbolo> ambitoActual = ambitos.peek();
-        ambitoActual.put(simbolo.getNombre(), simbolo);
+        ambitoActual().put(simbolo.getNombre(), simbolo);
     }
 
     /**
@@ -92,14 +121,45 @@ public class TablaSimbolos {
     public Simbolo buscar(String nombre) {
         // Itera desde la cima de la pila (ámbito actual) hacia la base (ámbito global).
         for (int i = ambitos.size() - 1; i >= 0; i--) {
-            Map<String, Simbolo> ambito = ambitos.get(i);
-            if (ambito.containsKey(nombre)) {
-                return ambito.get(nombre);
+            Simbolo simbolo = ambitos.get(i).get(nombre);
+            if (simbolo != null) {
+                if (metricas != null) {
+                    metricas.contarBusqueda(true);
+                }
+                return simbolo;
             }
         }
+        if (metricas != null) {
+            metricas.contarBusqueda(false);
+        }
         return null; // El símbolo no fue encontrado en ningún ámbito visible.
     }
 
+    /**
+     * @return La profundidad del ámbito actual (0 para el ámbito global).
+     */
+    public int getProfundidad() {
+        return ambitos.size() - 1;
+    }
+
+    /**
+     * @return Cuántas variables se declararon hasta ahora en el ámbito actual.
+     */
+    public int getTamanoAmbitoActual() {
+        return ambitoActual().size();
+    }
+
+    /**
+     * @return Una copia inmutable del ámbito actual, para usar como ámbito global de otra tabla.
+     */
+    public Map<String, Simbolo> instantanea() {
+        return Collections.unmodifiableMap(new HashMap<>(ambitoActual()));
+    }
+
+    private Map<String, Simbolo> ambitoActual() {
+        return ambitos.get(ambitos.size() - 1);
+    }
+
 }
 
 /**
@@ -0,0 +1,37 @@
+package org.example;
+
+import org.antlr.v4.gui.TreeViewer;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import java.util.List;
+
+/**
+ * Ventana con el árbol sintáctico (el TreeViewer de ANTLR), para --arbol.
+ *
+ * Está en una clase aparte para que Main no mencione AWT ni Swing: la JVM
+ * solo carga esta clase, y con ella la interfaz gráfica, la primera vez que
+ * se llama a mostrar(). Sin --arbol, una ejecución nunca toca AWT y no
+ * necesita pantalla. Para árboles grandes conviene el ExportadorArbol.
+ */
+public final class VisorArbol {
+
+    private VisorArbol() {
+    }
+
+    /**
+     * Abre la ventana. Cerrarla termina el programa.
+     *
+     * @param reglas Los nombres de las reglas del parser, para las etiquetas de los nodos.
+     */
+    public static void mostrar(List<String> reglas, ParseTree arbol) {
+        JFrame frame = new JFrame("Arbol Sintactico");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(1300, 1000);
+        TreeViewer visor = new TreeViewer(reglas, arbol);
+        visor.setScale(1.7);
+        frame.add(new JScrollPane(visor));
+        frame.setVisible(true);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prueba diferencial del LexerRapido contra el LanguageLexer generado: los
+ * dos lexers leen las mismas entradas y tienen que producir exactamente los
+ * mismos tokens (tipo, inicio, fin, línea, columna y texto) y los mismos errores.
+ *
+ * Uso: ComparacionLexers [--casos=N] [--semilla=N] [archivo...]
+ *
+ * Las entradas son --casos textos aleatorios (10000 por defecto) armados con
+ * trozos que buscan los bordes: palabras clave y sus prefijos y extensiones,
+ * '=' repetidos, números largos, todo tipo de espacios y saltos de línea, y
+ * caracteres inválidos (mayúsculas, signos, Latin-1 y fuera del BMP). Cada
+ * texto se compara como String y como FuenteMapeada (sus bytes en Latin-1).
+ * También se comparan los archivos dados y un programa del GeneradorProgramas.
+ *
+ * Termina con código 1 y muestra la primera diferencia si encuentra alguna.
+ */
+public class ComparacionLexers {
+
+    private static final String[] TROZOS = {
+            "int", "print", "if", "while", "true", "false", "in", "i", "ints", "iff", "whilex", "tru", "falsey",
+            "printx", "pr", "x", "abc", "zz", "0", "7", "42", "007", "2147483647", "99999999999999999999",
+            ";", "=", "==", "===", "(", ")", "{", "}", "+", "-", "<", ">", "<=", "!=",
+            " ", "  ", "\t", "\n", "\r\n", "\r", "\n\n",
+            "A", "Int", "_", "#", "!", "@", "$", ".", ",", "\"", "'", "\\", "\u0000", "\u007f", "é", "ÿ",
+            "ñandú", "€", "😀"
+    };
+
+    public static void main(String[] args) throws IOException {
+        int casos = 10_000;
+        long semilla = 1;
+        List<String> archivos = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--casos=")) {
+                casos = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--semilla=")) {
+                semilla = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+            } else {
+                archivos.add(arg);
+            }
+        }
+
+        Random aleatorio = new Random(semilla);
+        long tokens = 0;
+        for (int i = 0; i < casos; i++) {
+            String texto = generar(aleatorio);
+            tokens += comparar("caso " + i, CharStreams.fromString(texto), texto);
+            byte[] bytes = texto.getBytes(StandardCharsets.ISO_8859_1);
+            tokens += comparar("caso " + i + " (mapeado)", new FuenteMapeada(ByteBuffer.wrap(bytes), "caso"), texto);
+        }
+        String generado = new GeneradorProgramas(2000, 3, 4, 5, semilla).generar();
+        tokens += comparar("programa generado", CharStreams.fromString(generado), null);
+        for (String archivo : archivos) {
+            tokens += comparar(archivo, FuenteMapeada.abrir(Paths.get(archivo)), null);
+        }
+        System.out.printf("Sin diferencias: %d casos aleatorios, %d archivos, %d tokens comparados.%n",
+                casos, archivos.size() + 1, tokens);
+    }
+
+    private static String generar(Random aleatorio) {
+        StringBuilder texto = new StringBuilder();
+        int trozos = aleatorio.nextInt(40);
+        for (int i = 0; i < trozos; i++) {
+            texto.append(TROZOS[aleatorio.nextInt(TROZOS.length)]);
+        }
+        return texto.toString();
+    }
+
+    /**
+     * @return Cuántos tokens se compararon.
+     */
+    private static long comparar(String caso, CharStream entrada, String texto) {
+        Lectura antlr = new Lectura();
+        LanguageLexer generado = new LanguageLexer(entrada);
+        generado.removeErrorListeners();
+        generado.addErrorListener(antlr);
+        antlr.leer(generado);
+
+        Lectura rapida = new Lectura();
+        entrada.seek(0);
+        rapida.leer(new LexerRapido(entrada, rapida));
+
+        int cantidad = Math.max(antlr.lineas.size(), rapida.lineas.size());
+        for (int i = 0; i < cantidad; i++) {
+            String esperada = i < antlr.lineas.size() ? antlr.lineas.get(i) : "(nada)";
+            String obtenida = i < rapida.lineas.size() ? rapida.lineas.get(i) : "(nada)";
+            if (!esperada.equals(obtenida)) {
+                System.out.println("Diferencia en " + caso + ", elemento " + i + ":");
+                System.out.println("  LanguageLexer: " + esperada);
+                System.out.println("  LexerRapido:   " + obtenida);
+                if (texto != null) {
+                    System.out.println("  Entrada: " + escapar(texto));
+                }
+                System.exit(1);
+            }
+        }
+        return antlr.tokens;
+    }
+
+    private static String escapar(String texto) {
+        StringBuilder escapado = new StringBuilder("\"");
+        texto.codePoints().forEach(c -> {
+            if (c >= ' ' && c < 0x7f && c != '"' && c != '\\') {
+                escapado.append((char) c);
+            } else {
+                escapado.append(String.format("\\u{%x}", c));
+            }
+        });
+        return escapado.append('"').toString();
+    }
+
+    /**
+     * Los tokens y errores de un lexer, cada uno como una línea de texto, en el orden en que aparecen.
+     */
+    private static final class Lectura extends BaseErrorListener {
+        final List<String> lineas = new ArrayList<>();
+        long tokens = 0;
+
+        void leer(TokenSource lexer) {
+            Token token;
+            do {
+                token = lexer.nextToken();
+                lineas.add("token " + token.getType() + " [" + token.getStartIndex() + ".." + token.getStopIndex()
+                        + "] " + token.getLine() + ":" + token.getCharPositionInLine() + " '" + token.getText()
+                        + "' canal " + token.getChannel());
+                tokens++;
+            } while (token.getType() != Token.EOF);
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            lineas.add("error " + line + ":" + charPositionInLine + " " + msg);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prueba diferencial del ParserRapido contra el LanguageParser: para cada
+ * entrada, o los dos encuentran errores de sintaxis, o ninguno, y en ese
+ * caso el ProgramaIR del ParserRapido tiene que ser idéntico (nodo por nodo,
+ * con sus posiciones, listas y nombres) al que ConstructorIR baja del árbol.
+ *
+ * Uso: ComparacionParsers [--casos=N] [--semilla=N] [archivo...]
+ *
+ * Las entradas son --casos programas aleatorios (10000 por defecto) con
+ * bloques anidados, 'while', comparaciones y cadenas que mezclan sumas y
+ * restas (donde se nota la precedencia), y la mitad de ellos con un token
+ * borrado, repetido o cambiado para forzar errores de sintaxis. También se
+ * comparan los archivos dados y un programa del GeneradorProgramas.
+ *
+ * Termina con código 1 y muestra la primera diferencia si encuentra alguna.
+ */
+public class ComparacionParsers {
+
+    private static final String[] OPERADORES = {"+", "-", "+", "-", "<", ">", "=="};
+    private static final String[] HOJAS = {"a", "b", "c", "x", "0", "1", "42", "99999999999", "true", "false"};
+    private static final String[] BASURA = {";", "=", "(", ")", "{", "}", "+", "int", "print", "if", "x", "7"};
+
+    public static void main(String[] args) throws IOException {
+        int casos = 10_000;
+        long semilla = 1;
+        List<String> archivos = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--casos=")) {
+                casos = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--semilla=")) {
+                semilla = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+            } else {
+                archivos.add(arg);
+            }
+        }
+
+        Random aleatorio = new Random(semilla);
+        AnalizadorSintactico sintactico = new AnalizadorSintactico(AnalizadorSintactico.Modo.LL);
+        AnalizadorSintactico rapido = new AnalizadorSintactico(AnalizadorSintactico.Modo.LL,
+                AnalizadorSintactico.Lexer.RAPIDO);
+        int conErrores = 0;
+        for (int i = 0; i < casos; i++) {
+            List<String> tokens = new ArrayList<>();
+            programa(aleatorio, tokens, 0);
+            if (aleatorio.nextBoolean() && !tokens.isEmpty()) {
+                mutar(aleatorio, tokens);
+            }
+            String texto = String.join(" ", tokens);
+            if (!comparar("caso " + i, CharStreams.fromString(texto), texto, sintactico, rapido)) {
+                conErrores++;
+            }
+        }
+        String generado = new GeneradorProgramas(2000, 3, 4, 5, semilla).generar();
+        comparar("programa generado", CharStreams.fromString(generado), null, sintactico, rapido);
+        for (String archivo : archivos) {
+            comparar(archivo, FuenteMapeada.abrir(Paths.get(archivo)), null, sintactico, rapido);
+        }
+        System.out.printf("Sin diferencias: %d casos aleatorios (%d con errores de sintaxis), %d archivos.%n",
+                casos, conErrores, archivos.size() + 1);
+    }
+
+    private static void programa(Random aleatorio, List<String> tokens, int nivel) {
+        int sentencias = aleatorio.nextInt(nivel == 0 ? 8 : 4);
+        for (int i = 0; i < sentencias; i++) {
+            int tipo = aleatorio.nextInt(nivel < 3 ? 6 : 4);
+            switch (tipo) {
+                case 0:
+                case 1:
+                    if (tipo == 0) {
+                        tokens.add("int"); // Una declaración es 'int' seguido de una asignación.
+                    }
+                    tokens.add(HOJAS[aleatorio.nextInt(4)]);
+                    tokens.add("=");
+                    expresion(aleatorio, tokens);
+                    tokens.add(";");
+                    break;
+                case 2:
+                case 3:
+                    tokens.add("print");
+                    tokens.add("(");
+                    expresion(aleatorio, tokens);
+                    tokens.add(")");
+                    tokens.add(";");
+                    break;
+                default:
+                    tokens.add(aleatorio.nextBoolean() ? "if" : "while");
+                    tokens.add("(");
+                    expresion(aleatorio, tokens);
+                    tokens.add(")");
+                    tokens.add("{");
+                    programa(aleatorio, tokens, nivel + 1);
+                    tokens.add("}");
+                    break;
+            }
+        }
+    }
+
+    private static void expresion(Random aleatorio, List<String> tokens) {
+        tokens.add(HOJAS[aleatorio.nextInt(HOJAS.length)]);
+        int operadores = aleatorio.nextInt(6);
+        for (int i = 0; i < operadores; i++) {
+            tokens.add(OPERADORES[aleatorio.nextInt(OPERADORES.length)]);
+            tokens.add(HOJAS[aleatorio.nextInt(HOJAS.length)]);
+        }
+    }
+
+    private static void mutar(Random aleatorio, List<String> tokens) {
+        int posicion = aleatorio.nextInt(tokens.size());
+        switch (aleatorio.nextInt(3)) {
+            case 0:
+                tokens.remove(posicion);
+                break;
+            case 1:
+                tokens.add(posicion, tokens.get(posicion));
+                break;
+            default:
+                tokens.set(posicion, BASURA[aleatorio.nextInt(BASURA.length)]);
+                break;
+        }
+    }
+
+    /**
+     * @return true si la entrada no tiene errores de sintaxis.
+     */
+    private static boolean comparar(String caso, CharStream entrada, String texto, AnalizadorSintactico sintactico,
+                                    AnalizadorSintactico rapido) {
+        Contador erroresAntlr = new Contador();
+        LanguageParser.InicioContext tree = sintactico.parsear(entrada, erroresAntlr);
+        entrada.seek(0);
+        Contador erroresRapido = new Contador();
+        ProgramaIR obtenido = rapido.parsearIR(entrada, erroresRapido, null);
+
+        String diferencia = null;
+        if ((erroresAntlr.cantidad > 0) != (erroresRapido.cantidad > 0)) {
+            diferencia = "errores de sintaxis: LanguageParser " + erroresAntlr.cantidad + ", ParserRapido "
+                    + erroresRapido.cantidad + " (" + erroresRapido.primero + ")";
+        } else if (erroresAntlr.cantidad == 0) {
+            diferencia = diferencia(ConstructorIR.construir(tree), obtenido);
+        }
+        if (diferencia != null) {
+            System.out.println("Diferencia en " + caso + ": " + diferencia);
+            if (texto != null) {
+                System.out.println("  Entrada: " + texto);
+            }
+            System.exit(1);
+        }
+        return erroresAntlr.cantidad == 0;
+    }
+
+    /**
+     * @return La primera diferencia entre los dos programas, o null si son idénticos.
+     */
+    private static String diferencia(ProgramaIR esperado, ProgramaIR obtenido) {
+        if (esperado.getCantidadNodos() != obtenido.getCantidadNodos()) {
+            return "nodos: " + esperado.getCantidadNodos() + " y " + obtenido.getCantidadNodos();
+        }
+        if (esperado.getRaiz() != obtenido.getRaiz()) {
+            return "raíz: " + esperado.getRaiz() + " y " + obtenido.getRaiz();
+        }
+        for (int nodo = 0; nodo < esperado.getCantidadNodos(); nodo++) {
+            String uno = describir(esperado, nodo);
+            String otro = describir(obtenido, nodo);
+            if (!uno.equals(otro)) {
+                return "nodo " + nodo + ": " + uno + " y " + otro;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Un nodo con sus operandos, su posición y lo que referencian (nombres o sentencias).
+     */
+    private static String describir(ProgramaIR ir, int nodo) {
+        byte clase = ir.clase(nodo);
+        StringBuilder texto = new StringBuilder();
+        texto.append(clase).append('(').append(ir.a(nodo)).append(", ").append(ir.b(nodo)).append(") en ")
+                .append(ir.linea(nodo)).append(':').append(ir.columna(nodo));
+        if (clase == ProgramaIR.NOMBRE || clase == ProgramaIR.ID || (clase == ProgramaIR.NUM && ir.b(nodo) == 1)) {
+            texto.append(" '").append(ir.nombre(ir.a(nodo))).append('\'');
+        } else if (clase == ProgramaIR.PROGRAMA || clase == ProgramaIR.BLOQUE) {
+            texto.append(" [");
+            for (int i = 0; i < ir.b(nodo); i++) {
+                texto.append(i == 0 ? "" : ", ").append(ir.sentencia(nodo, i));
+            }
+            texto.append(']');
+        }
+        return texto.toString();
+    }
+
+    private static final class Contador extends BaseErrorListener {
+        int cantidad = 0;
+        String primero;
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            if (cantidad++ == 0) {
+                primero = "line " + line + ":" + charPositionInLine + " " + msg;
+            }
+        }
+    }
+}
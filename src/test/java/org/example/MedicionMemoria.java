@@ -0,0 +1,58 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Mide cuánto heap ocupa un programa mientras se analiza y se ejecuta, con
+ * el árbol de ANTLR y sus tokens y con solo el ProgramaIR (como con --ir).
+ *
+ * Uso: MedicionMemoria archivo...
+ *
+ * Para cada archivo se mide el heap usado después de un System.gc(): antes de
+ * parsear, con el árbol y los tokens todavía referenciados, y después de
+ * bajarlo a un ProgramaIR y soltar todo lo demás. Conviene correrlo con un
+ * -Xmx holgado para que el gc no tenga que apurarse durante el parseo.
+ */
+public class MedicionMemoria {
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%-28s %10s %14s %10s %10s %12s%n", "ARCHIVO", "FUENTE MB", "ÁRBOL+TOK MB", "IR MB",
+                "REDUCCIÓN", "NODOS IR");
+        for (String arg : args) {
+            medir(Paths.get(arg));
+        }
+    }
+
+    private static void medir(Path archivo) throws IOException {
+        AnalizadorSintactico sintactico = new AnalizadorSintactico(AnalizadorSintactico.Modo.SLL);
+        long base = heapUsado();
+
+        CharStream fuente = FuenteMapeada.abrir(archivo);
+        LanguageParser.InicioContext tree = sintactico.parsear(fuente, new BaseErrorListener());
+        long conArbol = heapUsado() - base;
+
+        ProgramaIR ir = ConstructorIR.construir(tree);
+        tree = null;
+        fuente = null;
+        sintactico.liberar();
+        long conIR = heapUsado() - base;
+
+        System.out.printf("%-28s %10.1f %14.1f %10.1f %9.1fx %12d%n", archivo.getFileName(),
+                Files.size(archivo) / 1e6, conArbol / 1e6, conIR / 1e6, (double) conArbol / Math.max(1, conIR),
+                ir.getCantidadNodos());
+    }
+
+    private static long heapUsado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mide el rendimiento del AnalizadorSintactico en sus dos modos y con sus dos
+ * lexers sobre los archivos dados, para comparar el parseo en dos etapas (SLL)
+ * con el LL completo, el LanguageLexer con el LexerRapido y el LanguageParser
+ * con el ParserRapido.
+ *
+ * Uso: MedicionParseo [--repeticiones=N] archivo...
+ *
+ * Primero se mide cada lexer solo (todos los tokens, sin parsear) y después
+ * cada combinación de modo y lexer, y por último el ParserRapido con cada
+ * lexer. Los tiempos del LanguageParser no incluyen bajar el árbol a un
+ * ProgramaIR; los del ParserRapido sí. Cada medición hace una ronda de
+ * calentamiento sin medir y luego N rondas; se informa el tiempo medio por
+ * ronda y el rendimiento en MB/s. Los archivos se leen como FuenteMapeada,
+ * igual que en Main.
+ */
+public class MedicionParseo {
+
+    public static void main(String[] args) throws IOException {
+        int repeticiones = 5;
+        List<CharStream> entradas = new ArrayList<>();
+        long bytes = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--repeticiones=")) {
+                repeticiones = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else {
+                entradas.add(FuenteMapeada.abrir(Paths.get(arg)));
+                bytes += Files.size(Paths.get(arg));
+            }
+        }
+
+        for (AnalizadorSintactico.Lexer lexer : AnalizadorSintactico.Lexer.values()) {
+            rondaLexica(lexer, entradas); // Calentamiento.
+            long inicio = System.nanoTime();
+            long tokens = 0;
+            for (int i = 0; i < repeticiones; i++) {
+                tokens = rondaLexica(lexer, entradas);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9 / repeticiones;
+            System.out.printf("%-12s %10.2f ms/ronda %10.2f MB/s  (%d tokens)%n", "lexer/" + nombre(lexer),
+                    segundos * 1000, bytes / 1e6 / segundos, tokens);
+        }
+
+        for (AnalizadorSintactico.Modo modo : AnalizadorSintactico.Modo.values()) {
+            for (AnalizadorSintactico.Lexer lexer : AnalizadorSintactico.Lexer.values()) {
+                AnalizadorSintactico sintactico = new AnalizadorSintactico(modo, lexer);
+                ronda(sintactico, entradas); // Calentamiento.
+                long inicio = System.nanoTime();
+                for (int i = 0; i < repeticiones; i++) {
+                    ronda(sintactico, entradas);
+                }
+                double segundos = (System.nanoTime() - inicio) / 1e9 / repeticiones;
+                System.out.printf("%-12s %10.2f ms/ronda %10.2f MB/s  (SLL: %d, LL: %d)%n",
+                        modo + "/" + nombre(lexer), segundos * 1000, bytes / 1e6 / segundos,
+                        sintactico.getParseosSll(), sintactico.getParseosLl());
+            }
+        }
+
+        for (AnalizadorSintactico.Lexer lexer : AnalizadorSintactico.Lexer.values()) {
+            AnalizadorSintactico sintactico = new AnalizadorSintactico(AnalizadorSintactico.Modo.SLL, lexer);
+            rondaIR(sintactico, entradas); // Calentamiento.
+            long inicio = System.nanoTime();
+            long nodos = 0;
+            for (int i = 0; i < repeticiones; i++) {
+                nodos = rondaIR(sintactico, entradas);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9 / repeticiones;
+            System.out.printf("%-12s %10.2f ms/ronda %10.2f MB/s  (%d nodos IR)%n", "rapido/" + nombre(lexer),
+                    segundos * 1000, bytes / 1e6 / segundos, nodos);
+        }
+    }
+
+    private static String nombre(AnalizadorSintactico.Lexer lexer) {
+        return lexer.toString().toLowerCase();
+    }
+
+    /**
+     * @return Cuántos tokens se leyeron en total, sin contar los EOF.
+     */
+    private static long rondaLexica(AnalizadorSintactico.Lexer lexer, List<CharStream> entradas) {
+        long tokens = 0;
+        for (CharStream entrada : entradas) {
+            entrada.seek(0);
+            TokenSource fuente = lexer == AnalizadorSintactico.Lexer.RAPIDO
+                    ? new LexerRapido(entrada, new BaseErrorListener())
+                    : new LanguageLexer(entrada);
+            while (fuente.nextToken().getType() != Token.EOF) {
+                tokens++;
+            }
+        }
+        return tokens;
+    }
+
+    private static void ronda(AnalizadorSintactico sintactico, List<CharStream> entradas) {
+        for (CharStream entrada : entradas) {
+            entrada.seek(0);
+            sintactico.parsear(entrada, new BaseErrorListener());
+        }
+    }
+
+    /**
+     * @return Cuántos nodos tienen en total los ProgramaIR de los archivos sin errores.
+     */
+    private static long rondaIR(AnalizadorSintactico sintactico, List<CharStream> entradas) {
+        long nodos = 0;
+        for (CharStream entrada : entradas) {
+            entrada.seek(0);
+            ProgramaIR ir = sintactico.parsearIR(entrada, new BaseErrorListener(), null);
+            if (ir != null) {
+                nodos += ir.getCantidadNodos();
+            }
+        }
+        return nodos;
+    }
+}
@@ -0,0 +1,166 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prueba de carga del MotorLenguaje: compila un programa una vez y lo ejecuta
+ * muchas veces a la vez, para ver cómo escala el rendimiento con los hilos.
+ *
+ * Uso: PruebaCarga [--ejecuciones=N] [--hilos=1,2,4] [opciones de Main] [archivo]
+ *
+ * Para cada cantidad de hilos de --hilos (por defecto 1, 2, 4... hasta la
+ * cantidad de núcleos) se ejecuta el programa --ejecuciones veces (2000 por
+ * defecto) con un pool fijo, y al final otras tantas con crearEjecutor(), que
+ * usa hilos virtuales si la JVM los tiene. Se informan las ejecuciones por
+ * segundo y la latencia de cada ejecución (mediana y percentil 99).
+ *
+ * Las demás opciones (--motor, --optimizar, --max-pasos...) se interpretan
+ * como en Main. Sin archivo se usa un programa del GeneradorProgramas.
+ * Todas las ejecuciones deben imprimir exactamente lo mismo; si no, termina
+ * con error.
+ */
+public class PruebaCarga {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int ejecuciones = 2000;
+        int[] hilos = null;
+        List<String> argumentosMotor = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--ejecuciones=")) {
+                ejecuciones = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--hilos=")) {
+                hilos = Arrays.stream(arg.substring(arg.indexOf('=') + 1).split(","))
+                        .mapToInt(Integer::parseInt).toArray();
+            } else {
+                argumentosMotor.add(arg);
+            }
+        }
+        Opciones opciones = Opciones.parsear(argumentosMotor.toArray(new String[0]));
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        if (hilos == null) {
+            hilos = hilosPorDefecto(nucleos);
+        }
+
+        MotorLenguaje motor = new MotorLenguaje(opciones);
+        ProgramaCompilado programa;
+        if (opciones.getArchivos().isEmpty()) {
+            programa = motor.compilar("generado", new GeneradorProgramas(1000, 3, 4, 3, 42).generar());
+        } else {
+            String archivo = opciones.getArchivos().get(0);
+            programa = motor.compilar(archivo, FuenteMapeada.abrir(Paths.get(archivo)));
+        }
+        if (!programa.isEjecutable()) {
+            programa.getErroresSintacticos().forEach(System.err::println);
+            programa.getErroresSemanticos().forEach(System.err::println);
+            System.exit(1);
+        }
+
+        // La huella de la salida de referencia, y calentamiento del JIT de la JVM.
+        long esperada = ejecutar(motor, programa).huella;
+        ExecutorService calentamiento = Executors.newFixedThreadPool(nucleos);
+        medir(motor, programa, calentamiento, Math.max(1, ejecuciones / 4), esperada);
+        calentamiento.shutdown();
+
+        System.out.printf("Motor: %s, núcleos: %d, ejecuciones por fila: %d%n",
+                opciones.getMotor().toString().toLowerCase(), nucleos, ejecuciones);
+        System.out.printf("%-26s %12s %12s %12s%n", "HILOS", "EJEC/S", "P50 us", "P99 us");
+        for (int cantidad : hilos) {
+            ExecutorService pool = Executors.newFixedThreadPool(cantidad);
+            imprimirFila(String.valueOf(cantidad), medir(motor, programa, pool, ejecuciones, esperada));
+            pool.shutdown();
+        }
+        ExecutorService virtuales = MotorLenguaje.crearEjecutor(nucleos);
+        String nombre = MotorLenguaje.hayHilosVirtuales() ? "virtuales" : "pool de " + nucleos + " (sin virtuales)";
+        imprimirFila(nombre, medir(motor, programa, virtuales, ejecuciones, esperada));
+        virtuales.shutdown();
+    }
+
+    private static int[] hilosPorDefecto(int nucleos) {
+        List<Integer> cantidades = new ArrayList<>();
+        for (int cantidad = 1; cantidad < nucleos; cantidad *= 2) {
+            cantidades.add(cantidad);
+        }
+        cantidades.add(nucleos);
+        return cantidades.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Lanza todas las ejecuciones a la vez en el ejecutor y espera a que terminen.
+     *
+     * @return Las ejecuciones por segundo, seguidas de las latencias en nanosegundos ordenadas.
+     */
+    private static long[] medir(MotorLenguaje motor, ProgramaCompilado programa, ExecutorService ejecutor,
+                                int ejecuciones, long esperada) throws InterruptedException {
+        List<Future<Ejecucion>> pendientes = new ArrayList<>(ejecuciones);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ejecuciones; i++) {
+            pendientes.add(ejecutor.submit(() -> ejecutar(motor, programa)));
+        }
+        long[] medidas = new long[ejecuciones + 1];
+        for (int i = 0; i < ejecuciones; i++) {
+            Ejecucion ejecucion;
+            try {
+                ejecucion = pendientes.get(i).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            if (ejecucion.huella != esperada) {
+                throw new IllegalStateException("La ejecución " + i + " imprimió algo distinto a la primera");
+            }
+            medidas[i + 1] = ejecucion.nanos;
+        }
+        long nanosTotal = System.nanoTime() - inicio;
+        Arrays.sort(medidas, 1, medidas.length);
+        medidas[0] = Math.round(ejecuciones / (nanosTotal / 1e9));
+        return medidas;
+    }
+
+    private static Ejecucion ejecutar(MotorLenguaje motor, ProgramaCompilado programa) {
+        Huella salida = new Huella();
+        ResultadoPrograma resultado = motor.ejecutar(programa, salida);
+        if (resultado.getEstado() != ResultadoPrograma.Estado.OK) {
+            throw new IllegalStateException(resultado.getEstado() + ": " + resultado.getSalida().trim());
+        }
+        return new Ejecucion(salida.valor, resultado.getNanosEjecucion());
+    }
+
+    private static void imprimirFila(String hilos, long[] medidas) {
+        int cantidad = medidas.length - 1;
+        System.out.printf("%-26s %12d %12.1f %12.1f%n", hilos, medidas[0],
+                medidas[1 + cantidad / 2] / 1e3, medidas[1 + Math.min(cantidad - 1, cantidad * 99 / 100)] / 1e3);
+    }
+
+    /**
+     * Salida que solo calcula una huella de lo impreso, para comparar ejecuciones sin guardarlas.
+     */
+    private static final class Huella implements Salida {
+        long valor = 1;
+
+        @Override
+        public void imprimir(int numero) {
+            valor = 31 * valor + numero;
+        }
+
+        @Override
+        public void vaciar() {
+        }
+    }
+
+    private static final class Ejecucion {
+        final long huella;
+        final long nanos;
+
+        Ejecucion(long huella, long nanos) {
+            this.huella = huella;
+            this.nanos = nanos;
+        }
+    }
+}
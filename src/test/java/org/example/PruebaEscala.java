@@ -0,0 +1,177 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prueba de regresión a escala: programas que desbordaban la pila cuando
+ * 'programa' era recursiva por la derecha y las pasadas recorrían el árbol
+ * recursivamente.
+ *
+ * - Un programa de SENTENCIAS sentencias en el nivel superior, con 'if' y
+ *   'while' intercalados.
+ * - Un 'print' de una cadena de OPERANDOS operandos con '+' y '-', y otro de
+ *   una cadena del mismo largo solo con '+'.
+ *
+ * Cada uno se procesa con los tres motores, con y sin --optimizar, y por los
+ * caminos del IR (--ir y --parser=rapido), siempre con la pila por defecto
+ * (sin -Xss ni un tamaño de pila en el Thread). La salida tiene que ser la
+ * esperada, que se calcula aquí mismo.
+ *
+ * Cada combinación corre en un hilo nuevo: el ProcesadorPrograma guarda un
+ * lexer y un parser por hilo, y en el hilo principal los de una combinación
+ * seguirían ocupando memoria durante la siguiente.
+ *
+ * Uso (no entra en el jar; se compila con 'mvn test-compile'):
+ *
+ *   java -cp target/classes:target/test-classes:DEPENDENCIAS org.example.PruebaEscala
+ *        [--sentencias=N] [--operandos=N]
+ *
+ * Termina con código 1 si algún caso falla.
+ */
+public class PruebaEscala {
+
+    private static final int SENTENCIAS = 1_000_000;
+    private static final int OPERANDOS = 200_000;
+
+    private static final String[][] COMBINACIONES = {
+            {"--motor=visitor"},
+            {"--motor=visitor", "--optimizar"},
+            {"--motor=vm"},
+            {"--motor=vm", "--optimizar"},
+            {"--motor=vm", "--ir"},
+            {"--motor=vm", "--parser=rapido", "--lexer=rapido"},
+            {"--motor=jit"},
+            {"--motor=jit", "--optimizar"},
+            {"--motor=jit", "--parser=rapido"},
+    };
+
+    public static void main(String[] args) throws InterruptedException {
+        int sentencias = SENTENCIAS;
+        int operandos = OPERANDOS;
+        for (String arg : args) {
+            if (arg.startsWith("--sentencias=")) {
+                sentencias = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--operandos=")) {
+                operandos = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+
+        List<String> fallos = new ArrayList<>();
+        StringBuilder esperado = new StringBuilder();
+        String largo = programaLargo(sentencias, esperado);
+        probar(sentencias + " sentencias", largo, esperado.toString(), fallos);
+        esperado.setLength(0);
+        String cadena = cadenaLarga(operandos, true, esperado);
+        probar("cadena de " + operandos + " operandos +/-", cadena, esperado.toString(), fallos);
+        esperado.setLength(0);
+        cadena = cadenaLarga(operandos, false, esperado);
+        probar("cadena de " + operandos + " operandos +", cadena, esperado.toString(), fallos);
+
+        if (!fallos.isEmpty()) {
+            System.out.println(fallos.size() + " casos fallidos:");
+            for (String fallo : fallos) {
+                System.out.println("  " + fallo);
+            }
+            System.exit(1);
+        }
+        System.out.println("Todos los casos dieron la salida esperada.");
+    }
+
+    private static void probar(String caso, String fuente, String esperado, List<String> fallos)
+            throws InterruptedException {
+        for (String[] combinacion : COMBINACIONES) {
+            String nombre = caso + " " + String.join(" ", combinacion);
+            long inicio = System.nanoTime();
+            ResultadoPrograma[] procesado = new ResultadoPrograma[1];
+            Thread hilo = new Thread(() -> procesado[0] = new ProcesadorPrograma(Opciones.parsear(combinacion))
+                    .procesar(caso, fuente), "prueba-escala");
+            hilo.start();
+            hilo.join();
+            ResultadoPrograma resultado = procesado[0];
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            if (resultado == null) {
+                fallos.add(nombre + ": el hilo terminó con una excepción");
+                continue;
+            }
+            if (resultado.getEstado() != ResultadoPrograma.Estado.OK) {
+                fallos.add(nombre + ": " + resultado.getEstado() + " " + primeraLinea(resultado.getSalida()));
+            } else if (!resultado.getSalida().equals(esperado)) {
+                fallos.add(nombre + ": salida distinta de la esperada (" + primeraLinea(resultado.getSalida()) + ")");
+            }
+            System.out.printf("%-74s %6d ms  %s%n", nombre, ms, resultado.getEstado());
+        }
+    }
+
+    /**
+     * Un contador que se incrementa y, cada tanto, un 'if' o un 'while' corto
+     * y un 'print'. Todas las sentencias (también las de los bloques) cuentan
+     * para el total.
+     */
+    private static String programaLargo(int sentencias, StringBuilder esperado) {
+        StringBuilder fuente = new StringBuilder(sentencias * 16);
+        fuente.append("int x = 0;\nint y = 0;\n");
+        long x = 0;
+        long y = 0;
+        int escritas = 2;
+        while (escritas < sentencias) {
+            int resto = sentencias - escritas;
+            if (escritas % 100_000 < 3 && resto >= 1) {
+                fuente.append("print(x);\n");
+                esperado.append(x).append(System.lineSeparator());
+                escritas++;
+            } else if (escritas % 1000 == 0 && resto >= 2) {
+                fuente.append("if (x > y) { y = y + 2; }\n");
+                if (x > y) {
+                    y += 2;
+                }
+                escritas += 2;
+            } else if (escritas % 1000 == 500 && resto >= 3) {
+                fuente.append("while (y < x) { y = y + 1; x = x - 1; }\n");
+                while (y < x) {
+                    y += 1;
+                    x -= 1;
+                }
+                escritas += 3;
+            } else {
+                fuente.append("x = x + 1;\n");
+                x++;
+                escritas++;
+            }
+        }
+        return fuente.toString();
+    }
+
+    /**
+     * En la gramática '+' tiene más precedencia que '-': la cadena es una resta
+     * (asociativa a izquierda) de sumas.
+     */
+    private static String cadenaLarga(int operandos, boolean conRestas, StringBuilder esperado) {
+        StringBuilder fuente = new StringBuilder(operandos * 4);
+        fuente.append("print(7");
+        int valor = 0;
+        int suma = 7;
+        boolean primera = true;
+        for (int i = 1; i < operandos; i++) {
+            int operando = i % 10;
+            if (conRestas && i % 3 == 0) {
+                fuente.append(" - ").append(operando);
+                valor = primera ? suma : valor - suma;
+                primera = false;
+                suma = operando;
+            } else {
+                fuente.append(" + ").append(operando);
+                suma += operando;
+            }
+        }
+        valor = primera ? suma : valor - suma;
+        fuente.append(");\n");
+        esperado.append(valor).append(System.lineSeparator());
+        return fuente.toString();
+    }
+
+    private static String primeraLinea(String texto) {
+        int fin = texto.indexOf('\n');
+        return fin < 0 ? texto : texto.substring(0, fin);
+    }
+}